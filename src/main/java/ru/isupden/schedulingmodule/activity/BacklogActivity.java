@@ -0,0 +1,14 @@
+package ru.isupden.schedulingmodule.activity;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+import ru.isupden.schedulingmodule.model.BacklogSample;
+
+/**
+ * Activity for sampling the backlog of a downstream task queue.
+ */
+@ActivityInterface
+public interface BacklogActivity {
+    @ActivityMethod
+    BacklogSample sampleBacklog(String taskQueue);
+}
@@ -0,0 +1,48 @@
+package ru.isupden.schedulingmodule.activity;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.enums.v1.TaskQueueType;
+import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.api.workflowservice.v1.DescribeTaskQueueRequest;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.isupden.schedulingmodule.model.BacklogSample;
+
+/**
+ * Backlog через DescribeTaskQueue: backlogCountHint и число poller-ов workflow-очереди.
+ * Если сервер метод не поддерживает, возвращается недоступный замер, а не ошибка.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BacklogActivityImpl implements BacklogActivity {
+
+    private final WorkflowServiceStubs stubs;
+    private final String namespace;
+
+    @Override
+    public BacklogSample sampleBacklog(String taskQueue) {
+        var request = DescribeTaskQueueRequest.newBuilder()
+                .setNamespace(namespace)
+                .setTaskQueue(TaskQueue.newBuilder().setName(taskQueue).build())
+                .setTaskQueueType(TaskQueueType.TASK_QUEUE_TYPE_WORKFLOW)
+                .setIncludeTaskQueueStatus(true)
+                .build();
+        try {
+            var response = stubs.blockingStub().describeTaskQueue(request);
+            return BacklogSample.builder()
+                    .taskQueue(taskQueue)
+                    .backlog(response.getTaskQueueStatus().getBacklogCountHint())
+                    .pollers(response.getPollersCount())
+                    .available(response.hasTaskQueueStatus())
+                    .build();
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() != Status.Code.UNIMPLEMENTED) {
+                throw e;
+            }
+            log.debug("DescribeTaskQueue is not supported by the server: {}", e.getMessage());
+            return BacklogSample.builder().taskQueue(taskQueue).available(false).build();
+        }
+    }
+}
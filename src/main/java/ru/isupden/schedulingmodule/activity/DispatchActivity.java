@@ -10,6 +10,14 @@ import io.temporal.activity.ActivityMethod;
  */
 @ActivityInterface
 public interface DispatchActivity {
+
+    /**
+     * Служебный ключ payload-а: имя клиента scheduler-а, уходит в memo, а не в аргументы воркфлоу.
+     * Приходит только при {@code scheduling-module.completions.enabled}; собственная реализация
+     * должна в этом случае убрать его из payload-а сама.
+     */
+    String CLIENT_NAME_KEY = "$clientName";
+
     @ActivityMethod
     void dispatchTask(String workflowType,
                       String workflowId,
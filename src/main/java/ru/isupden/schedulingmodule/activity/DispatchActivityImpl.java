@@ -1,23 +1,57 @@
 package ru.isupden.schedulingmodule.activity;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import io.micrometer.core.annotation.Timed;
+import io.temporal.activity.Activity;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
 import io.temporal.client.WorkflowOptions;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.payload.PayloadStore;
 
 /**
  * Implementation of DispatchActivity, starts external workflows.
+ * С {@link DispatchPipeline} старт уходит в конвейер, а activity-слот освобождается сразу.
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class DispatchActivityImpl implements DispatchActivity {
 
     private final WorkflowClient client;
     private final SchedulingMetricsService metricsService;
+    private final DispatchPipeline pipeline;
+    private final PayloadStore payloadStore;
+    private final WorkflowClientPool clientPool;
+
+    public DispatchActivityImpl(WorkflowClient client, SchedulingMetricsService metricsService) {
+        this(client, metricsService, null, null, null);
+    }
+
+    public DispatchActivityImpl(WorkflowClient client,
+                                SchedulingMetricsService metricsService,
+                                @Nullable DispatchPipeline pipeline,
+                                @Nullable PayloadStore payloadStore) {
+        this(client, metricsService, pipeline, payloadStore, null);
+    }
+
+    @Autowired
+    public DispatchActivityImpl(WorkflowClient client,
+                                SchedulingMetricsService metricsService,
+                                @Nullable DispatchPipeline pipeline,
+                                @Nullable PayloadStore payloadStore,
+                                @Nullable WorkflowClientPool clientPool) {
+        this.client = client;
+        this.metricsService = metricsService;
+        this.pipeline = pipeline;
+        this.payloadStore = payloadStore;
+        this.clientPool = clientPool;
+    }
 
     @Override
     @Timed(value = "dispatch.activity.execution",
@@ -27,20 +61,76 @@ public class DispatchActivityImpl implements DispatchActivity {
                              String wfId,
                              Map<String, Object> payload,
                              String taskQueue) {
+        if (pipeline != null) {
+            var ctx = Activity.getExecutionContext();
+            if (pipeline.submit(ctx.getTaskToken(), () -> start(wfType, wfId, payload, taskQueue))) {
+                ctx.doNotCompleteOnReturn();
+                return;
+            }
+            log.debug("Dispatch pipeline is full, starting {} synchronously", wfId);
+        }
+        start(wfType, wfId, payload, taskQueue);
+    }
+
+    private void start(String wfType,
+                       String wfId,
+                       Map<String, Object> payload,
+                       String taskQueue) {
         long startTime = System.currentTimeMillis();
 
         var tenant = (String) payload.getOrDefault("tenantId", "default");
+        var memo = new HashMap<String, Object>();
+        memo.put("tenantId", tenant);
+        // clientName нужен воркеру задачи, чтобы сообщить scheduler-у о завершении
+        if (payload.get(CLIENT_NAME_KEY) instanceof String clientName) {
+            memo.put("clientName", clientName);
+            payload = new HashMap<>(payload);
+            payload.remove(CLIENT_NAME_KEY);
+        }
         var opts = WorkflowOptions.newBuilder()
                 .setWorkflowId(wfId)
                 .setTaskQueue(taskQueue)
-                .setMemo(Map.of("tenantId", tenant))
+                .setMemo(memo)
                 .build();
 
-        client.newUntypedWorkflowStub(wfType, opts).start(payload);
+        /*
+         * claim-check: payload достаётся прямо перед стартом, а удаляется только после
+         * подтверждённого старта (или «уже запущен»). Ссылки нет — значит, прошлая попытка
+         * стартовала и удалила её, но ответ activity потерялся: повтор завершается успехом.
+         */
+        var ref = payload.get(PayloadStore.REF_KEY);
+        if (ref instanceof String r) {
+            if (payloadStore == null) {
+                throw new IllegalStateException("Task " + wfId + " has a payload reference, but no PayloadStore");
+            }
+            var stored = payloadStore.find(r);
+            if (stored.isEmpty()) {
+                log.info("Payload {} of {} is already consumed, treating the task as started", r, wfId);
+                return;
+            }
+            try {
+                startWorkflow(wfType, opts, stored.get());
+            } catch (WorkflowExecutionAlreadyStarted e) {
+                payloadStore.delete(r);
+                throw e;
+            }
+            payloadStore.delete(r);
+        } else {
+            startWorkflow(wfType, opts, payload);
+        }
 
         var executionTime = System.currentTimeMillis() - startTime;
 
         metricsService.getTaskExecutionTimer(wfType)
                 .record(java.time.Duration.ofMillis(executionTime));
     }
+
+    /* с пулом старт уходит в наименее загруженный gRPC-канал */
+    private void startWorkflow(String wfType, WorkflowOptions opts, Map<String, Object> payload) {
+        if (clientPool == null) {
+            client.newUntypedWorkflowStub(wfType, opts).start(payload);
+            return;
+        }
+        clientPool.call(c -> c.newUntypedWorkflowStub(wfType, opts).start(payload));
+    }
 }
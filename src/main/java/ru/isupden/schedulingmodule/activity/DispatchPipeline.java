@@ -0,0 +1,102 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.ActivityCompletionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ограниченный конвейер стартов воркфлоу.
+ * Activity кладёт старт в очередь и сразу освобождает слот,
+ * а пул завершает её через ActivityCompletionClient, когда gRPC-старт прошёл.
+ */
+@Slf4j
+public class DispatchPipeline implements AutoCloseable {
+
+    private final ActivityCompletionClient completionClient;
+    private final ThreadPoolExecutor executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public DispatchPipeline(ActivityCompletionClient completionClient, int maxInFlight, int queueCapacity) {
+        this.completionClient = completionClient;
+        this.maxInFlight = maxInFlight;
+        this.executor = new ThreadPoolExecutor(
+                maxInFlight, maxInFlight,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("dispatch-start-", 0).daemon(true).factory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Поставить старт в очередь.
+     *
+     * @return false, если конвейер переполнен — вызывающий стартует синхронно
+     */
+    public boolean submit(byte[] taskToken, Runnable start) {
+        try {
+            executor.execute(() -> run(taskToken, start));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void run(byte[] taskToken, Runnable start) {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Exception failure = null;
+            try {
+                start.run();
+            } catch (Exception e) {
+                failure = e;
+            }
+            complete(taskToken, failure);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void complete(byte[] taskToken, Exception failure) {
+        try {
+            if (failure == null) {
+                completionClient.complete(taskToken, null);
+            } else {
+                log.warn("Pipelined start failed: {}", failure.getMessage());
+                completionClient.completeExceptionally(taskToken, failure);
+            }
+        } catch (ActivityCompletionException e) {
+            // activity уже завершилась по таймауту — сервер повторит её сам
+            log.warn("Failed to complete dispatch activity: {}", e.getMessage());
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.List;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Activity for the spill-to-disk overflow tier of the ready queue.
+ * Id сегмента выбирает воркфлоу (Workflow.randomUUID), поэтому ретраи идемпотентны.
+ * Сегмент лежит на диске того воркера, что его записал: загрузку и удаление воркфлоу шлёт
+ * в очередь этого хоста ({@code ClientProperties.resolveSegmentTaskQueue}).
+ */
+@ActivityInterface
+public interface OverflowActivity {
+    /**
+     * @return хост, на диске которого остался сегмент
+     */
+    @ActivityMethod
+    String spillTasks(String segmentId, List<Task> tasks);
+
+    @ActivityMethod
+    List<Task> loadTasks(String segmentId);
+
+    @ActivityMethod
+    void deleteSegment(String segmentId);
+}
@@ -0,0 +1,37 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.payload.MappedSegmentStore;
+
+/**
+ * Сегменты на локальном диске dispatch-воркера. Запись приходит на общую dispatch-очередь,
+ * а загрузка и удаление — на очередь хоста {@code host}, которую слушает только этот воркер.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OverflowActivityImpl implements OverflowActivity {
+
+    private final MappedSegmentStore store;
+    private final String host;
+
+    @Override
+    public String spillTasks(String segmentId, List<Task> tasks) {
+        store.write(segmentId, tasks);
+        log.debug("Spilled {} tasks to segment {} on {}", tasks.size(), segmentId, host);
+        return host;
+    }
+
+    @Override
+    public List<Task> loadTasks(String segmentId) {
+        return store.read(segmentId);
+    }
+
+    @Override
+    public void deleteSegment(String segmentId) {
+        store.delete(segmentId);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.List;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+/**
+ * Activity for deleting claim-check payloads of tasks that will never be dispatched
+ * (cancelled, shed, dropped by deadline, rejected or duplicate submissions).
+ */
+@ActivityInterface
+public interface PayloadActivity {
+    @ActivityMethod
+    void deletePayloads(List<String> refs);
+}
@@ -0,0 +1,30 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import ru.isupden.schedulingmodule.payload.PayloadStore;
+
+/**
+ * Удаление payload-ов из {@link PayloadStore}. Без хранилища ссылок быть не может — NOP.
+ * Удаление неизвестной ссылки — NOP, поэтому ретраи безопасны.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PayloadActivityImpl implements PayloadActivity {
+
+    @Nullable
+    private final PayloadStore store;
+
+    @Override
+    public void deletePayloads(List<String> refs) {
+        if (store == null) {
+            log.warn("No PayloadStore configured, {} payload references are not deleted", refs.size());
+            return;
+        }
+        refs.forEach(store::delete);
+        log.debug("Deleted {} payloads of discarded tasks", refs.size());
+    }
+}
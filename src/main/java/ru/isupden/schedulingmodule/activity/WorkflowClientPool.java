@@ -0,0 +1,118 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+
+/**
+ * Пул WorkflowClient-ов поверх отдельных gRPC-каналов.
+ * Один канал упирается в лимит HTTP/2-стримов; старты распределяются по нескольким
+ * каналам по кругу или в наименее загруженный. По каждому каналу считаются
+ * стримы в работе и латентность старта.
+ */
+public class WorkflowClientPool implements AutoCloseable {
+
+    private final List<Channel> channels;
+    private final SchedulingModuleProperties.ChannelSelection selection;
+    private final SchedulingMetricsService metricsService;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private record Channel(int index, WorkflowClient client, WorkflowServiceStubs stubs, AtomicInteger inFlight) {
+    }
+
+    public WorkflowClientPool(List<WorkflowClient> clients,
+                              SchedulingModuleProperties.ChannelSelection selection,
+                              SchedulingMetricsService metricsService) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("Pool needs at least one client");
+        }
+        this.selection = selection;
+        this.metricsService = metricsService;
+        this.channels = new ArrayList<>(clients.size());
+        for (var i = 0; i < clients.size(); i++) {
+            var client = clients.get(i);
+            var channel = new Channel(i, client, client.getWorkflowServiceStubs(), new AtomicInteger());
+            channels.add(channel);
+            metricsService.registerDispatchChannel(i, channel.inFlight()::get);
+        }
+    }
+
+    /**
+     * Пул из {@code size} независимых подключений к {@code target}.
+     */
+    public static WorkflowClientPool connect(String target,
+                                             String namespace,
+                                             int size,
+                                             SchedulingModuleProperties.ChannelSelection selection,
+                                             SchedulingMetricsService metricsService) {
+        var clients = new ArrayList<WorkflowClient>(size);
+        for (var i = 0; i < size; i++) {
+            var stubs = WorkflowServiceStubs.newServiceStubs(WorkflowServiceStubsOptions.newBuilder()
+                    .setTarget(target)
+                    .validateAndBuildWithDefaults());
+            clients.add(WorkflowClient.newInstance(
+                    stubs,
+                    WorkflowClientOptions.newBuilder().setNamespace(namespace).build()));
+        }
+        return new WorkflowClientPool(clients, selection, metricsService);
+    }
+
+    /**
+     * Выполнить вызов на выбранном канале, учитывая его загрузку и латентность.
+     */
+    public <T> T call(Function<WorkflowClient, T> action) {
+        var channel = pick();
+        channel.inFlight().incrementAndGet();
+        var begin = System.nanoTime();
+        try {
+            return action.apply(channel.client());
+        } finally {
+            channel.inFlight().decrementAndGet();
+            metricsService.recordDispatchChannelLatency(channel.index(), Duration.ofNanos(System.nanoTime() - begin));
+        }
+    }
+
+    private Channel pick() {
+        var start = Math.floorMod(next.getAndIncrement(), channels.size());
+        if (selection == SchedulingModuleProperties.ChannelSelection.ROUND_ROBIN) {
+            return channels.get(start);
+        }
+        // least-in-flight; обход со сдвигом, чтобы при равенстве каналы чередовались
+        var best = channels.get(start);
+        for (var i = 1; i < channels.size(); i++) {
+            var c = channels.get((start + i) % channels.size());
+            if (c.inFlight().get() < best.inFlight().get()) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    public int inFlight(int channel) {
+        return channels.get(channel).inFlight().get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (var c : channels) {
+            c.stubs().shutdown();
+        }
+        for (var c : channels) {
+            c.stubs().awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
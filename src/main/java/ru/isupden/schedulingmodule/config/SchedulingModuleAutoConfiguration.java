@@ -1,9 +1,8 @@
 package ru.isupden.schedulingmodule.config;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.micrometer.core.instrument.MeterRegistry;
@@ -17,22 +16,36 @@ import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextClosedEvent;
+import ru.isupden.schedulingmodule.activity.BacklogActivity;
+import ru.isupden.schedulingmodule.activity.BacklogActivityImpl;
 import ru.isupden.schedulingmodule.activity.DispatchActivity;
 import ru.isupden.schedulingmodule.activity.DispatchActivityImpl;
+import ru.isupden.schedulingmodule.activity.DispatchPipeline;
+import ru.isupden.schedulingmodule.activity.OverflowActivity;
+import ru.isupden.schedulingmodule.activity.OverflowActivityImpl;
+import ru.isupden.schedulingmodule.activity.PayloadActivity;
+import ru.isupden.schedulingmodule.activity.PayloadActivityImpl;
+import ru.isupden.schedulingmodule.activity.WorkflowClientPool;
+import ru.isupden.schedulingmodule.converter.TaskPayloadConverter;
+import ru.isupden.schedulingmodule.interceptor.CompletionReporter;
+import ru.isupden.schedulingmodule.interceptor.UsageReportWorkerInterceptor;
 import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
-import ru.isupden.schedulingmodule.strategy.CriticalPathSchedulingStrategy;
-import ru.isupden.schedulingmodule.strategy.DeadlineSchedulingStrategy;
-import ru.isupden.schedulingmodule.strategy.FairnessSchedulingStrategy;
-import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
-import ru.isupden.schedulingmodule.strategy.SchedulingStrategy;
+import ru.isupden.schedulingmodule.payload.ClaimCheckSubmitter;
+import ru.isupden.schedulingmodule.payload.FileSystemPayloadStore;
+import ru.isupden.schedulingmodule.payload.InMemoryPayloadStore;
+import ru.isupden.schedulingmodule.payload.MappedSegmentStore;
+import ru.isupden.schedulingmodule.payload.PayloadStore;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
 import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
 import ru.isupden.schedulingmodule.workflow.SchedulerWorkflowImpl;
 
@@ -67,66 +80,119 @@ public class SchedulingModuleAutoConfiguration {
 
     @Bean
     public WorkflowClient workflowClient(WorkflowServiceStubs stubs) {
-        return WorkflowClient.newInstance(
-                stubs,
-                WorkflowClientOptions.newBuilder()
-                        .setNamespace(props.getNamespace())
-                        .build());
+        var options = WorkflowClientOptions.newBuilder()
+                .setNamespace(props.getNamespace());
+        if (props.isBinaryTaskConverter()) {
+            // задачи и списки задач — в бинарном формате, остальное — стандартными конвертерами
+            options.setDataConverter(TaskPayloadConverter.newDataConverter());
+        }
+        return WorkflowClient.newInstance(stubs, options.build());
     }
 
     @Bean
     public WorkerFactory workerFactory(WorkflowClient client) {
-        return WorkerFactory.newInstance(client);
+        return WorkerFactory.newInstance(client, TemporalOptions.factoryOptions(props.getWorkerFactory()));
     }
 
     /* ──────── Dispatch-activity ──────── */
 
     @Bean
-    @ConditionalOnMissingBean(DispatchActivity.class)
-    public DispatchActivity dispatchActivity(WorkflowClient client, SchedulingMetricsService metricsService) {
-        return new DispatchActivityImpl(client, metricsService);
+    @ConditionalOnProperty(prefix = "scheduling-module.dispatch", name = "pipelined", havingValue = "true")
+    public DispatchPipeline dispatchPipeline(WorkflowClient client, SchedulingMetricsService metricsService) {
+        var cfg = props.getDispatch();
+        var pipeline = new DispatchPipeline(
+                client.newActivityCompletionClient(), cfg.getMaxInFlight(), cfg.getQueueCapacity());
+        metricsService.registerDispatchPipeline(
+                pipeline::inFlight, pipeline::peakInFlight, pipeline::queueDepth, pipeline.maxInFlight());
+        return pipeline;
     }
 
-    /* ──────── «Штатные» стратегии ──────── */
+    @Bean
+    @ConditionalOnExpression("${scheduling-module.dispatch.channels:1} > 1")
+    public WorkflowClientPool workflowClientPool(SchedulingMetricsService metricsService) {
+        var cfg = props.getDispatch();
+        return WorkflowClientPool.connect(
+                props.getTarget(), props.getNamespace(), cfg.getChannels(), cfg.getChannelSelection(), metricsService);
+    }
 
-    @Bean("priority")
-    public SchedulingStrategy priority() {
-        return new PrioritySchedulingStrategy();
+    @Bean
+    @ConditionalOnMissingBean(DispatchActivity.class)
+    public DispatchActivity dispatchActivity(WorkflowClient client,
+                                             SchedulingMetricsService metricsService,
+                                             ObjectProvider<DispatchPipeline> pipeline,
+                                             ObjectProvider<PayloadStore> payloadStore,
+                                             ObjectProvider<WorkflowClientPool> clientPool) {
+        return new DispatchActivityImpl(
+                client, metricsService,
+                pipeline.getIfAvailable(), payloadStore.getIfAvailable(), clientPool.getIfAvailable());
     }
 
-    @Bean("deadline")
-    public SchedulingStrategy deadline() {
-        return new DeadlineSchedulingStrategy();
+    @Bean
+    @ConditionalOnMissingBean(BacklogActivity.class)
+    public BacklogActivity backlogActivity(WorkflowServiceStubs stubs) {
+        return new BacklogActivityImpl(stubs, props.getNamespace());
     }
 
-    @Bean("critical")
-    public SchedulingStrategy critical() {
-        return new CriticalPathSchedulingStrategy();
+    @Bean
+    @ConditionalOnMissingBean(OverflowActivity.class)
+    public OverflowActivity overflowActivity() {
+        return new OverflowActivityImpl(
+                new MappedSegmentStore(Path.of(props.getSpillDirectory())), props.resolveSpillHost());
     }
 
-    @Bean("fairness")
-    public SchedulingStrategy fairness() {
-        return new FairnessSchedulingStrategy(
-                props.getQuotas(),
-                props.getFairness().getHalfLifeSeconds());
+    @Bean
+    @ConditionalOnMissingBean(PayloadActivity.class)
+    public PayloadActivity payloadActivity(ObjectProvider<PayloadStore> payloadStore) {
+        return new PayloadActivityImpl(payloadStore.getIfAvailable());
+    }
+
+    /* ──────── Отчёты о завершении (на воркерах задач) ──────── */
+
+    @Bean
+    @ConditionalOnProperty(prefix = "scheduling-module.completions", name = "enabled", havingValue = "true")
+    public CompletionReporter completionReporter(WorkflowClient client) {
+        var cfg = props.getCompletions();
+        return new CompletionReporter(client, cfg.getFlushIntervalMs(), cfg.getMaxBatch());
     }
 
     /**
-     * Map<String, SchedulingStrategy> для автосвязывания в SchedulerWorkflowImpl
+     * Добавьте в WorkerFactoryOptions воркеров, исполняющих задачи планировщика.
      */
     @Bean
-    public Map<String, SchedulingStrategy> strategyRegistry(
-            @Qualifier("priority") SchedulingStrategy priority,
-            @Qualifier("deadline") SchedulingStrategy deadline,
-            @Qualifier("critical") SchedulingStrategy critical,
-            @Qualifier("fairness") SchedulingStrategy fairness) {
+    @ConditionalOnProperty(prefix = "scheduling-module.completions", name = "enabled", havingValue = "true")
+    public UsageReportWorkerInterceptor usageReportWorkerInterceptor(CompletionReporter reporter) {
+        return new UsageReportWorkerInterceptor(reporter);
+    }
+
+    /* ──────── Claim-check ──────── */
 
-        Map<String, SchedulingStrategy> m = new HashMap<>();
-        m.put("priority", priority);
-        m.put("deadline", deadline);
-        m.put("critical", critical);
-        m.put("fairness", fairness);
-        return m;
+    @Bean
+    @ConditionalOnMissingBean(PayloadStore.class)
+    @ConditionalOnProperty(prefix = "scheduling-module.claim-check", name = "store")
+    public PayloadStore payloadStore() {
+        var cfg = props.getClaimCheck();
+        return switch (cfg.getStore()) {
+            case MEMORY -> new InMemoryPayloadStore();
+            case FILESYSTEM -> new FileSystemPayloadStore(Path.of(cfg.getDirectory()));
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "scheduling-module.claim-check", name = "store")
+    public ClaimCheckSubmitter claimCheckSubmitter(PayloadStore payloadStore) {
+        return new ClaimCheckSubmitter(payloadStore);
+    }
+
+    /* ──────── «Штатные» стратегии ──────── */
+
+    /**
+     * Фабрика стратегий: каждый SchedulerWorkflowImpl получает свои экземпляры.
+     * Свои стратегии — через собственный бин: {@code withDefaults(props).register("x", X::new)}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SchedulingStrategyFactory schedulingStrategyFactory() {
+        return SchedulingStrategyFactory.withDefaults(props);
     }
 
     /* ──────── Служебные worker-ы (по одному на клиента) ──────── */
@@ -135,23 +201,46 @@ public class SchedulingModuleAutoConfiguration {
     public List<Worker> schedulerWorkers(
             WorkerFactory factory,
             DispatchActivity dispatchActivity,
+            BacklogActivity backlogActivity,
+            OverflowActivity overflowActivity,
+            PayloadActivity payloadActivity,
             SchedulingModuleProperties props,
-            Map<String, SchedulingStrategy> strategies,
+            SchedulingStrategyFactory strategies,
             SchedulingMetricsService metricsService
     ) {
+        var role = props.getWorkerRole();
         var list = new ArrayList<Worker>();
         props.getClients().forEach((name, cfg) -> {
-            var q = "scheduler-" + name;
-
-            var w = factory.newWorker(q);
+            if (role != SchedulingModuleProperties.WorkerRole.DISPATCH) {
+                // неверная цепочка стратегий — ошибка старта, а не сбой задач scheduler-воркфлоу
+                if (cfg.getStrategy() != null) {
+                    strategies.validate(cfg.getStrategy(), props.getCompletions().isEnabled());
+                }
+                var q = "scheduler-" + name;
 
-            w.registerWorkflowImplementationFactory(
-                    SchedulerWorkflow.class,
-                    () -> new SchedulerWorkflowImpl(props, strategies, dispatchActivity, metricsService)
-            );
+                var w = factory.newWorker(q, TemporalOptions.workerOptions(cfg.getWorker()));
 
-            w.registerActivitiesImplementations(dispatchActivity);
-            list.add(w);
+                w.registerWorkflowImplementationFactory(
+                        SchedulerWorkflow.class,
+                        () -> new SchedulerWorkflowImpl(props, strategies, dispatchActivity, metricsService)
+                );
+                list.add(w);
+            }
+
+            if (role != SchedulingModuleProperties.WorkerRole.SCHEDULER) {
+                var w = factory.newWorker(
+                        cfg.resolveDispatchTaskQueue(name),
+                        TemporalOptions.workerOptions(cfg.getDispatchWorker()));
+                w.registerActivitiesImplementations(dispatchActivity, backlogActivity, overflowActivity, payloadActivity);
+                list.add(w);
+
+                // сегменты этого хоста загружаются только здесь: на другом хосте их файлов нет
+                if (cfg.getSpill().isEnabled()) {
+                    var segments = factory.newWorker(cfg.resolveSegmentTaskQueue(name, props.resolveSpillHost()));
+                    segments.registerActivitiesImplementations(overflowActivity);
+                    list.add(segments);
+                }
+            }
         });
         return list;
     }
@@ -164,22 +253,25 @@ public class SchedulingModuleAutoConfiguration {
             WorkerFactory factory, WorkflowClient client) {
 
         return evt -> {
-            props.getClients().forEach((name, cfg) -> {
-                var wfId = "SCHED_" + name;
-                var q = "scheduler-" + name;
-
-                var stub = client.newWorkflowStub(
-                        SchedulerWorkflow.class,
-                        WorkflowOptions.newBuilder()
-                                .setWorkflowId(wfId)
-                                .setTaskQueue(q)
-                                .build());
-
-                try {
-                    WorkflowClient.start(stub::run, name);
-                } catch (WorkflowExecutionAlreadyStarted ignore) {
-                }
-            });
+            // dispatch-only инстанс scheduler-воркфлоу не запускает
+            if (props.getWorkerRole() != SchedulingModuleProperties.WorkerRole.DISPATCH) {
+                props.getClients().forEach((name, cfg) -> {
+                    var wfId = "SCHED_" + name;
+                    var q = "scheduler-" + name;
+
+                    var stub = client.newWorkflowStub(
+                            SchedulerWorkflow.class,
+                            WorkflowOptions.newBuilder()
+                                    .setWorkflowId(wfId)
+                                    .setTaskQueue(q)
+                                    .build());
+
+                    try {
+                        WorkflowClient.start(stub::run, name, null);
+                    } catch (WorkflowExecutionAlreadyStarted ignore) {
+                    }
+                });
+            }
 
             factory.start();
         };
@@ -1,6 +1,11 @@
 package ru.isupden.schedulingmodule.config;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import lombok.Data;
@@ -35,20 +40,355 @@ public class SchedulingModuleProperties {
      */
     private Fairness fairness = new Fairness();
 
+    /**
+     * Диапазон корзин очереди для стратегии priority.
+     */
+    private PriorityBuckets priorityBuckets = new PriorityBuckets();
+
+    /**
+     * Оценка длительности задач по reportCompletions (sejf, llf).
+     */
+    private RuntimeEstimation runtimeEstimation = new RuntimeEstimation();
+
+    /**
+     * Настройки стратегии shortest-expected-job-first.
+     */
+    private Sejf sejf = new Sejf();
+
+    /**
+     * Настройки стратегии least-laxity-first.
+     */
+    private Llf llf = new Llf();
+
+    /**
+     * Настройки стратегии mlfq (multi-level feedback queue).
+     */
+    private Mlfq mlfq = new Mlfq();
+
     /**
      * Tenant-квоты (используются Fairness-стратегией).
      */
     private Map<String, Double> quotas = new HashMap<>();
 
+    /**
+     * Иерархические квоты (org → team → tenant) для стратегии hierarchical-fairness:
+     * имя узла ↦ вес и дети; листья — id тенантов. Тенанты вне дерева берут вес из {@code quotas}.
+     */
+    private Map<String, QuotaNode> quotaTree = new LinkedHashMap<>();
+
+    /**
+     * Настройки DispatchActivity.
+     */
+    private Dispatch dispatch = new Dispatch();
+
+    /**
+     * Claim-check: payload-ы хранятся вне scheduler-воркфлоу.
+     */
+    private ClaimCheck claimCheck = new ClaimCheck();
+
+    /**
+     * Опции WorkerFactory: sticky-кэш, пул потоков воркфлоу.
+     */
+    private WorkerFactoryTuning workerFactory = new WorkerFactoryTuning();
+
+    /**
+     * Какие worker-ы поднимает этот инстанс: все, только scheduler-ы или только dispatch.
+     */
+    private WorkerRole workerRole = WorkerRole.ALL;
+
+    /**
+     * Бинарный формат для Task и списков задач вместо JSON (TaskPayloadConverter).
+     * Должен быть включён у всех, кто отправляет задачи и исполняет scheduler-воркфлоу.
+     */
+    private boolean binaryTaskConverter = false;
+
+    /**
+     * Отчёты о завершении задач с воркеров, исполняющих их (для maxRunning).
+     */
+    private Completions completions = new Completions();
+
+    /**
+     * Каталог сегментов вытесненных задач (spill) на диске dispatch-воркера.
+     */
+    private String spillDirectory = System.getProperty("java.io.tmpdir") + "/scheduling-spill";
+
+    /**
+     * Имя хоста в очереди его сегментов ({@code <dispatch-очередь>@<хост>}); по умолчанию — имя машины.
+     * Должно переживать перезапуск воркера, иначе сегменты на его диске некому будет загрузить.
+     */
+    private String spillHost;
+
     /* ---------- вложенные ---------- */
 
     @Data
     public static class ClientProperties {
         private String taskQueue;
+        /**
+         * Очередь DispatchActivity; по умолчанию {@code dispatch-<clientName>}.
+         */
+        private String dispatchTaskQueue;
         /**
          * Имя стратегии или композиция (`priority+deadline`).
          */
         private String strategy;
+        /**
+         * Способ запуска задач: через DispatchActivity или напрямую
+         * abandoned child-воркфлоу (только в том же namespace).
+         */
+        private DispatchMode dispatchMode = DispatchMode.ACTIVITY;
+        /**
+         * Лимиты очереди для submitTasksWithAck.
+         */
+        private Admission admission = new Admission();
+        /**
+         * Бюджет очереди: при превышении худшие по стратегии задачи сбрасываются.
+         */
+        private Budget budget = new Budget();
+        /**
+         * Вытеснение худших задач очереди на диск dispatch-воркера.
+         */
+        private Spill spill = new Spill();
+        /**
+         * Перезапуск scheduler-а через continue-as-new, пока история не выросла.
+         */
+        private ContinueAsNew continueAsNew = new ContinueAsNew();
+        /**
+         * Выбор задач пачкой за одну итерацию цикла.
+         */
+        private Batch batch = new Batch();
+        /**
+         * Лимиты dispatch-а по workflowType и тенанту.
+         */
+        private RateLimits rateLimits = new RateLimits();
+        /**
+         * Лимиты одновременно запущенных задач по тенанту и workflowType.
+         */
+        private Concurrency concurrency = new Concurrency();
+        /**
+         * Автоподстройка скорости dispatch-а по backlog-у целевой очереди.
+         */
+        private AutoTune autoTune = new AutoTune();
+        /**
+         * Опции worker-а очереди scheduler-а.
+         */
+        private WorkerTuning worker = new WorkerTuning();
+        /**
+         * Опции worker-а dispatch-очереди (здесь исполняются DispatchActivity).
+         */
+        private WorkerTuning dispatchWorker = new WorkerTuning();
+
+        public String resolveDispatchTaskQueue(String clientName) {
+            return dispatchTaskQueue != null ? dispatchTaskQueue : "dispatch-" + clientName;
+        }
+
+        /**
+         * Очередь dispatch-воркера {@code host}: загрузка и удаление сегментов с его диска идут только туда.
+         */
+        public String resolveSegmentTaskQueue(String clientName, String host) {
+            return resolveDispatchTaskQueue(clientName) + "@" + host;
+        }
+    }
+
+    public String resolveSpillHost() {
+        if (spillHost != null) {
+            return spillHost;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve the host name, set scheduling-module.spill-host", e);
+        }
+    }
+
+    @Data
+    public static class Completions {
+        /**
+         * Поднять CompletionReporter и UsageReportWorkerInterceptor.
+         */
+        private boolean enabled = false;
+        private long flushIntervalMs = 1000;
+        private int maxBatch = 500;
+    }
+
+    public enum WorkerRole {
+        ALL,
+        SCHEDULER,
+        DISPATCH
+    }
+
+    /**
+     * Параметры {@code WorkerOptions}; 0 — значение Temporal по умолчанию.
+     */
+    @Data
+    public static class WorkerTuning {
+        private int maxConcurrentActivityExecutionSize = 0;
+        private int maxConcurrentWorkflowTaskExecutionSize = 0;
+        private int maxConcurrentActivityTaskPollers = 0;
+        private int maxConcurrentWorkflowTaskPollers = 0;
+        /**
+         * Исполнять задачи worker-а (activity, workflow task-и) на виртуальных потоках. Нужна Java 21+.
+         */
+        private boolean virtualThreads = false;
+    }
+
+    /**
+     * Параметры {@code WorkerFactoryOptions}; 0 — значение Temporal по умолчанию.
+     */
+    @Data
+    public static class WorkerFactoryTuning {
+        /**
+         * Размер sticky-кэша воркфлоу.
+         */
+        private int workflowCacheSize = 0;
+        private int maxWorkflowThreadCount = 0;
+        /**
+         * Потоки самих воркфлоу — виртуальные. Нужна Java 21+.
+         */
+        private boolean virtualWorkflowThreads = false;
+    }
+
+    @Data
+    public static class AutoTune {
+        private boolean enabled = false;
+        /**
+         * Очередь, backlog которой держим; по умолчанию — taskQueue клиента.
+         */
+        private String targetTaskQueue;
+        /**
+         * Желаемый backlog целевой очереди.
+         */
+        private long targetBacklog = 100;
+        private long intervalSeconds = 10;
+        private double kp = 0.05;
+        private double ki = 0.01;
+        private double kd = 0;
+        /**
+         * Границы скорости, задач/сек.
+         */
+        private double minRate = 1;
+        private double maxRate = 1000;
+    }
+
+    /**
+     * maxRunning; 0 — без лимита. Требует отчётов о завершении (CompletionReporter на воркерах задач).
+     */
+    @Data
+    public static class Concurrency {
+        /**
+         * workflowType ↦ maxRunning.
+         */
+        private Map<String, Integer> workflowTypes = new HashMap<>();
+        /**
+         * tenant ↦ maxRunning.
+         */
+        private Map<String, Integer> tenants = new HashMap<>();
+        /**
+         * maxRunning тенантов, которых нет в {@code tenants}.
+         */
+        private int defaultPerTenant = 0;
+        /**
+         * Слот задачи, о завершении которой не сообщили за столько секунд, освобождается
+         * (child terminated, cancelled или timed out); 0 — ждать отчёта бесконечно.
+         */
+        private long runningTimeoutSeconds = 3600;
+    }
+
+    @Data
+    public static class RateLimits {
+        /**
+         * workflowType ↦ задач/сек.
+         */
+        private Map<String, Double> workflowTypes = new HashMap<>();
+        /**
+         * tenant ↦ задач/сек.
+         */
+        private Map<String, Double> tenants = new HashMap<>();
+        /**
+         * Лимит тенантов, которых нет в {@code tenants}; 0 — без лимита.
+         */
+        private double defaultTenantRate = 0;
+        /**
+         * Допустимый всплеск в секундах лимита.
+         */
+        private double burstSeconds = 1;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Максимум задач за одну итерацию; 1 — по одной, как раньше.
+         * Фактический размер ещё ограничен свободными токенами backpressure-окна.
+         */
+        private int maxSize = 16;
+        /**
+         * Максимум незавершённых стартов (activity или child); 0 — без лимита.
+         */
+        private int maxInFlight = 0;
+    }
+
+    @Data
+    public static class Budget {
+        /**
+         * Максимум задач в очереди; 0 — без лимита.
+         */
+        private int maxTasks = 0;
+        /**
+         * Максимум оценочного объёма очереди в байтах; 0 — без лимита.
+         */
+        private long maxBytes = 0;
+    }
+
+    @Data
+    public static class Spill {
+        private boolean enabled = false;
+        /**
+         * Выше этого размера ready-очереди худшие задачи уходят в сегменты на диске.
+         */
+        private int highWaterMark = 100_000;
+        /**
+         * Ниже этого размера сегменты подгружаются обратно, лучший первым.
+         */
+        private int lowWaterMark = 50_000;
+        /**
+         * Задач в одном сегменте.
+         */
+        private int batchSize = 1000;
+        /**
+         * Оценка байт ({@code LoadShedder.estimateBytes}) на сегмент: сегмент проходит через историю
+         * воркфлоу и должен остаться под лимитом blob-а Temporal (2 MB); 0 — без ограничения.
+         */
+        private long maxSegmentBytes = 1024 * 1024;
+    }
+
+    @Data
+    public static class ContinueAsNew {
+        /**
+         * Длина истории, после которой scheduler продолжается новым запуском; 0 — только
+         * по подсказке сервера ({@code isContinueAsNewSuggested}).
+         */
+        private int maxHistoryLength = 10_000;
+        /**
+         * Оценка байт задач, которые переносятся во вход нового запуска. Остальные уходят в сегменты
+         * (нужен spill); без spill-а continue-as-new откладывается, пока очередь не уместится.
+         */
+        private long maxCarriedBytes = 1024 * 1024;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Максимум задач в очереди клиента; 0 — без лимита.
+         */
+        private int maxQueued = 0;
+        /**
+         * Максимум задач одного тенанта в очереди, включая отложенные и вытесненные; 0 — без лимита.
+         */
+        private int maxQueuedPerTenant = 0;
+    }
+
+    public enum DispatchMode {
+        ACTIVITY,
+        CHILD_WORKFLOW
     }
 
     @Data
@@ -57,6 +397,53 @@ public class SchedulingModuleProperties {
         private double throughputFactor = 10;   // лимит задач/сек
     }
 
+    @Data
+    public static class Dispatch {
+        /**
+         * Асинхронные старты: activity-слот освобождается сразу,
+         * а завершение приходит через ActivityCompletionClient.
+         */
+        private boolean pipelined = false;
+        /**
+         * Максимум одновременных gRPC-стартов.
+         */
+        private int maxInFlight = 256;
+        /**
+         * Сколько стартов может ждать свободного слота; сверх этого — синхронный старт.
+         */
+        private int queueCapacity = 1024;
+        /**
+         * Число отдельных gRPC-каналов для стартов; 1 — общий WorkflowClient.
+         */
+        private int channels = 1;
+        /**
+         * Выбор канала для очередного старта.
+         */
+        private ChannelSelection channelSelection = ChannelSelection.LEAST_IN_FLIGHT;
+    }
+
+    public enum ChannelSelection {
+        ROUND_ROBIN,
+        LEAST_IN_FLIGHT
+    }
+
+    @Data
+    public static class ClaimCheck {
+        /**
+         * Хранилище payload-ов; не задано — claim-check выключен.
+         */
+        private PayloadStoreType store;
+        /**
+         * Каталог для {@code filesystem}.
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/scheduling-payloads";
+    }
+
+    public enum PayloadStoreType {
+        MEMORY,
+        FILESYSTEM
+    }
+
     @Data
     public static class Fairness {
         /**
@@ -64,4 +451,89 @@ public class SchedulingModuleProperties {
          */
         private long halfLifeSeconds = 3600;
     }
+
+    @Data
+    public static class QuotaNode {
+        /**
+         * Доля узла среди соседей по родителю.
+         */
+        private double weight = 1.0;
+        /**
+         * Дочерние узлы; у тенанта — пусто.
+         */
+        private Map<String, QuotaNode> children = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class PriorityBuckets {
+        /**
+         * Приоритеты из [min, max] — O(1) корзины; остальные — в упорядоченной карте.
+         */
+        private int min = 0;
+        private int max = 31;
+    }
+
+    @Data
+    public static class Mlfq {
+        /**
+         * Доли dispatch-а по уровням, верхний первым; число элементов — число уровней.
+         */
+        private List<Double> shares = new ArrayList<>(List.of(0.6, 0.3, 0.1));
+        /**
+         * Атрибут задачи с её классом.
+         */
+        private String classAttribute = "class";
+        /**
+         * Класс ↦ начальный уровень (0 — верхний).
+         */
+        private Map<String, Integer> classes = new HashMap<>();
+        /**
+         * Уровень задач без класса или с неизвестным классом.
+         */
+        private int defaultLevel = 1;
+        /**
+         * Каждые столько секунд ожидания задача поднимается на уровень; 0 — без aging-а.
+         */
+        private long agingSeconds = 60;
+    }
+
+    @Data
+    public static class RuntimeEstimation {
+        /**
+         * Вес нового наблюдения в EWMA.
+         */
+        private double alpha = 0.2;
+        /**
+         * Оценка для типа без наблюдений (мс).
+         */
+        private double defaultMs = 1000;
+        /**
+         * Вести оценки ещё и по паре workflowType+тенант.
+         */
+        private boolean perTenant = true;
+        /**
+         * Сколько наблюдений по паре нужно, чтобы предпочесть её оценке по типу.
+         */
+        private int minTenantSamples = 5;
+    }
+
+    @Data
+    public static class Sejf {
+        /**
+         * На сколько мс уменьшается оценка за каждую мс ожидания (против голодания).
+         */
+        private double agingFactor = 0.1;
+    }
+
+    @Data
+    public static class Llf {
+        /**
+         * Задача безнадёжна, если до дедлайна осталось меньше этой доли ожидаемой длительности.
+         */
+        private double hopelessFraction = 0.5;
+        /**
+         * Удалять безнадёжные задачи из очереди, а не откладывать их в конец.
+         */
+        private boolean dropHopeless = false;
+    }
 }
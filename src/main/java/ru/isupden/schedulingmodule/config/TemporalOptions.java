@@ -0,0 +1,48 @@
+package ru.isupden.schedulingmodule.config;
+
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+
+/**
+ * Перевод настроек из {@link SchedulingModuleProperties} в опции Temporal.
+ * Незаданные (нулевые) значения не трогаем — остаются дефолты SDK.
+ */
+public final class TemporalOptions {
+
+    private TemporalOptions() {
+    }
+
+    public static WorkerOptions workerOptions(SchedulingModuleProperties.WorkerTuning cfg) {
+        var b = WorkerOptions.newBuilder();
+        if (cfg.getMaxConcurrentActivityExecutionSize() > 0) {
+            b.setMaxConcurrentActivityExecutionSize(cfg.getMaxConcurrentActivityExecutionSize());
+        }
+        if (cfg.getMaxConcurrentWorkflowTaskExecutionSize() > 0) {
+            b.setMaxConcurrentWorkflowTaskExecutionSize(cfg.getMaxConcurrentWorkflowTaskExecutionSize());
+        }
+        if (cfg.getMaxConcurrentActivityTaskPollers() > 0) {
+            b.setMaxConcurrentActivityTaskPollers(cfg.getMaxConcurrentActivityTaskPollers());
+        }
+        if (cfg.getMaxConcurrentWorkflowTaskPollers() > 0) {
+            b.setMaxConcurrentWorkflowTaskPollers(cfg.getMaxConcurrentWorkflowTaskPollers());
+        }
+        if (cfg.isVirtualThreads()) {
+            b.setUsingVirtualThreads(true);
+        }
+        return b.build();
+    }
+
+    public static WorkerFactoryOptions factoryOptions(SchedulingModuleProperties.WorkerFactoryTuning cfg) {
+        var b = WorkerFactoryOptions.newBuilder();
+        if (cfg.getWorkflowCacheSize() > 0) {
+            b.setWorkflowCacheSize(cfg.getWorkflowCacheSize());
+        }
+        if (cfg.getMaxWorkflowThreadCount() > 0) {
+            b.setMaxWorkflowThreadCount(cfg.getMaxWorkflowThreadCount());
+        }
+        if (cfg.isVirtualWorkflowThreads()) {
+            b.setUsingVirtualWorkflowThreads(true);
+        }
+        return b.build();
+    }
+}
@@ -0,0 +1,389 @@
+package ru.isupden.schedulingmodule.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Бинарный формат для {@link Task} и непустых списков задач вместо JSON.
+ * <p>
+ * Поля планирования типизированы: priority — int, deadline/notBefore/enqueuedAt — epoch millis
+ * (после JSON они приходили строками и разбирались при каждом сравнении).
+ * Все строки (ключи, типы, тенанты) пишутся через словарь: повтор — номер, а не текст.
+ * Остальные значения — null/строки/числа/boolean/Instant/списки/карты; прочие объекты
+ * сводятся Jackson-ом к картам и спискам, как это сделал бы JSON-конвертер.
+ * <p>
+ * Прочие значения конвертер не трогает ({@code toData} → empty), поэтому его ставят перед
+ * стандартными: см. {@link #newDataConverter()}. JSON-payload-ы задач продолжают читаться.
+ */
+public class TaskPayloadConverter implements PayloadConverter {
+
+    public static final String ENCODING = "binary/scheduler-task";
+
+    private static final int VERSION = 1;
+    private static final byte KIND_TASK = 0;
+    private static final byte KIND_LIST = 1;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_INT = 2;
+    private static final byte T_LONG = 3;
+    private static final byte T_DOUBLE = 4;
+    private static final byte T_TRUE = 5;
+    private static final byte T_FALSE = 6;
+    private static final byte T_INSTANT = 7;
+    private static final byte T_LIST = 8;
+    private static final byte T_MAP = 9;
+
+    private static final String PRIORITY = "priority";
+    private static final Set<String> TIME_ATTRIBUTES = Set.of("deadline", "notBefore", "enqueuedAt");
+
+    private static final ByteString ENCODING_BYTES = ByteString.copyFrom(ENCODING, StandardCharsets.UTF_8);
+
+    private final ObjectMapper mapper = JacksonJsonPayloadConverter.newDefaultObjectMapper();
+
+    /**
+     * DataConverter: этот конвертер, затем стандартные Temporal.
+     */
+    public static DefaultDataConverter newDataConverter() {
+        var standard = DefaultDataConverter.STANDARD_PAYLOAD_CONVERTERS;
+        var converters = new PayloadConverter[standard.length + 1];
+        converters[0] = new TaskPayloadConverter();
+        System.arraycopy(standard, 0, converters, 1, standard.length);
+        return new DefaultDataConverter(converters);
+    }
+
+    @Override
+    public String getEncodingType() {
+        return ENCODING;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) throws DataConverterException {
+        byte[] data;
+        if (value instanceof Task task) {
+            data = encode(List.of(task), KIND_TASK);
+        } else if (value instanceof List<?> list && isTaskList(list)) {
+            data = encode(list, KIND_LIST);
+        } else {
+            return Optional.empty();
+        }
+        return Optional.of(Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING_BYTES)
+                .setData(ByteString.copyFrom(data))
+                .build());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) throws DataConverterException {
+        var decoded = decode(content.getData().toByteArray());
+        if (decoded.kind() == KIND_TASK && decoded.tasks().size() == 1 && valueClass.isAssignableFrom(Task.class)) {
+            return (T) decoded.tasks().get(0);
+        }
+        if (decoded.kind() == KIND_LIST && valueClass.isAssignableFrom(ArrayList.class)) {
+            return (T) decoded.tasks();
+        }
+        throw new DataConverterException("Cannot decode " + ENCODING + " into " + valueType, null);
+    }
+
+    /* ---------- encode ---------- */
+
+    private byte[] encode(List<?> tasks, byte kind) {
+        var bytes = new ByteArrayOutputStream(128 * tasks.size());
+        var out = new Writer(new DataOutputStream(bytes));
+        try {
+            out.data.writeByte(VERSION);
+            out.data.writeByte(kind);
+            out.varInt(tasks.size());
+            for (var t : tasks) {
+                writeTask(out, (Task) t);
+            }
+            out.data.flush();
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeTask(Writer out, Task t) throws IOException {
+        out.string(t.getWorkflowType());
+        out.string(t.getWorkflowId());
+        out.string(t.getPayloadRef());
+        writeMap(out, t.getPayload(), false);
+        writeMap(out, t.getAttributes(), true);
+    }
+
+    private void writeMap(Writer out, Map<?, ?> map, boolean attributes) throws IOException {
+        if (map == null) {
+            out.varInt(0);
+            return;
+        }
+        out.varInt(map.size() + 1);
+        for (var e : map.entrySet()) {
+            var key = String.valueOf(e.getKey());
+            out.string(key);
+            writeValue(out, attributes ? typed(key, e.getValue()) : e.getValue());
+        }
+    }
+
+    /* типизированные поля планирования: priority — int, время — epoch millis */
+    private static Object typed(String key, Object value) {
+        if (PRIORITY.equals(key) && value instanceof Number n && n.intValue() == n.doubleValue()) {
+            return n.intValue();
+        }
+        if (TIME_ATTRIBUTES.contains(key)) {
+            var instant = Task.toInstant(value);
+            if (instant != null) {
+                return instant.toEpochMilli();
+            }
+        }
+        return value;
+    }
+
+    private void writeValue(Writer out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.data.writeByte(T_NULL);
+            case String s -> {
+                out.data.writeByte(T_STRING);
+                out.string(s);
+            }
+            case Integer i -> {
+                out.data.writeByte(T_INT);
+                out.data.writeInt(i);
+            }
+            case Long l -> {
+                out.data.writeByte(T_LONG);
+                out.data.writeLong(l);
+            }
+            case Short s -> {
+                out.data.writeByte(T_INT);
+                out.data.writeInt(s);
+            }
+            case Byte b -> {
+                out.data.writeByte(T_INT);
+                out.data.writeInt(b);
+            }
+            case Double d -> {
+                out.data.writeByte(T_DOUBLE);
+                out.data.writeDouble(d);
+            }
+            case Float f -> {
+                out.data.writeByte(T_DOUBLE);
+                out.data.writeDouble(f);
+            }
+            case BigInteger b when b.bitLength() < 64 -> {
+                out.data.writeByte(T_LONG);
+                out.data.writeLong(b.longValue());
+            }
+            // BigDecimal и прочие числа — как double, так же их читает JSON-конвертер
+            case Number n -> {
+                out.data.writeByte(T_DOUBLE);
+                out.data.writeDouble(n.doubleValue());
+            }
+            case Boolean b -> out.data.writeByte(b ? T_TRUE : T_FALSE);
+            case Instant i -> {
+                out.data.writeByte(T_INSTANT);
+                out.data.writeLong(i.getEpochSecond());
+                out.data.writeInt(i.getNano());
+            }
+            case Map<?, ?> m -> {
+                out.data.writeByte(T_MAP);
+                writeMap(out, m, false);
+            }
+            case Iterable<?> it -> {
+                var items = new ArrayList<Object>();
+                it.forEach(items::add);
+                out.data.writeByte(T_LIST);
+                out.varInt(items.size());
+                for (var item : items) {
+                    writeValue(out, item);
+                }
+            }
+            // прочее (POJO, массивы) — в дерево карт и списков, как при JSON
+            default -> {
+                var tree = mapper.convertValue(value, Object.class);
+                writeValue(out, tree != null && tree.getClass() == value.getClass() ? value.toString() : tree);
+            }
+        }
+    }
+
+    /* ---------- decode ---------- */
+
+    private record Decoded(byte kind, List<Task> tasks) {
+    }
+
+    private Decoded decode(byte[] data) {
+        var in = new Reader(new DataInputStream(new ByteArrayInputStream(data)));
+        try {
+            var version = in.data.readByte();
+            if (version != VERSION) {
+                throw new DataConverterException("Unsupported " + ENCODING + " version " + version, null);
+            }
+            var kind = in.data.readByte();
+            var count = in.varInt();
+            var tasks = new ArrayList<Task>(count);
+            for (var i = 0; i < count; i++) {
+                tasks.add(readTask(in));
+            }
+            return new Decoded(kind, tasks);
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+
+    private Task readTask(Reader in) throws IOException {
+        var task = new Task();
+        task.setWorkflowType(in.string());
+        task.setWorkflowId(in.string());
+        task.setPayloadRef(in.string());
+        task.setPayload(readMap(in));
+        task.setAttributes(readMap(in));
+        return task;
+    }
+
+    private Map<String, Object> readMap(Reader in) throws IOException {
+        var size = in.varInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        var map = new LinkedHashMap<String, Object>(Math.max(4, size * 4 / 3 + 1));
+        for (var i = 0; i < size; i++) {
+            var key = in.string();
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private Object readValue(Reader in) throws IOException {
+        var type = in.data.readByte();
+        return switch (type) {
+            case T_NULL -> null;
+            case T_STRING -> in.string();
+            case T_INT -> in.data.readInt();
+            case T_LONG -> in.data.readLong();
+            case T_DOUBLE -> in.data.readDouble();
+            case T_TRUE -> true;
+            case T_FALSE -> false;
+            case T_INSTANT -> Instant.ofEpochSecond(in.data.readLong(), in.data.readInt());
+            case T_MAP -> readMap(in);
+            case T_LIST -> {
+                var size = in.varInt();
+                var list = new ArrayList<>(size);
+                for (var i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            default -> throw new DataConverterException("Unknown value tag " + type, null);
+        };
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static boolean isTaskList(List<?> list) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (var item : list) {
+            if (!(item instanceof Task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* строки со словарём: 0 — null, 1 — новая строка (UTF-8), n ≥ 2 — повтор строки n − 2 */
+    private static final class Writer {
+        final DataOutputStream data;
+        final Map<String, Integer> seen = new HashMap<>();
+
+        Writer(DataOutputStream data) {
+            this.data = data;
+        }
+
+        void string(String s) throws IOException {
+            if (s == null) {
+                varInt(0);
+                return;
+            }
+            var index = seen.get(s);
+            if (index != null) {
+                varInt(index + 2);
+                return;
+            }
+            seen.put(s, seen.size());
+            var bytes = s.getBytes(StandardCharsets.UTF_8);
+            varInt(1);
+            varInt(bytes.length);
+            data.write(bytes);
+        }
+
+        void varInt(int v) throws IOException {
+            while ((v & ~0x7F) != 0) {
+                data.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data.writeByte(v);
+        }
+    }
+
+    private static final class Reader {
+        final DataInputStream data;
+        final List<String> seen = new ArrayList<>();
+
+        Reader(DataInputStream data) {
+            this.data = data;
+        }
+
+        String string() throws IOException {
+            var tag = varInt();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag >= 2) {
+                return seen.get(tag - 2);
+            }
+            var bytes = new byte[varInt()];
+            data.readFully(bytes);
+            var s = new String(bytes, StandardCharsets.UTF_8);
+            seen.add(s);
+            return s;
+        }
+
+        int varInt() throws IOException {
+            var result = 0;
+            for (var shift = 0; shift < 32; shift += 7) {
+                var b = data.readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new DataConverterException("Malformed varint", null);
+        }
+    }
+}
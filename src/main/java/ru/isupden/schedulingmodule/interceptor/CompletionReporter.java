@@ -0,0 +1,76 @@
+package ru.isupden.schedulingmodule.interceptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.temporal.client.WorkflowClient;
+import lombok.extern.slf4j.Slf4j;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+
+/**
+ * Worker-сторона учёта завершений: копит {@link TaskCompletion} по клиентам
+ * и отправляет их в scheduler одним сигналом reportCompletions — раз в интервал
+ * или как только набралась пачка. Один сигнал на пачку вместо сигнала на задачу.
+ */
+@Slf4j
+public class CompletionReporter implements AutoCloseable {
+
+    private final WorkflowClient client;
+    private final int maxBatch;
+    private final Map<String, List<TaskCompletion>> pending = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public CompletionReporter(WorkflowClient client, long flushIntervalMs, int maxBatch) {
+        this.client = client;
+        this.maxBatch = maxBatch;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("completion-reporter").daemon(true).factory());
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void report(String clientName, TaskCompletion completion) {
+        List<TaskCompletion> full = null;
+        synchronized (pending) {
+            var batch = pending.computeIfAbsent(clientName, c -> new ArrayList<>());
+            batch.add(completion);
+            if (batch.size() >= maxBatch) {
+                full = pending.remove(clientName);
+            }
+        }
+        if (full != null) {
+            send(clientName, full);
+        }
+    }
+
+    public void flush() {
+        Map<String, List<TaskCompletion>> batches;
+        synchronized (pending) {
+            batches = new HashMap<>(pending);
+            pending.clear();
+        }
+        batches.forEach(this::send);
+    }
+
+    private void send(String clientName, List<TaskCompletion> batch) {
+        try {
+            client.newWorkflowStub(SchedulerWorkflow.class, "SCHED_" + clientName)
+                    .reportCompletions(batch);
+        } catch (Exception e) {
+            // scheduler недоступен — счётчики running у него останутся завышенными до рестарта
+            log.warn("Failed to report {} completions to {}: {}", batch.size(), clientName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+}
@@ -3,20 +3,30 @@ package ru.isupden.schedulingmodule.interceptor;
 import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
 import io.temporal.common.interceptors.WorkflowInboundCallsInterceptorBase;
 import io.temporal.workflow.Workflow;
+import io.temporal.workflow.unsafe.WorkflowUnsafe;
 import org.springframework.stereotype.Component;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
 import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
 
 /**
  * Интерцептор автоматически отправляет signal reportUsage()
  * при любом завершении child-Workflow.
+ * С {@link CompletionReporter} дополнительно сообщает о завершении (пачками, вне истории воркфлоу),
+ * чтобы scheduler уменьшил счётчики running.
  */
 @Component
 public class UsageReportInterceptor extends WorkflowInboundCallsInterceptorBase {
 
+    private final CompletionReporter reporter;
     private long startMs;
 
     public UsageReportInterceptor(WorkflowInboundCallsInterceptor next) {
+        this(next, null);
+    }
+
+    public UsageReportInterceptor(WorkflowInboundCallsInterceptor next, CompletionReporter reporter) {
         super(next);
+        this.reporter = reporter;
     }
 
     @Override
@@ -34,18 +44,21 @@ public class UsageReportInterceptor extends WorkflowInboundCallsInterceptorBase
     /* ---------------- helper ---------------- */
     private void sendUsageSignal() {
         var tenant = Workflow.getMemo("tenantId", String.class, null);
-        if (tenant == null) {
-            return;
-        }
-
-        var cpuSec = (Workflow.currentTimeMillis() - startMs) / 1000.0;
-
-        // Получаем clientName из Memo или используем namespace как fallback
         var clientName = Workflow.getMemo("clientName", String.class);
+        var durationMs = Workflow.currentTimeMillis() - startMs;
 
-        var sched = Workflow.newExternalWorkflowStub(
-                SchedulerWorkflow.class, "SCHED_" + clientName);
+        if (tenant != null) {
+            var sched = Workflow.newExternalWorkflowStub(
+                    SchedulerWorkflow.class, "SCHED_" + clientName);
+            sched.reportUsage(tenant, durationMs / 1000.0);
+        }
 
-        sched.reportUsage(tenant, cpuSec);
+        // отчёт о завершении — побочный эффект вне истории, при replay его не повторяем;
+        // нужен и задачам без тенанта: иначе их слот maxRunning не освободится
+        if (reporter != null && clientName != null && !WorkflowUnsafe.isReplaying()) {
+            var info = Workflow.getInfo();
+            reporter.report(clientName, new TaskCompletion(
+                    info.getWorkflowId(), info.getWorkflowType(), tenant, durationMs));
+        }
     }
 }
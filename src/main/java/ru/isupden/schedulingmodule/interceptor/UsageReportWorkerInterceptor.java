@@ -0,0 +1,22 @@
+package ru.isupden.schedulingmodule.interceptor;
+
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
+
+/**
+ * Подключает {@link UsageReportInterceptor} ко всем воркфлоу worker-а.
+ * Ставится в {@code WorkerFactoryOptions} воркеров, исполняющих задачи планировщика.
+ */
+public class UsageReportWorkerInterceptor extends WorkerInterceptorBase {
+
+    private final CompletionReporter reporter;
+
+    public UsageReportWorkerInterceptor(CompletionReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public WorkflowInboundCallsInterceptor interceptWorkflow(WorkflowInboundCallsInterceptor next) {
+        return new UsageReportInterceptor(next, reporter);
+    }
+}
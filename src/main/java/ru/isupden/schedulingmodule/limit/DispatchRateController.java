@@ -0,0 +1,55 @@
+package ru.isupden.schedulingmodule.limit;
+
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+
+/**
+ * PID-регулятор скорости dispatch-а по backlog-у целевой очереди.
+ * Ошибка = targetBacklog − backlog: очередь пустеет — скорость растёт, копится — падает.
+ * Выход ограничен [minRate, maxRate]; интеграл не копится, пока выход в насыщении (anti-windup).
+ */
+public class DispatchRateController {
+
+    private final SchedulingModuleProperties.AutoTune cfg;
+    private final double baseRate;
+    private double rate;
+    private double integral;
+    private double lastError;
+    private boolean hasLast;
+
+    public DispatchRateController(SchedulingModuleProperties.AutoTune cfg, double baseRate) {
+        this.cfg = cfg;
+        this.baseRate = clamp(baseRate);
+        this.rate = this.baseRate;
+    }
+
+    /**
+     * Учесть замер backlog-а, сделанный через {@code dtSec} после предыдущего.
+     *
+     * @return новая скорость, задач/сек
+     */
+    public double update(long backlog, double dtSec) {
+        var dt = Math.max(dtSec, 1e-3);
+        var error = cfg.getTargetBacklog() - (double) backlog;
+        var derivative = hasLast ? (error - lastError) / dt : 0;
+
+        var candidateIntegral = integral + error * dt;
+        var output = baseRate + cfg.getKp() * error + cfg.getKi() * candidateIntegral + cfg.getKd() * derivative;
+        var clamped = clamp(output);
+        if (clamped == output) {
+            integral = candidateIntegral;
+        }
+
+        lastError = error;
+        hasLast = true;
+        rate = clamped;
+        return rate;
+    }
+
+    public double rate() {
+        return rate;
+    }
+
+    private double clamp(double value) {
+        return Math.max(cfg.getMinRate(), Math.min(cfg.getMaxRate(), value));
+    }
+}
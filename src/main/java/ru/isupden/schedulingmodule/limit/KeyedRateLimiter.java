@@ -0,0 +1,78 @@
+package ru.isupden.schedulingmodule.limit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Token bucket на каждый ключ. Время передаётся снаружи (в воркфлоу — Workflow.currentTimeMillis),
+ * поэтому лимитер детерминирован и не блокирует: вызывающий сам решает, ждать или взять другую задачу.
+ */
+public class KeyedRateLimiter {
+
+    private final ToDoubleFunction<String> rateOf;
+    private final double burstSeconds;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    /**
+     * @param rateOf       лимит ключа в операциях/сек; 0 и меньше — без лимита
+     * @param burstSeconds ёмкость бакета в секундах лимита (не меньше одного токена)
+     */
+    public KeyedRateLimiter(ToDoubleFunction<String> rateOf, double burstSeconds) {
+        this.rateOf = rateOf;
+        this.burstSeconds = burstSeconds;
+    }
+
+    public boolean isAllowed(String key, long nowMs) {
+        var bucket = bucket(key, nowMs);
+        return bucket == null || bucket.tokens >= 1;
+    }
+
+    /**
+     * Списать токен. Вызывается после {@link #isAllowed}; для безлимитного ключа — NOP.
+     */
+    public void acquire(String key, long nowMs) {
+        var bucket = bucket(key, nowMs);
+        if (bucket != null) {
+            bucket.tokens -= 1;
+        }
+    }
+
+    /**
+     * Когда у ключа появится токен; {@code nowMs}, если он есть уже сейчас.
+     */
+    public long nextAvailableMs(String key, long nowMs) {
+        var bucket = bucket(key, nowMs);
+        if (bucket == null || bucket.tokens >= 1) {
+            return nowMs;
+        }
+        return nowMs + (long) Math.ceil((1 - bucket.tokens) * 1000 / bucket.rate);
+    }
+
+    /* бакет с пополнением на nowMs; null — ключ без лимита */
+    private Bucket bucket(String key, long nowMs) {
+        var rate = rateOf.applyAsDouble(key);
+        if (rate <= 0) {
+            return null;
+        }
+        var capacity = Math.max(1, rate * burstSeconds);
+        var bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, nowMs));
+        bucket.rate = rate;
+        if (nowMs > bucket.lastMs) {
+            bucket.tokens = Math.min(capacity, bucket.tokens + (nowMs - bucket.lastMs) / 1000.0 * rate);
+            bucket.lastMs = nowMs;
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        double tokens;
+        double rate;
+        long lastMs;
+
+        Bucket(double tokens, long lastMs) {
+            this.tokens = tokens;
+            this.lastMs = lastMs;
+        }
+    }
+}
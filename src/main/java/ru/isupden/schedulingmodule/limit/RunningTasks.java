@@ -0,0 +1,166 @@
+package ru.isupden.schedulingmodule.limit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Счётчики запущенных и ещё не завершившихся задач по тенанту и workflowType
+ * с лимитами maxRunning. Проверка задачи — O(1): два поиска в хеш-таблицах.
+ * Ключи запоминаются при dispatch-е, поэтому завершение уменьшает ровно те счётчики,
+ * которые увеличил запуск, а повторный отчёт о том же workflowId игнорируется.
+ * Слот задачи, о завершении которой так и не сообщили (child terminated, cancelled, timed out),
+ * освобождается по {@code runningTimeoutSeconds}; задачи хранятся в порядке запуска, поэтому
+ * просроченные всегда в начале.
+ */
+public class RunningTasks {
+
+    private final SchedulingModuleProperties.Concurrency cfg;
+    private final Map<String, Integer> byTenant = new HashMap<>();
+    private final Map<String, Integer> byType = new HashMap<>();
+    private final Map<String, Keys> running = new LinkedHashMap<>();
+
+    private record Keys(String type, String tenant, long startedMs) {
+    }
+
+    /**
+     * Запущенная задача для continue-as-new.
+     */
+    public record Slot(String workflowId, String workflowType, String tenant, long startedMs) {
+    }
+
+    public RunningTasks(SchedulingModuleProperties.Concurrency cfg) {
+        this.cfg = cfg;
+    }
+
+    /**
+     * Задан ли хоть один лимит maxRunning; без лимитов запущенные задачи считать незачем.
+     */
+    public boolean isLimited() {
+        return cfg.getDefaultPerTenant() > 0
+                || cfg.getWorkflowTypes().values().stream().anyMatch(n -> n > 0)
+                || cfg.getTenants().values().stream().anyMatch(n -> n > 0);
+    }
+
+    public boolean isAllowed(Task task) {
+        return isAllowed(task.getWorkflowType(), task.tenantId());
+    }
+
+    /**
+     * То же для пары ключей: все задачи пары допустимы или нет одновременно.
+     */
+    public boolean isAllowed(String workflowType, String tenant) {
+        var typeCap = cfg.getWorkflowTypes().getOrDefault(workflowType, 0);
+        if (typeCap > 0 && byType.getOrDefault(workflowType, 0) >= typeCap) {
+            return false;
+        }
+        var key = tenantKey(tenant);
+        var tenantCap = cfg.getTenants().getOrDefault(key, cfg.getDefaultPerTenant());
+        return tenantCap <= 0 || byTenant.getOrDefault(key, 0) < tenantCap;
+    }
+
+    public void onDispatch(Task task, long nowMs) {
+        var keys = new Keys(task.getWorkflowType(), tenantKey(task.tenantId()), nowMs);
+        if (running.putIfAbsent(task.getWorkflowId(), keys) == null) {
+            byType.merge(keys.type(), 1, Integer::sum);
+            byTenant.merge(keys.tenant(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return false, если задача не числилась запущенной (повторный или чужой отчёт)
+     */
+    public boolean onComplete(String workflowId) {
+        var keys = running.remove(workflowId);
+        if (keys == null) {
+            return false;
+        }
+        release(keys);
+        return true;
+    }
+
+    /**
+     * Освободить слоты задач, запущенных раньше {@code runningTimeoutSeconds} назад.
+     *
+     * @return workflowId освобождённых задач
+     */
+    public List<String> expire(long nowMs) {
+        var expired = new ArrayList<String>();
+        var timeoutMs = cfg.getRunningTimeoutSeconds() * 1000;
+        if (timeoutMs <= 0) {
+            return expired;
+        }
+        var it = running.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (e.getValue().startedMs() + timeoutMs > nowMs) {
+                break;
+            }
+            it.remove();
+            release(e.getValue());
+            expired.add(e.getKey());
+        }
+        return expired;
+    }
+
+    /**
+     * Момент, когда истечёт слот самой старой запущенной задачи.
+     */
+    public OptionalLong nextExpiryMs() {
+        var timeoutMs = cfg.getRunningTimeoutSeconds() * 1000;
+        if (timeoutMs <= 0 || running.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(running.values().iterator().next().startedMs() + timeoutMs);
+    }
+
+    public int size() {
+        return running.size();
+    }
+
+    /**
+     * Запущенные задачи в порядке запуска.
+     */
+    public List<Slot> snapshot() {
+        return running.entrySet().stream()
+                .map(e -> new Slot(e.getKey(), e.getValue().type(), e.getValue().tenant(), e.getValue().startedMs()))
+                .toList();
+    }
+
+    /**
+     * Вернуть слоты из {@link #snapshot()} прошлого запуска.
+     */
+    public void restore(List<Slot> slots) {
+        for (var slot : slots) {
+            var keys = new Keys(slot.workflowType(), slot.tenant(), slot.startedMs());
+            if (running.putIfAbsent(slot.workflowId(), keys) == null) {
+                byType.merge(keys.type(), 1, Integer::sum);
+                byTenant.merge(keys.tenant(), 1, Integer::sum);
+            }
+        }
+    }
+
+    public int countByTenant(String tenant) {
+        return byTenant.getOrDefault(tenant, 0);
+    }
+
+    public int countByType(String workflowType) {
+        return byType.getOrDefault(workflowType, 0);
+    }
+
+    private void release(Keys keys) {
+        byType.computeIfPresent(keys.type(), (k, n) -> n > 1 ? n - 1 : null);
+        byTenant.computeIfPresent(keys.tenant(), (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /* задачи без тенанта делят общий ключ, как в TaskRateLimits */
+    private static String tenantKey(String tenant) {
+        return tenant != null ? tenant : "default";
+    }
+}
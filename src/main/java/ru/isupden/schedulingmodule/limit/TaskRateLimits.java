@@ -0,0 +1,72 @@
+package ru.isupden.schedulingmodule.limit;
+
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Лимиты dispatch-а по workflowType и по тенанту.
+ * Задача допустима, только если свободны оба её ключа.
+ */
+public class TaskRateLimits {
+
+    private final SchedulingModuleProperties.RateLimits cfg;
+    private final KeyedRateLimiter byType;
+    private final KeyedRateLimiter byTenant;
+
+    public TaskRateLimits(SchedulingModuleProperties.RateLimits cfg) {
+        this.cfg = cfg;
+        this.byType = new KeyedRateLimiter(
+                type -> cfg.getWorkflowTypes().getOrDefault(type, 0.0),
+                cfg.getBurstSeconds());
+        this.byTenant = new KeyedRateLimiter(
+                tenant -> cfg.getTenants().getOrDefault(tenant, cfg.getDefaultTenantRate()),
+                cfg.getBurstSeconds());
+    }
+
+    /**
+     * Задан ли хоть один лимит.
+     */
+    public boolean isLimited() {
+        return cfg.getDefaultTenantRate() > 0
+                || cfg.getWorkflowTypes().values().stream().anyMatch(r -> r > 0)
+                || cfg.getTenants().values().stream().anyMatch(r -> r > 0);
+    }
+
+    public boolean isAllowed(Task task, long nowMs) {
+        return isAllowed(task.getWorkflowType(), task.tenantId(), nowMs);
+    }
+
+    /**
+     * То же для пары ключей: все задачи пары допустимы или нет одновременно.
+     */
+    public boolean isAllowed(String workflowType, String tenant, long nowMs) {
+        return byType.isAllowed(typeKey(workflowType), nowMs) && byTenant.isAllowed(tenantKey(tenant), nowMs);
+    }
+
+    public void acquire(Task task, long nowMs) {
+        byType.acquire(typeKey(task), nowMs);
+        byTenant.acquire(tenantKey(task), nowMs);
+    }
+
+    /**
+     * Когда задача станет допустимой по обоим лимитам.
+     */
+    public long nextAllowedMs(Task task, long nowMs) {
+        return nextAllowedMs(task.getWorkflowType(), task.tenantId(), nowMs);
+    }
+
+    public long nextAllowedMs(String workflowType, String tenant, long nowMs) {
+        return Math.max(
+                byType.nextAvailableMs(typeKey(workflowType), nowMs),
+                byTenant.nextAvailableMs(tenantKey(tenant), nowMs));
+    }
+
+    private static String typeKey(String workflowType) {
+        return String.valueOf(workflowType);
+    }
+
+    /* задачи без тенанта делят общий ключ */
+    private static String tenantKey(String tenant) {
+        return tenant != null ? tenant : "default";
+    }
+}
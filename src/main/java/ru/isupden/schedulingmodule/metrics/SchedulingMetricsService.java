@@ -3,6 +3,9 @@ package ru.isupden.schedulingmodule.metrics;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
@@ -23,6 +26,11 @@ public class SchedulingMetricsService {
     private final Map<String, Counter> taskDispatchedByTenant = new ConcurrentHashMap<>();
     private final Map<String, Timer> taskExecutionByType = new ConcurrentHashMap<>();
     private final Map<String, Counter> resourceUsageByTenant = new ConcurrentHashMap<>();
+    private final Map<String, AtomicReference<Double>> dispatchRateByClient = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> runningByClient = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> overflowByClient = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> backlogByClient = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> pollersByClient = new ConcurrentHashMap<>();
 
     /**
      * Регистрирует клиента для отслеживания метрик очереди
@@ -87,6 +95,45 @@ public class SchedulingMetricsService {
         }
     }
 
+    /**
+     * Регистрирует отказ в приёме задачи (admission-лимит)
+     */
+    public void recordTaskRejected(String clientName, String tenantId, String reason) {
+        Counter.builder("scheduling.tasks.rejected")
+                .tag("client", clientName)
+                .tag("tenant", tenantId != null ? tenantId : "none")
+                .tag("reason", reason)
+                .description("Tasks rejected by admission control")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Регистрирует сброс задачи из очереди при превышении бюджета
+     */
+    public void recordTaskShed(String clientName, String tenantId, String reason) {
+        Counter.builder("scheduling.tasks.shed")
+                .tag("client", clientName)
+                .tag("tenant", tenantId != null ? tenantId : "none")
+                .tag("reason", reason)
+                .description("Tasks shed from the ready queue over budget")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Исход задач с дедлайном: dropped (удалены до dispatch-а), late (ушли после дедлайна),
+     * hopeless (ушли, но уже не успеют), on_time
+     */
+    public void recordDeadlineOutcome(String clientName, String outcome, long count) {
+        Counter.builder("scheduling.deadline.outcome")
+                .tag("client", clientName)
+                .tag("outcome", outcome)
+                .description("Tasks with a deadline by outcome at dispatch")
+                .register(registry)
+                .increment(count);
+    }
+
     /**
      * Получает таймер для измерения времени выполнения задачи
      */
@@ -124,6 +171,125 @@ public class SchedulingMetricsService {
                 .record(java.time.Duration.ofMillis(waitTimeMs));
     }
 
+    /**
+     * Записывает ожидание задачи по уровню mlfq (гистограмма на уровень)
+     */
+    public void recordLevelWait(String clientName, int level, long waitTimeMs) {
+        Timer.builder("scheduling.level.wait")
+                .tag("client", clientName)
+                .tag("level", String.valueOf(level))
+                .description("Time tasks wait in queue, per scheduling level")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(java.time.Duration.ofMillis(waitTimeMs));
+    }
+
+    /**
+     * Регистрирует gauge-и конвейера асинхронных стартов
+     */
+    public void registerDispatchPipeline(Supplier<Number> inFlight,
+                                         Supplier<Number> peakInFlight,
+                                         Supplier<Number> queueDepth,
+                                         int maxInFlight) {
+        Gauge.builder("scheduling.dispatch.inflight", inFlight)
+                .description("Workflow starts currently in flight")
+                .register(registry);
+        Gauge.builder("scheduling.dispatch.inflight.max", peakInFlight)
+                .description("Peak number of workflow starts in flight")
+                .register(registry);
+        Gauge.builder("scheduling.dispatch.inflight.limit", () -> maxInFlight)
+                .description("Configured limit of workflow starts in flight")
+                .register(registry);
+        Gauge.builder("scheduling.dispatch.queue.depth", queueDepth)
+                .description("Workflow starts waiting for a free pipeline slot")
+                .register(registry);
+    }
+
+    /**
+     * Регистрирует gauge занятых стримов одного gRPC-канала пула стартов
+     */
+    public void registerDispatchChannel(int channel, Supplier<Number> inFlight) {
+        Gauge.builder("scheduling.dispatch.channel.inflight", inFlight)
+                .tag("channel", String.valueOf(channel))
+                .description("Workflow start calls in flight on a pooled channel")
+                .register(registry);
+    }
+
+    /**
+     * Регистрирует латентность старта через канал пула
+     */
+    public void recordDispatchChannelLatency(int channel, java.time.Duration latency) {
+        Timer.builder("scheduling.dispatch.channel.latency")
+                .tag("channel", String.valueOf(channel))
+                .description("Workflow start latency per pooled channel")
+                .register(registry)
+                .record(latency);
+    }
+
+    /**
+     * Обновляет число запущенных и ещё не завершившихся задач клиента
+     */
+    public void updateRunningTasks(String clientName, int running) {
+        runningByClient.computeIfAbsent(clientName, k -> {
+            var value = new AtomicInteger();
+            Gauge.builder("scheduling.tasks.running", value, AtomicInteger::get)
+                    .tag("client", clientName)
+                    .description("Dispatched tasks that have not reported completion yet")
+                    .register(registry);
+            return value;
+        }).set(running);
+    }
+
+    /**
+     * Обновляет число задач клиента, вытесненных в сегменты на диске
+     */
+    public void updateOverflowSize(String clientName, int size) {
+        overflowByClient.computeIfAbsent(clientName, k -> {
+            var value = new AtomicInteger();
+            Gauge.builder("scheduling.queue.overflow.size", value, AtomicInteger::get)
+                    .tag("client", clientName)
+                    .description("Tasks spilled to disk segments past the high-water mark")
+                    .register(registry);
+            return value;
+        }).set(size);
+    }
+
+    /**
+     * Обновляет текущую (автоподстроенную) скорость dispatch-а клиента
+     */
+    public void updateDispatchRate(String clientName, double rate) {
+        dispatchRateByClient.computeIfAbsent(clientName, k -> {
+            var value = new AtomicReference<>(rate);
+            Gauge.builder("scheduling.dispatch.rate", value, AtomicReference::get)
+                    .tag("client", clientName)
+                    .description("Current dispatch rate limit, tasks per second")
+                    .register(registry);
+            return value;
+        }).set(rate);
+    }
+
+    /**
+     * Обновляет замер backlog-а и poller-ов целевой очереди клиента
+     */
+    public void updateDownstreamBacklog(String clientName, long backlog, int pollers) {
+        backlogByClient.computeIfAbsent(clientName, k -> {
+            var value = new AtomicLong();
+            Gauge.builder("scheduling.downstream.backlog", value, AtomicLong::get)
+                    .tag("client", clientName)
+                    .description("Backlog of the target task queue")
+                    .register(registry);
+            return value;
+        }).set(backlog);
+        pollersByClient.computeIfAbsent(clientName, k -> {
+            var value = new AtomicLong();
+            Gauge.builder("scheduling.downstream.pollers", value, AtomicLong::get)
+                    .tag("client", clientName)
+                    .description("Pollers of the target task queue")
+                    .register(registry);
+            return value;
+        }).set(pollers);
+    }
+
     /**
      * Регистрирует задержку из-за backpressure
      */
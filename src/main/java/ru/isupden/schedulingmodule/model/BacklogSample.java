@@ -0,0 +1,21 @@
+package ru.isupden.schedulingmodule.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Снимок целевой task queue: сколько задач ждёт и сколько воркеров её опрашивает.
+ * {@code available == false} — сервер не отдал статистику, регулятор пропускает замер.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BacklogSample {
+    private String taskQueue;
+    private long backlog;
+    private int pollers;
+    private boolean available;
+}
@@ -0,0 +1,42 @@
+package ru.isupden.schedulingmodule.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Настройки, которые можно поменять у работающего scheduler-а (update {@code updateConfig}).
+ * null — оставить как есть. В ответе приходят действующие значения всех полей.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConfigUpdate {
+
+    /**
+     * Лимит задач/сек (backpressure.throughputFactor). При включённом autoTune лимит ведёт
+     * регулятор, а это значение используется только до первого замера.
+     */
+    private Double throughputFactor;
+
+    /**
+     * Скользящее окно backpressure, секунды.
+     */
+    private Long windowSeconds;
+
+    /**
+     * Квоты тенантов для fairness; заменяют текущие целиком.
+     */
+    private Map<String, Double> quotas;
+
+    private Long fairnessHalfLifeSeconds;
+
+    /**
+     * Новая цепочка стратегий (`fairness+priority`). Состояние звеньев с тем же именем переносится.
+     */
+    private String strategy;
+}
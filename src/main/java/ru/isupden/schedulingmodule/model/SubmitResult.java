@@ -0,0 +1,39 @@
+package ru.isupden.schedulingmodule.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ответ на submitTasksWithAck.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SubmitResult {
+
+    private int accepted;
+
+    /**
+     * Задачи, уже стоящие в очереди с тем же workflowId.
+     */
+    private int duplicates;
+
+    private int rejected;
+
+    /**
+     * workflowId отклонённых задач — их стоит отправить повторно.
+     */
+    @Builder.Default
+    private List<String> rejectedIds = new ArrayList<>();
+
+    /**
+     * Через сколько мс имеет смысл повторить отклонённые задачи; 0 — если отказов нет.
+     */
+    private long retryAfterMs;
+}
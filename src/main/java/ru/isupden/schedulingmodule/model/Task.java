@@ -1,5 +1,7 @@
 package ru.isupden.schedulingmodule.model;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -9,6 +11,11 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+/**
+ * Задача планировщика.
+ * В очереди scheduler-а лежат не сами задачи, а их неизменяемые уплотнённые копии
+ * (см. {@code queue.QueuedTask}); атрибуты такой копии меняются через {@link #withAttributes(Map)}.
+ */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -35,6 +42,40 @@ public class Task {
     @Getter
     private Map<String, Object> attributes = new HashMap<>();
 
+    /**
+     * Ссылка на payload в PayloadStore (claim-check); payload при этом пуст.
+     */
+    private String payloadRef;
+
+    /**
+     * Тенант задачи: tenantId из payload, иначе из атрибутов; null — если не задан.
+     */
+    public String tenantId() {
+        if (payload != null && payload.get("tenantId") instanceof String t) {
+            return t;
+        }
+        return attr("tenantId", String.class);
+    }
+
+    /**
+     * Слить атрибуты копированием: работает и с неизменяемой картой.
+     */
+    public void mergeAttributes(Map<String, Object> updates) {
+        var merged = new HashMap<>(attributes);
+        merged.putAll(updates);
+        attributes = merged;
+    }
+
+    /**
+     * Копия задачи со слитыми атрибутами; сама задача не меняется.
+     */
+    public Task withAttributes(Map<String, Object> updates) {
+        var merged = new HashMap<>(getAttributes());
+        merged.putAll(updates);
+        var payload = getPayload() != null ? new HashMap<>(getPayload()) : new HashMap<String, Object>();
+        return new Task(getWorkflowType(), getWorkflowId(), payload, merged, getPayloadRef());
+    }
+
     /**
      * Утилита: получить атрибут нужного типа или null.
      */
@@ -43,4 +84,31 @@ public class Task {
         Object o = attributes.get(key);
         return type.isInstance(o) ? (T) o : null;
     }
+
+    /**
+     * Атрибут-момент времени: Instant, ISO-строка (так он приходит после JSON) или epoch millis.
+     * Нераспознанное значение — null.
+     */
+    public Instant instantAttr(String key) {
+        return toInstant(attributes.get(key));
+    }
+
+    /**
+     * Момент времени из значения атрибута (правила — как у {@link #instantAttr(String)}).
+     */
+    public static Instant toInstant(Object raw) {
+        if (raw instanceof Instant i) {
+            return i;
+        }
+        if (raw instanceof String s) {
+            try {
+                return Instant.parse(s);
+            } catch (DateTimeParseException ignore) {
+            }
+        }
+        if (raw instanceof Number n) {
+            return Instant.ofEpochMilli(n.longValue());
+        }
+        return null;
+    }
 }
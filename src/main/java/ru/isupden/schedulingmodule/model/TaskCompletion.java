@@ -0,0 +1,20 @@
+package ru.isupden.schedulingmodule.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Завершение запущенной планировщиком задачи; приходит в scheduler пачками.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TaskCompletion {
+    private String workflowId;
+    private String workflowType;
+    private String tenantId;
+    private long durationMs;
+}
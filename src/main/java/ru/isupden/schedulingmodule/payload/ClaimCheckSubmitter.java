@@ -0,0 +1,59 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.util.HashMap;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import ru.isupden.schedulingmodule.model.SubmitResult;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+
+/**
+ * Producer-сторона claim-check: payload уходит в {@link PayloadStore},
+ * а в scheduler отправляется задача только со ссылкой и атрибутами.
+ * Сохранение идёт здесь, а не в signal-handler-е, потому что воркфлоу не может делать IO.
+ */
+@RequiredArgsConstructor
+public class ClaimCheckSubmitter {
+
+    private final PayloadStore store;
+
+    /**
+     * Сохранить payload-ы и вернуть копии задач со ссылками. Исходные задачи не меняются.
+     * tenantId из payload копируется в атрибуты, чтобы fairness и memo работали без payload.
+     */
+    public List<Task> checkIn(List<Task> tasks) {
+        return tasks.stream().map(this::checkIn).toList();
+    }
+
+    public void submit(SchedulerWorkflow scheduler, List<Task> tasks, String clientName) {
+        scheduler.submitTasks(checkIn(tasks), clientName);
+    }
+
+    /**
+     * Payload-ы отклонённых задач scheduler удаляет сам, поэтому повторять их надо исходными задачами
+     * (через этот же метод), а не копиями со ссылками.
+     */
+    public SubmitResult submitWithAck(SchedulerWorkflow scheduler, List<Task> tasks, String clientName) {
+        return scheduler.submitTasksWithAck(checkIn(tasks), clientName);
+    }
+
+    private Task checkIn(Task task) {
+        var payload = task.getPayload();
+        if (payload == null || payload.isEmpty()) {
+            return task;
+        }
+
+        var attributes = new HashMap<>(task.getAttributes());
+        if (payload.get("tenantId") instanceof String tenant) {
+            attributes.putIfAbsent("tenantId", tenant);
+        }
+
+        return Task.builder()
+                .workflowType(task.getWorkflowType())
+                .workflowId(task.getWorkflowId())
+                .attributes(attributes)
+                .payloadRef(store.put(task.getWorkflowId(), payload))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+
+/**
+ * Payload-ы в виде JSON-файлов в каталоге (локальный диск или общий том).
+ * Сериализация — тем же ObjectMapper-ом, что и у Temporal, чтобы типы не поплыли.
+ */
+public class FileSystemPayloadStore implements PayloadStore {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private final Path directory;
+    private final ObjectMapper mapper = JacksonJsonPayloadConverter.newDefaultObjectMapper();
+
+    public FileSystemPayloadStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create payload directory " + directory, e);
+        }
+    }
+
+    @Override
+    public String put(String workflowId, Map<String, Object> payload) {
+        var ref = UUID.randomUUID().toString();
+        var tmp = directory.resolve(ref + ".tmp");
+        try (var out = Files.newOutputStream(tmp)) {
+            mapper.writeValue(out, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store payload of " + workflowId, e);
+        }
+        try {
+            Files.move(tmp, file(ref), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store payload of " + workflowId, e);
+        }
+        return ref;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> find(String ref) {
+        try (var in = Files.newInputStream(file(ref))) {
+            return Optional.of(mapper.readValue(in, PAYLOAD_TYPE));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read payload " + ref, e);
+        }
+    }
+
+    @Override
+    public void delete(String ref) {
+        try {
+            Files.deleteIfExists(file(ref));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete payload " + ref, e);
+        }
+    }
+
+    private Path file(String ref) {
+        return directory.resolve(ref + ".json");
+    }
+}
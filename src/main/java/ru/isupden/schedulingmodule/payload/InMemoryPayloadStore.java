@@ -0,0 +1,38 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Payload-ы в памяти процесса. Годится, только если producer и dispatch-воркер
+ * живут в одном процессе (тесты, single-node).
+ */
+public class InMemoryPayloadStore implements PayloadStore {
+
+    private final Map<String, Map<String, Object>> payloads = new ConcurrentHashMap<>();
+
+    @Override
+    public String put(String workflowId, Map<String, Object> payload) {
+        var ref = UUID.randomUUID().toString();
+        payloads.put(ref, Collections.unmodifiableMap(new HashMap<>(payload)));
+        return ref;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> find(String ref) {
+        return Optional.ofNullable(payloads.get(ref));
+    }
+
+    @Override
+    public void delete(String ref) {
+        payloads.remove(ref);
+    }
+
+    public int size() {
+        return payloads.size();
+    }
+}
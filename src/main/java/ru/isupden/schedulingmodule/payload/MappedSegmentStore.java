@@ -0,0 +1,84 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import ru.isupden.schedulingmodule.converter.TaskPayloadConverter;
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Сегменты вытесненных задач: файл на сегмент, пишется один раз через memory-mapped буфер
+ * и дальше только читается или удаляется. Содержимое — бинарный формат TaskPayloadConverter.
+ * Запись идемпотентна: повтор с тем же id (ретрай activity) перезаписывает сегмент атомарно.
+ */
+public class MappedSegmentStore {
+
+    private static final int MAGIC = 0x53454731;   // "SEG1"
+    private static final int HEADER = 8;
+
+    private final Path directory;
+    private final TaskPayloadConverter converter = new TaskPayloadConverter();
+
+    public MappedSegmentStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void write(String segmentId, List<Task> tasks) {
+        var data = converter.toData(tasks)
+                .orElseThrow(() -> new IllegalArgumentException("Empty segment " + segmentId))
+                .getData();
+        var tmp = directory.resolve(segmentId + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + data.size());
+                buffer.putInt(MAGIC).putInt(data.size());
+                data.copyTo(buffer);
+                buffer.force();
+            }
+            Files.move(tmp, file(segmentId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write segment " + segmentId, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Task> read(String segmentId) {
+        try (var channel = FileChannel.open(file(segmentId), StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("Corrupted segment " + segmentId);
+            }
+            var size = buffer.getInt();
+            buffer.limit(HEADER + size);
+            var payload = Payload.newBuilder().setData(ByteString.copyFrom(buffer)).build();
+            return converter.fromData(payload, List.class, List.class);
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Segment not found: " + segmentId, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read segment " + segmentId, e);
+        }
+    }
+
+    public void delete(String segmentId) {
+        try {
+            Files.deleteIfExists(file(segmentId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete segment " + segmentId, e);
+        }
+    }
+
+    private Path file(String segmentId) {
+        return directory.resolve(segmentId + ".seg");
+    }
+}
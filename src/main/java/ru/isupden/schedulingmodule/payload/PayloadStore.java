@@ -0,0 +1,40 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Хранилище payload-ов для claim-check режима.
+ * Scheduler держит только ссылку, а DispatchActivity достаёт payload перед стартом.
+ */
+public interface PayloadStore {
+
+    /**
+     * Ключ, под которым ссылка передаётся в DispatchActivity вместо payload.
+     */
+    String REF_KEY = "$payloadRef";
+
+    /**
+     * Сохранить payload и вернуть ссылку на него.
+     */
+    String put(String workflowId, Map<String, Object> payload);
+
+    /**
+     * Достать payload по ссылке или пусто, если её нет.
+     */
+    Optional<Map<String, Object>> find(String ref);
+
+    /**
+     * Достать payload по ссылке.
+     *
+     * @throws IllegalStateException если ссылка не найдена
+     */
+    default Map<String, Object> get(String ref) {
+        return find(ref).orElseThrow(() -> new IllegalStateException("Payload not found: " + ref));
+    }
+
+    /**
+     * Удалить payload после подтверждённого старта. Неизвестная ссылка — NOP.
+     */
+    void delete(String ref);
+}
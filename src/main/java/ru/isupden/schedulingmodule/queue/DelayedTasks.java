@@ -0,0 +1,165 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.UnaryOperator;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Отложенные задачи: атрибут {@code notBefore} ещё в будущем.
+ * Хранятся вне ready-очереди в куче по времени выпуска — O(log n) на задачу,
+ * без просмотра всей очереди на каждой итерации.
+ * Удаление ленивое: запись в куче считается живой, только пока её держит индекс по id.
+ */
+public class DelayedTasks {
+
+    public static final String NOT_BEFORE = "notBefore";
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(
+            Comparator.comparing(Entry::releaseAt).thenComparingLong(Entry::seq));
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final Map<String, Integer> byTenant = new HashMap<>();
+    private long seq;
+
+    private record Entry(Task task, Instant releaseAt, long seq) {
+    }
+
+    /**
+     * Нужно ли отложить задачу: notBefore задан и позже now.
+     */
+    public static boolean isDelayed(Task task, Instant now) {
+        var notBefore = task.instantAttr(NOT_BEFORE);
+        return notBefore != null && notBefore.isAfter(now);
+    }
+
+    /**
+     * @return false, если задача с таким workflowId уже отложена
+     */
+    public boolean offer(Task task) {
+        Objects.requireNonNull(task.getWorkflowId(), "workflowId");
+        if (byId.containsKey(task.getWorkflowId())) {
+            return false;
+        }
+        push(task);
+        return true;
+    }
+
+    public boolean containsId(String workflowId) {
+        return byId.containsKey(workflowId);
+    }
+
+    public Task get(String workflowId) {
+        var entry = byId.get(workflowId);
+        return entry != null ? entry.task() : null;
+    }
+
+    public Task removeById(String workflowId) {
+        var entry = byId.remove(workflowId);
+        if (entry == null) {
+            return null;
+        }
+        uncount(entry.task().tenantId());
+        return entry.task();
+    }
+
+    /**
+     * Число отложенных задач тенанта: O(1).
+     */
+    public int countByTenant(String tenant) {
+        return byTenant.getOrDefault(tenant, 0);
+    }
+
+    /**
+     * Заменить задачу копией со слитыми атрибутами; если поменялся notBefore, задача перекладывается в куче.
+     *
+     * @return false, если задачи с таким id нет
+     */
+    public boolean updateAttributes(String workflowId, Map<String, Object> attributes) {
+        return updateAttributes(workflowId, attributes, UnaryOperator.identity());
+    }
+
+    /**
+     * То же, но слитая задача заново уплотняется через {@code compact} (см. {@link ReadyQueue}).
+     */
+    public boolean updateAttributes(String workflowId, Map<String, Object> attributes, UnaryOperator<Task> compact) {
+        var entry = byId.get(workflowId);
+        if (entry == null) {
+            return false;
+        }
+        var task = compact.apply(entry.task().withAttributes(attributes));
+        if (!Objects.equals(entry.task().tenantId(), task.tenantId())) {
+            uncount(entry.task().tenantId());
+            byTenant.merge(task.tenantId(), 1, Integer::sum);
+        }
+        var releaseAt = releaseAt(task);
+        // прежняя запись в куче становится мёртвой; с тем же notBefore новая сохраняет порядок
+        var updated = new Entry(task, releaseAt, releaseAt.equals(entry.releaseAt()) ? entry.seq() : seq++);
+        byId.put(workflowId, updated);
+        heap.add(updated);
+        return true;
+    }
+
+    /**
+     * Ближайшее время выпуска или null, если отложенных задач нет.
+     * Может указывать на уже удалённую задачу — тогда таймер просто сработает впустую.
+     */
+    public Instant nextRelease() {
+        var head = heap.peek();
+        return head != null ? head.releaseAt() : null;
+    }
+
+    /**
+     * Извлечь задачи, у которых наступил notBefore, в порядке времени выпуска.
+     */
+    public List<Task> releaseDue(Instant now) {
+        var due = new ArrayList<Task>();
+        while (!heap.isEmpty() && !heap.peek().releaseAt().isAfter(now)) {
+            var entry = heap.poll();
+            if (byId.get(entry.task().getWorkflowId()) == entry) {
+                byId.remove(entry.task().getWorkflowId());
+                uncount(entry.task().tenantId());
+                due.add(entry.task());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Отложенные задачи в произвольном порядке.
+     */
+    public List<Task> tasks() {
+        return byId.values().stream().map(Entry::task).toList();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    private void push(Task task) {
+        var entry = new Entry(task, releaseAt(task), seq++);
+        if (byId.put(task.getWorkflowId(), entry) == null) {
+            byTenant.merge(task.tenantId(), 1, Integer::sum);
+        }
+        heap.add(entry);
+    }
+
+    private void uncount(String tenant) {
+        byTenant.computeIfPresent(tenant, (t, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /* notBefore сняли или испортили — задача выпускается сразу */
+    private static Instant releaseAt(Task task) {
+        return Objects.requireNonNullElse(task.instantAttr(NOT_BEFORE), Instant.EPOCH);
+    }
+}
@@ -0,0 +1,275 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Дерево квот (org → team → tenant): у каждого внутреннего узла свои {@link StridePasses} по детям,
+ * поэтому доля делится на каждом уровне — команда с множеством тенантов не получает больше своей доли.
+ * Листья — тенанты; тенант, которого нет в дереве, подвешивается к корню с весом из плоских квот.
+ * Выбор спускается от корня к листу: O(глубина · log ветвления); отправка сдвигает проходы по пути.
+ * По каждому узлу ведётся свёртка: стоимость отправленных задач и фактический usage поддерева.
+ */
+public class FairShareTree {
+
+    public static final String SEPARATOR = "/";
+
+    private final Node root = new Node(null, null, 1);
+    private final Map<String, Node> leaves = new HashMap<>();
+    private final Set<String> names = new HashSet<>();
+    private ToDoubleFunction<String> rootWeights;
+
+    public FairShareTree(ToDoubleFunction<String> rootWeights) {
+        this.rootWeights = rootWeights;
+    }
+
+    /**
+     * Узел дерева. Проходы детей хранит родитель, а не сам ребёнок.
+     */
+    public static final class Node {
+        private final String name;
+        private final Node parent;
+        private double weight;
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private final StridePasses passes = new StridePasses(c -> children.get(c).weight);
+        private double dispatched;
+        private double usage;
+
+        private Node(String name, Node parent, double weight) {
+            this.name = name;
+            this.parent = parent;
+            this.weight = weight;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean isLeaf() {
+            return children.isEmpty();
+        }
+
+        public Node child(String name) {
+            return children.get(name);
+        }
+
+        public StridePasses passes() {
+            return passes;
+        }
+
+        public String path() {
+            if (parent == null) {
+                return "";
+            }
+            return parent.parent == null ? name : parent.path() + SEPARATOR + name;
+        }
+    }
+
+    public Node root() {
+        return root;
+    }
+
+    /**
+     * Добавить узел по пути имён от корня; промежуточные узлы должны уже существовать.
+     * Последнее имя пути, если у узла не будет детей, — id тенанта. Имена узлов уникальны во всём дереве.
+     */
+    public void add(List<String> path, double weight) {
+        var parent = root;
+        for (var name : path.subList(0, path.size() - 1)) {
+            parent = parent.children.get(name);
+            if (parent == null) {
+                throw new IllegalArgumentException("No parent node for " + String.join(SEPARATOR, path));
+            }
+        }
+        var name = path.get(path.size() - 1);
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight of " + String.join(SEPARATOR, path) + " must be positive");
+        }
+        if (name.contains(SEPARATOR) || !names.add(name)) {
+            throw new IllegalArgumentException("Node name " + name + " is not unique or contains " + SEPARATOR);
+        }
+        leaves.remove(parent.name, parent);
+        var node = new Node(name, parent, weight);
+        parent.children.put(name, node);
+        leaves.put(name, node);
+    }
+
+    /**
+     * Новые плоские квоты для тенантов вне дерева; действуют на следующие отправки, проходы не пересчитываются.
+     */
+    public void setRootWeights(ToDoubleFunction<String> rootWeights) {
+        this.rootWeights = rootWeights;
+        leaves.forEach((tenant, leaf) -> {
+            if (leaf.parent == root && !names.contains(leaf.name)) {
+                leaf.weight = rootWeight(tenant);
+            }
+        });
+    }
+
+    /**
+     * Лист тенанта; тенант вне дерева подвешивается к корню.
+     */
+    public Node leaf(String tenant) {
+        var leaf = leaves.get(tenant);
+        if (leaf == null) {
+            // тенант с именем внутреннего узла получает отдельный ключ: в конфигурации «/» запрещён
+            var key = names.contains(tenant) ? SEPARATOR + tenant : tenant;
+            leaf = new Node(key, root, rootWeight(tenant));
+            root.children.put(key, leaf);
+            leaves.put(tenant, leaf);
+        }
+        return leaf;
+    }
+
+    /**
+     * У тенанта появились задачи: узлы пути становятся активными у своих родителей.
+     */
+    public void activate(String tenant) {
+        activate(leaf(tenant));
+    }
+
+    public void activate(Node leaf) {
+        for (var node = leaf; node.parent != null; node = node.parent) {
+            if (node.parent.passes.isActive(node.name)) {
+                return;
+            }
+            node.parent.passes.activate(node.name);
+        }
+    }
+
+    /**
+     * У тенанта кончились задачи: снимаем его и опустевшие вверх по пути узлы.
+     */
+    public void deactivate(String tenant) {
+        deactivate(leaf(tenant));
+    }
+
+    public void deactivate(Node leaf) {
+        for (var node = leaf; node.parent != null; node = node.parent) {
+            node.parent.passes.deactivate(node.name);
+            if (node.parent.passes.first() != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Отправка задачи тенанта стоимостью cost: сдвиг проходов на каждом уровне пути.
+     */
+    public void charge(String tenant, double cost) {
+        var node = leaf(tenant);
+        node.dispatched += cost;
+        for (; node.parent != null; node = node.parent) {
+            node.parent.passes.charge(node.name, cost);
+            node.parent.dispatched += cost;
+        }
+    }
+
+    /**
+     * Фактический usage тенанта (reportUsage) — в свёртку всех узлов пути.
+     */
+    public void recordUsage(String tenant, double cost) {
+        for (var node = leaf(tenant); node != null; node = node.parent) {
+            node.usage += cost;
+        }
+    }
+
+    /**
+     * Сравнение тенантов на первом уровне, где их пути расходятся (&lt; 0 — первый раньше).
+     */
+    public int compare(String tenantA, String tenantB) {
+        var a = pathFromRoot(leaf(tenantA));
+        var b = pathFromRoot(leaf(tenantB));
+        for (var i = 0; i < Math.min(a.size(), b.size()); i++) {
+            if (a.get(i) != b.get(i)) {
+                var passes = a.get(i).parent.passes;
+                return Double.compare(passes.pass(a.get(i).name), passes.pass(b.get(i).name));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Свёртка по узлам: путь ↦ {dispatched, usage}; корень — пустой путь.
+     */
+    public Map<String, Object> rollup() {
+        var result = new LinkedHashMap<String, Object>();
+        collect(root, result, n -> Map.of("dispatched", n.dispatched, "usage", n.usage));
+        return result;
+    }
+
+    /* ---- state: путь ↦ {passes детей, dispatched, usage} ---- */
+
+    public Map<String, Object> exportState() {
+        var state = new LinkedHashMap<String, Object>();
+        collect(root, state, n -> Map.of(
+                "passes", n.passes.exportState(), "dispatched", n.dispatched, "usage", n.usage));
+        return state;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void importState(Map<String, Object> state) {
+        state.forEach((path, raw) -> {
+            var node = find(path);
+            if (node == null || !(raw instanceof Map<?, ?> m)) {
+                return;
+            }
+            if (m.get("passes") instanceof Map<?, ?> passes) {
+                node.passes.importState((Map<String, Object>) passes);
+            }
+            if (m.get("dispatched") instanceof Number d) {
+                node.dispatched = d.doubleValue();
+            }
+            if (m.get("usage") instanceof Number u) {
+                node.usage = u.doubleValue();
+            }
+        });
+    }
+
+    /* узел по пути; неизвестный тенант верхнего уровня создаётся, как при первой задаче */
+    private Node find(String path) {
+        if (path.isEmpty()) {
+            return root;
+        }
+        var names = path.split(SEPARATOR);
+        if (names.length == 1) {
+            return root.children.containsKey(names[0]) ? root.children.get(names[0]) : leaf(names[0]);
+        }
+        var node = root;
+        for (var name : names) {
+            node = node.children.get(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private double rootWeight(String tenant) {
+        var w = rootWeights.applyAsDouble(tenant);
+        return w > 0 ? w : 1.0;
+    }
+
+    private static List<Node> pathFromRoot(Node leaf) {
+        var path = new ArrayList<Node>();
+        for (var node = leaf; node.parent != null; node = node.parent) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static void collect(Node node, Map<String, Object> out,
+                                Function<Node, Object> value) {
+        out.put(node.path(), value.apply(node));
+        node.children.values().forEach(c -> collect(c, out, value));
+    }
+}
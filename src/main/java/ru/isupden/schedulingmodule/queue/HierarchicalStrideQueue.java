@@ -0,0 +1,174 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Ready-очередь иерархического fair share: FIFO на тенанта (лист {@link FairShareTree}),
+ * на каждом уровне дерева ключи упорядочены проходами родителя.
+ * Обход — та же череда отправок, что и в {@link StrideQueue}, только выбор спускается от корня к листу,
+ * а выданная задача сдвигает проходы всех узлов пути: O(глубина · log ветвления) на задачу.
+ */
+public class HierarchicalStrideQueue extends ReadyQueue {
+
+    private final FairShareTree tree;
+    private final Function<Task, String> tenantOf;
+    private final ToDoubleFunction<Task> costOf;
+    private final Map<FairShareTree.Node, Map<String, Task>> byLeaf = new HashMap<>();
+
+    public HierarchicalStrideQueue(FairShareTree tree, Function<Task, String> tenantOf,
+                                   ToDoubleFunction<Task> costOf) {
+        this.tree = tree;
+        this.tenantOf = tenantOf;
+        this.costOf = costOf;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public Task peek() {
+        var it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        byLeaf.keySet().forEach(tree::deactivate);
+        byLeaf.clear();
+    }
+
+    public int tenantSize(String tenant) {
+        var tasks = byLeaf.get(tree.leaf(tenant));
+        return tasks != null ? tasks.size() : 0;
+    }
+
+    private static final Comparator<Cursor> BY_PASS =
+            Comparator.<Cursor>comparingDouble(c -> c.pass).thenComparing(c -> c.node.name());
+
+    /* курсор узла в обходе: у листа — его задачи, у внутреннего узла — слияние детей, как в StrideQueue */
+    private final class Cursor {
+        final FairShareTree.Node node;
+        final Cursor parent;
+        double pass;
+        Iterator<Task> tasks;
+        String pending;
+        PriorityQueue<Cursor> touched;
+
+        Cursor(FairShareTree.Node node, Cursor parent, double pass) {
+            this.node = node;
+            this.parent = parent;
+            this.pass = pass;
+            if (node.isLeaf()) {
+                tasks = byLeaf.get(node).values().iterator();
+            } else {
+                pending = node.passes().next(null);
+                touched = new PriorityQueue<>(BY_PASS);
+            }
+        }
+
+        boolean hasNext() {
+            return tasks != null ? tasks.hasNext() : pending != null || !touched.isEmpty();
+        }
+
+        /* ребёнок с наименьшим проходом: уже тронутый из кучи или следующий активный из дерева */
+        Cursor pollChild() {
+            var head = touched.peek();
+            if (head != null && (pending == null || before(head))) {
+                return touched.poll();
+            }
+            var child = new Cursor(node.child(pending), this, node.passes().pass(pending));
+            pending = node.passes().next(pending);
+            return child;
+        }
+
+        private boolean before(Cursor c) {
+            var p = node.passes().pass(pending);
+            return c.pass < p || (c.pass == p && c.node.name().compareTo(pending) < 0);
+        }
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        var root = new Cursor(tree.root(), null, 0);
+        return new Iterator<>() {
+            private Cursor current;
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return root.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var cursor = root;
+                while (cursor.tasks == null) {
+                    cursor = cursor.pollChild();
+                }
+                current = cursor;
+                last = current.tasks.next();
+                // «виртуальная» отправка: сдвигаем проходы по пути и возвращаем непустые курсоры в кучи
+                var cost = costOf.applyAsDouble(last);
+                for (var c = current; c.parent != null; c = c.parent) {
+                    c.pass += cost * c.parent.node.passes().stride(c.node.name());
+                    if (c.hasNext()) {
+                        c.parent.touched.add(c);
+                    }
+                }
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                current.tasks.remove();
+                // лист уже без задачи — хук onRemoved её не тронет
+                removeById(last.getWorkflowId());
+                last = null;
+            }
+        };
+    }
+
+    /* ---- листья ---- */
+
+    @Override
+    protected void onAdded(Task task) {
+        var leaf = tree.leaf(tenantOf.apply(task));
+        byLeaf.computeIfAbsent(leaf, l -> {
+            tree.activate(l);
+            return new LinkedHashMap<>();
+        }).put(task.getWorkflowId(), task);
+    }
+
+    @Override
+    protected void onRemoved(Task task) {
+        var leaf = tree.leaf(tenantOf.apply(task));
+        var tasks = byLeaf.get(leaf);
+        if (tasks == null) {
+            return;
+        }
+        tasks.remove(task.getWorkflowId());
+        if (tasks.isEmpty()) {
+            byLeaf.remove(leaf);
+            tree.deactivate(leaf);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Выбор худших задач для сброса без полной сортировки очереди.
+ * Один проход с кучей размера k: O(n log k).
+ */
+public final class LoadShedder {
+
+    private static final long TASK_OVERHEAD = 40;
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long MAP_ENTRY_OVERHEAD = 48;
+
+    private LoadShedder() {
+    }
+
+    /**
+     * k худших задач по порядку {@code order} (&lt; 0 — первая лучше).
+     * При равенстве в жертвы попадают более поздние задачи: старые ждут дольше.
+     */
+    public static List<Task> worst(Iterable<Task> tasks, int k, Comparator<Task> order) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // корень — лучшая из отобранных, её и вытесняем
+        var victims = new PriorityQueue<Task>(k, order);
+        for (var t : tasks) {
+            if (victims.size() < k) {
+                victims.add(t);
+            } else if (order.compare(t, victims.peek()) >= 0) {
+                victims.poll();
+                victims.add(t);
+            }
+        }
+        return new ArrayList<>(victims);
+    }
+
+    /**
+     * Грубая оценка размера задачи в куче (байты): строки, карты и их содержимое.
+     */
+    public static long estimateBytes(Task task) {
+        return TASK_OVERHEAD
+                + estimate(task.getWorkflowType())
+                + estimate(task.getWorkflowId())
+                + estimate(task.getPayloadRef())
+                + estimate(task.getPayload())
+                + estimate(task.getAttributes());
+    }
+
+    private static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence s) {
+            return OBJECT_OVERHEAD + 24 + s.length();
+        }
+        if (value instanceof Map<?, ?> m) {
+            var size = OBJECT_OVERHEAD + 48L + 4L * m.size();
+            for (var e : m.entrySet()) {
+                size += MAP_ENTRY_OVERHEAD + estimate(e.getKey()) + estimate(e.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Iterable<?> it) {
+            var size = OBJECT_OVERHEAD + 24L;
+            for (var v : it) {
+                size += 8 + estimate(v);
+            }
+            return size;
+        }
+        return OBJECT_OVERHEAD + 8;
+    }
+}
@@ -0,0 +1,236 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Ready-очередь MLFQ: на каждом уровне (0 — верхний) задачи идут по времени попадания в очередь
+ * ({@code enqueuedAt}), при равном — в порядке добавления; добавление и удаление — O(log n).
+ * Уровню задачи при добавлении и повышении отвечает {@code levelOf}.
+ * Поднятая задача встаёт на новом уровне по своему enqueuedAt, а не в конец: она ждёт дольше тех,
+ * кто попал на этот уровень сразу.
+ * Обход чередует уровни по долям: у уровня есть «проход» (pass), каждая выданная задача
+ * сдвигает его на 1/share, следующим идёт уровень с наименьшим проходом —
+ * так уровень с долей 0.6 получает втрое больше dispatch-ей, чем уровень с долей 0.2.
+ */
+public class MultiLevelQueue extends ReadyQueue {
+
+    private static final Comparator<Slot> ORDER =
+            Comparator.comparingLong(Slot::enqueuedAt).thenComparingLong(Slot::seq);
+
+    private final List<NavigableMap<Slot, Task>> levels;
+    private final double[] stride;
+    private final double[] pass;
+    private final Map<String, Integer> placed = new HashMap<>();
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Map<String, Integer> removedFrom = new HashMap<>();   // до ближайшего dispatch-а
+    private final ToIntFunction<Task> levelOf;
+    private final ToLongFunction<Task> enqueuedAt;
+    private long seq;
+    private double virtualTime;   // проход последнего обслуженного уровня
+
+    /* место задачи на уровне; при повышении сохраняется */
+    private record Slot(long enqueuedAt, long seq) {
+    }
+
+    /**
+     * Очередь с порядком добавления на каждом уровне.
+     */
+    public MultiLevelQueue(double[] shares, ToIntFunction<Task> levelOf) {
+        this(shares, levelOf, t -> 0L);
+    }
+
+    public MultiLevelQueue(double[] shares, ToIntFunction<Task> levelOf, ToLongFunction<Task> enqueuedAt) {
+        if (shares.length == 0) {
+            throw new IllegalArgumentException("At least one level is required");
+        }
+        this.levels = new ArrayList<>(shares.length);
+        this.stride = new double[shares.length];
+        this.pass = new double[shares.length];
+        for (var i = 0; i < shares.length; i++) {
+            if (!(shares[i] > 0)) {
+                throw new IllegalArgumentException("Level share must be positive: " + shares[i]);
+            }
+            levels.add(new TreeMap<>(ORDER));
+            stride[i] = 1.0 / shares[i];
+        }
+        this.levelOf = levelOf;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public Task peek() {
+        var it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        levels.forEach(Map::clear);
+        placed.clear();
+        slots.clear();
+        removedFrom.clear();
+    }
+
+    /**
+     * Уровень, на котором задача стоит сейчас, или -1, если её нет в очереди.
+     */
+    public int levelOf(String workflowId) {
+        return placed.getOrDefault(workflowId, -1);
+    }
+
+    /**
+     * Уровень, с которого задачу забрали из очереди, или -1: помнится до ближайшего {@link #served(Task)}.
+     * За throttle-паузу перед dispatch-ем задача могла «дорасти» до другого уровня — учитывать надо этот.
+     */
+    public int servedLevel(String workflowId) {
+        return removedFrom.getOrDefault(workflowId, -1);
+    }
+
+    public int levelSize(int level) {
+        return levels.get(level).size();
+    }
+
+    /**
+     * Поднять задачи, которым {@code levelOf} даёт уровень выше текущего.
+     * Смотрим только головы уровней: дольше всех на уровне ждёт голова, поэтому каждое
+     * повышение — O(log n), а задача поднимается не больше числа уровней раз.
+     * Граница: задачи одного класса поднимаются точно в срок. Голова более низкого класса
+     * (поднявшаяся снизу) созревает позже тех, кто за ней, и может задержать их повышение —
+     * не дольше чем на (число уровней − 1) × период aging-а.
+     */
+    public int promote() {
+        // между выборкой и dispatch-ем preprocess не идёт: оставшееся — отмены и сброс
+        removedFrom.clear();
+        var moved = 0;
+        for (var l = 1; l < levels.size(); l++) {
+            var level = levels.get(l);
+            while (!level.isEmpty()) {
+                var head = level.firstEntry();
+                var target = clamp(levelOf.applyAsInt(head.getValue()));
+                if (target >= l) {
+                    break;
+                }
+                level.pollFirstEntry();
+                place(head.getValue(), target, head.getKey());
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Учесть dispatch задачи: сдвинуть проход уровня, с которого её забрали.
+     */
+    public void served(Task task) {
+        var level = removedFrom.getOrDefault(task.getWorkflowId(), clamp(levelOf.applyAsInt(task)));
+        removedFrom.clear();
+        served(level);
+    }
+
+    /**
+     * Учесть dispatch задачи уровня: сдвинуть его проход.
+     */
+    public void served(int level) {
+        var l = clamp(level);
+        pass[l] = Math.max(pass[l], virtualTime) + stride[l];
+        virtualTime = pass[l] - stride[l];
+    }
+
+    /* обход: слияние уровней по проходам, без изменения самих проходов */
+    @Override
+    public Iterator<Task> iterator() {
+        var cursors = new ArrayList<Iterator<Task>>(levels.size());
+        var passes = new double[levels.size()];
+        for (var l = 0; l < levels.size(); l++) {
+            cursors.add(levels.get(l).values().iterator());
+            passes[l] = Math.max(pass[l], virtualTime);
+        }
+        return new Iterator<>() {
+            private Iterator<Task> current;
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return cursors.stream().anyMatch(Iterator::hasNext);
+            }
+
+            @Override
+            public Task next() {
+                var best = -1;
+                for (var l = 0; l < cursors.size(); l++) {
+                    if (cursors.get(l).hasNext() && (best < 0 || passes[l] < passes[best])) {
+                        best = l;
+                    }
+                }
+                if (best < 0) {
+                    throw new NoSuchElementException();
+                }
+                passes[best] += stride[best];
+                current = cursors.get(best);
+                last = current.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                current.remove();
+                // уровень уже без задачи — хук onRemoved её не тронет
+                removeById(last.getWorkflowId());
+                last = null;
+            }
+        };
+    }
+
+    /* ---- уровни ---- */
+
+    @Override
+    protected void onAdded(Task task) {
+        place(task, clamp(levelOf.applyAsInt(task)), new Slot(enqueuedAt.applyAsLong(task), seq++));
+    }
+
+    @Override
+    protected void onRemoved(Task task) {
+        var l = placed.remove(task.getWorkflowId());
+        var slot = slots.remove(task.getWorkflowId());
+        if (l != null) {
+            levels.get(l).remove(slot);
+            removedFrom.put(task.getWorkflowId(), l);
+        }
+    }
+
+    private void place(Task task, int level, Slot slot) {
+        // простаивавший уровень не копит «кредит» проходов
+        if (levels.get(level).isEmpty()) {
+            pass[level] = Math.max(pass[level], virtualTime);
+        }
+        levels.get(level).put(slot, task);
+        slots.put(task.getWorkflowId(), slot);
+        placed.put(task.getWorkflowId(), level);
+        removedFrom.remove(task.getWorkflowId());
+    }
+
+    private int clamp(int level) {
+        return Math.max(0, Math.min(levels.size() - 1, level));
+    }
+}
@@ -0,0 +1,148 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Ready-очередь для целочисленных приоритетов: по корзине на каждое значение из [min, max].
+ * Добавление и удаление — O(1), обход — от большего приоритета к меньшему, FIFO внутри корзины.
+ * Значения вне диапазона хранятся в упорядоченной карте (O(log n)).
+ * Задачи без целого priority попадают в корзину 0.
+ */
+public class PriorityBucketQueue extends ReadyQueue {
+
+    public static final String PRIORITY = "priority";
+
+    private final int min;
+    private final List<Map<String, Task>> buckets;
+    private final TreeMap<Integer, Map<String, Task>> overflow = new TreeMap<>();
+    private int top = -1;   // индекс самой высокой, возможно, непустой корзины
+
+    public PriorityBucketQueue(int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("max < min: " + max + " < " + min);
+        }
+        this.min = min;
+        this.buckets = new ArrayList<>(max - min + 1);
+        for (var i = min; i <= max; i++) {
+            buckets.add(new LinkedHashMap<>());
+        }
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public Task peek() {
+        var it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        buckets.forEach(Map::clear);
+        overflow.clear();
+        top = -1;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        var order = nonEmptyBuckets();
+        return new Iterator<>() {
+            private int next;
+            private Iterator<Task> current = Collections.emptyIterator();
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && next < order.size()) {
+                    current = order.get(next++).values().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = current.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                current.remove();
+                // корзина уже без задачи — хук onRemoved её не тронет
+                removeById(last.getWorkflowId());
+                last = null;
+            }
+        };
+    }
+
+    /* ---- корзины ---- */
+
+    @Override
+    protected void onAdded(Task task) {
+        var p = priorityOf(task);
+        var index = p - min;
+        if (index >= 0 && index < buckets.size()) {
+            buckets.get(index).put(task.getWorkflowId(), task);
+            top = Math.max(top, index);
+        } else {
+            overflow.computeIfAbsent(p, k -> new LinkedHashMap<>()).put(task.getWorkflowId(), task);
+        }
+    }
+
+    @Override
+    protected void onRemoved(Task task) {
+        var p = priorityOf(task);
+        var index = p - min;
+        if (index >= 0 && index < buckets.size()) {
+            buckets.get(index).remove(task.getWorkflowId());
+            return;
+        }
+        var bucket = overflow.get(p);
+        if (bucket != null) {
+            bucket.remove(task.getWorkflowId());
+            if (bucket.isEmpty()) {
+                overflow.remove(p);
+            }
+        }
+    }
+
+    /* снимок непустых корзин от большего приоритета к меньшему: O(max − min) */
+    private List<Map<String, Task>> nonEmptyBuckets() {
+        while (top >= 0 && buckets.get(top).isEmpty()) {
+            top--;
+        }
+        var order = new ArrayList<Map<String, Task>>();
+        order.addAll(overflow.tailMap(min + buckets.size() - 1, false).descendingMap().values());
+        for (var i = top; i >= 0; i--) {
+            if (!buckets.get(i).isEmpty()) {
+                order.add(buckets.get(i));
+            }
+        }
+        order.addAll(overflow.headMap(min, false).descendingMap().values());
+        return order;
+    }
+
+    private static int priorityOf(Task task) {
+        var p = task.attr(PRIORITY, Integer.class);
+        return p != null ? p : 0;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.Map;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Задача в очереди scheduler-а: неизменяемая уплотнённая копия, которую строит {@link TaskCompactor}.
+ * Сеттеры и {@link #mergeAttributes(Map)} бросают UnsupportedOperationException — обновление
+ * атрибутов заменяет запись целиком ({@link ReadyQueue#updateAttributes}).
+ * Равенство — по идентичности: очередь индексирует записи по workflowId, а сравнение карт
+ * на каждом equals/hashCode только тратит CPU. С обычной {@link Task} запись не равна никогда.
+ */
+public final class QueuedTask extends Task {
+
+    /* карты должны быть уже неизменяемыми — их готовит TaskCompactor */
+    QueuedTask(String workflowType, String workflowId, Map<String, Object> payload,
+               Map<String, Object> attributes, String payloadRef) {
+        super(workflowType, workflowId, payload, attributes, payloadRef);
+    }
+
+    @Override
+    public void setWorkflowType(String workflowType) {
+        throw immutable();
+    }
+
+    @Override
+    public void setWorkflowId(String workflowId) {
+        throw immutable();
+    }
+
+    @Override
+    public void setPayload(Map<String, Object> payload) {
+        throw immutable();
+    }
+
+    @Override
+    public void setAttributes(Map<String, Object> attributes) {
+        throw immutable();
+    }
+
+    @Override
+    public void setPayloadRef(String payloadRef) {
+        throw immutable();
+    }
+
+    @Override
+    public void mergeAttributes(Map<String, Object> updates) {
+        throw immutable();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    /* Task.equals спрашивает canEqual у второй стороны: так plain.equals(queued) тоже false */
+    @Override
+    protected boolean canEqual(Object other) {
+        return other == this;
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("queued task is immutable, use updateAttributes");
+    }
+}
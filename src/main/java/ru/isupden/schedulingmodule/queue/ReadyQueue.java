@@ -0,0 +1,350 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Очередь готовых задач с индексом по workflowId.
+ * Порядок обхода — FIFO; добавление, поиск, удаление и обновление по id — O(1).
+ * Повторное добавление задачи с тем же workflowId отклоняется (offer/add → false).
+ * Членство проверяется по идентичности экземпляра, а не по equals.
+ * Дополнительно ведутся число задач по тенантам (admission-лимиты), по парам ключей лимитов
+ * dispatch-а (workflowType, тенант) и оценка занимаемой памяти (бюджет очереди).
+ * После {@link #indexKeys()} задачи индексируются и по паре ключей: выбор обходит только
+ * пары, не упёршиеся в лимиты, и пропускает занятую пару целиком.
+ */
+public class ReadyQueue extends AbstractQueue<Task> {
+
+    private final Map<String, Task> byId = new LinkedHashMap<>();
+    private final Map<String, Integer> byTenant = new HashMap<>();
+    private final Map<LimitKeys, Integer> byKeys = new HashMap<>();
+    private Map<LimitKeys, LinkedHashMap<String, Long>> idsByKeys;   // id ↦ номер добавления; null без indexKeys
+    private long seq;
+    private long bytes;
+    private List<Task> removedLog;   // только на время removedDuring
+
+    /**
+     * Ключи лимитов dispatch-а задачи: workflowType и тенант (null — без тенанта).
+     * Все задачи одной пары упираются в maxRunning и rate-лимиты одновременно.
+     */
+    public record LimitKeys(String workflowType, String tenant) {
+        public static LimitKeys of(Task task) {
+            return new LimitKeys(task.getWorkflowType(), task.tenantId());
+        }
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        Objects.requireNonNull(task.getWorkflowId(), "workflowId");
+        if (byId.putIfAbsent(task.getWorkflowId(), task) != null) {
+            return false;
+        }
+        added(task);
+        return true;
+    }
+
+    /**
+     * В отличие от {@link AbstractQueue#add}, дубликат не бросает исключение.
+     */
+    @Override
+    public boolean add(Task task) {
+        return offer(task);
+    }
+
+    @Override
+    public Task poll() {
+        var it = iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        var task = it.next();
+        it.remove();
+        return task;
+    }
+
+    @Override
+    public Task peek() {
+        var it = byId.values().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Task t && byId.get(t.getWorkflowId()) == t;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        removed(byId.remove(((Task) o).getWorkflowId()));
+        return true;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        var it = byId.values().iterator();
+        return new Iterator<>() {
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                removed(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        byTenant.clear();
+        byKeys.clear();
+        if (idsByKeys != null) {
+            idsByKeys.clear();
+        }
+        bytes = 0;
+    }
+
+    /* ---- доступ по workflowId ---- */
+
+    public boolean containsId(String workflowId) {
+        return byId.containsKey(workflowId);
+    }
+
+    public Task get(String workflowId) {
+        return byId.get(workflowId);
+    }
+
+    public Task removeById(String workflowId) {
+        var task = byId.remove(workflowId);
+        if (task != null) {
+            removed(task);
+        }
+        return task;
+    }
+
+    /**
+     * Сколько задач тенанта в очереди; задачи без тенанта учитываются под null.
+     */
+    public int countByTenant(String tenant) {
+        return byTenant.getOrDefault(tenant, 0);
+    }
+
+    /**
+     * Пары ключей лимитов, у которых есть задачи в очереди.
+     */
+    public Set<LimitKeys> limitKeys() {
+        return Collections.unmodifiableSet(byKeys.keySet());
+    }
+
+    public int countByKeys(LimitKeys keys) {
+        return byKeys.getOrDefault(keys, 0);
+    }
+
+    /**
+     * Индексировать задачи по паре ключей лимитов (около 60 байт на задачу), чтобы
+     * {@link #withKeys} не обходил задачи занятых пар.
+     */
+    public void indexKeys() {
+        if (idsByKeys != null) {
+            return;
+        }
+        idsByKeys = new HashMap<>();
+        byId.values().forEach(this::index);
+    }
+
+    /**
+     * Задачи пар, прошедших {@code allowed}, в порядке обхода очереди; {@code allowed} вызывается
+     * один раз на пару. С индексом занятые пары не обходятся вовсе, а порядок добавления сохраняется
+     * слиянием пар; у упорядоченных очередей индекса нет, и задачи фильтруются при обходе.
+     */
+    public Iterable<Task> withKeys(Predicate<LimitKeys> allowed) {
+        var pass = new HashMap<LimitKeys, Boolean>();
+        Predicate<LimitKeys> once = keys -> pass.computeIfAbsent(keys, allowed::test);
+        if (idsByKeys == null || isOrdered()) {
+            return () -> stream().filter(t -> once.test(LimitKeys.of(t))).iterator();
+        }
+        return () -> mergedIds(idsByKeys.entrySet().stream()
+                .filter(e -> once.test(e.getKey()))
+                .map(e -> e.getValue().entrySet().iterator())
+                .toList());
+    }
+
+    /* слияние пар по номеру добавления: внутри пары номера уже возрастают */
+    private Iterator<Task> mergedIds(List<Iterator<Map.Entry<String, Long>>> groups) {
+        record Head(Map.Entry<String, Long> entry, Iterator<Map.Entry<String, Long>> rest) {
+        }
+        var heads = new PriorityQueue<Head>(Math.max(1, groups.size()),
+                Comparator.comparingLong(h -> h.entry().getValue()));
+        groups.stream().filter(Iterator::hasNext).forEach(it -> heads.add(new Head(it.next(), it)));
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                var head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new Head(head.rest().next(), head.rest()));
+                }
+                return byId.get(head.entry().getKey());
+            }
+        };
+    }
+
+    /**
+     * Оценка памяти, занятой задачами очереди (байты).
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Заменить задачу копией со слитыми атрибутами, не меняя её места в очереди.
+     * Прежний экземпляр не меняется: актуальная задача — {@link #get(String)}.
+     *
+     * @return false, если задачи с таким id нет
+     */
+    public boolean updateAttributes(String workflowId, Map<String, Object> attributes) {
+        return updateAttributes(workflowId, attributes, UnaryOperator.identity());
+    }
+
+    /**
+     * То же, но копия проходит через {@code compact} до пересчёта памяти и хуков:
+     * слияние копирует атрибуты в HashMap, и уплотнение (см. {@link TaskCompactor}) иначе теряется.
+     */
+    public boolean updateAttributes(String workflowId, Map<String, Object> attributes, UnaryOperator<Task> compact) {
+        var old = byId.get(workflowId);
+        if (old == null) {
+            return false;
+        }
+        var task = compact.apply(old.withAttributes(attributes));
+        unaccount(old);
+        onRemoved(old);
+        byId.put(workflowId, task);   // замена значения не двигает ключ в LinkedHashMap
+        account(task);
+        // с прежней парой ключей задача сохраняет место в индексе, с новой — встаёт в конец пары
+        var keys = LimitKeys.of(old);
+        if (!keys.equals(LimitKeys.of(task))) {
+            unindex(keys, workflowId);
+            index(task);
+        }
+        onAdded(task);
+        return true;
+    }
+
+    /**
+     * Выполнить {@code action} и вернуть задачи, которые он удалил из очереди, —
+     * например, сброшенные preprocess-ом стратегии по дедлайну.
+     */
+    public List<Task> removedDuring(Runnable action) {
+        var log = new ArrayList<Task>();
+        removedLog = log;
+        try {
+            action.run();
+        } finally {
+            removedLog = null;
+        }
+        return log;
+    }
+
+    /**
+     * Обход идёт в порядке стратегии (лучшие первыми), а не FIFO:
+     * тогда выбор может взять первые подходящие задачи без сравнений.
+     */
+    public boolean isOrdered() {
+        return false;
+    }
+
+    /* ---- хуки для упорядоченных очередей; вызываются после изменения индекса ---- */
+
+    protected void onAdded(Task task) {
+    }
+
+    protected void onRemoved(Task task) {
+    }
+
+    /* ---- учёт по тенантам и памяти ---- */
+
+    private void added(Task task) {
+        account(task);
+        index(task);
+        onAdded(task);
+    }
+
+    private void account(Task task) {
+        byTenant.merge(task.tenantId(), 1, Integer::sum);
+        byKeys.merge(LimitKeys.of(task), 1, Integer::sum);
+        bytes += LoadShedder.estimateBytes(task);
+    }
+
+    private void index(Task task) {
+        if (idsByKeys != null) {
+            idsByKeys.computeIfAbsent(LimitKeys.of(task), k -> new LinkedHashMap<>()).put(task.getWorkflowId(), seq++);
+        }
+    }
+
+    private void removed(Task task) {
+        unaccount(task);
+        unindex(LimitKeys.of(task), task.getWorkflowId());
+        if (removedLog != null) {
+            removedLog.add(task);
+        }
+        onRemoved(task);
+    }
+
+    private void unaccount(Task task) {
+        byTenant.computeIfPresent(task.tenantId(), (t, n) -> n > 1 ? n - 1 : null);
+        byKeys.computeIfPresent(LimitKeys.of(task), (k, n) -> n > 1 ? n - 1 : null);
+        bytes -= LoadShedder.estimateBytes(task);
+    }
+
+    private void unindex(LimitKeys keys, String workflowId) {
+        if (idsByKeys == null) {
+            return;
+        }
+        var ids = idsByKeys.get(keys);
+        if (ids != null && ids.remove(workflowId) != null && ids.isEmpty()) {
+            idsByKeys.remove(keys);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Сводка по вытесненным на диск сегментам: сами задачи лежат у OverflowActivity,
+ * в воркфлоу остаются id задач, размер сегмента и «голова» — лучшая задача сегмента без payload-а.
+ * По голове выбирается, какой сегмент подгрузить первым.
+ * Отмены и обновления атрибутов вытесненных задач копятся здесь и применяются при загрузке.
+ * <p>
+ * Через continue-as-new переносятся только сводки сегментов ({@link Summary}) без id задач:
+ * такие сегменты непрозрачны до загрузки. Пока они есть, отмены и обновления неизвестных id
+ * запоминаются для всех сегментов, {@link #containsId} их задач не видит,
+ * а {@link #size} и {@link #countByTenant} считают их по сводке, без учёта отмен.
+ */
+public class SpilledSegments {
+
+    private final Map<String, Segment> segments = new LinkedHashMap<>();
+    private final Map<String, Segment> byTaskId = new HashMap<>();
+    private final Map<String, Map<String, Object>> updates = new HashMap<>();
+    private final Map<String, String> tenants = new HashMap<>();
+    private final Map<String, Integer> byTenant = new HashMap<>();
+    private final Map<String, String> payloadRefs = new HashMap<>();   // только claim-check задачи
+    private final Map<String, Summary> opaque = new HashMap<>();   // сегменты прошлого запуска по id
+    private final Set<String> canceledUnknown = new HashSet<>();   // отмены задач непрозрачных сегментов
+    private int opaqueSize;
+
+    /**
+     * @param location очередь воркера, на диске которого лежит сегмент; null — общая dispatch-очередь
+     * @param canceled отменённые задачи сегмента; при загрузке отбрасываются
+     */
+    public record Segment(String id, String location, Task head, List<String> taskIds, Set<String> canceled) {
+    }
+
+    /**
+     * Сегмент для continue-as-new: без id задач, с числом живых задач и их тенантами
+     * (задачи без тенанта — под ключом {@link #NO_TENANT}).
+     */
+    public record Summary(String id, String location, Task head, int size, Map<String, Integer> tenants) {
+    }
+
+    public static final String NO_TENANT = "";
+
+    public Segment add(String segmentId, List<Task> tasks, Comparator<Task> order) {
+        return add(segmentId, null, tasks, order);
+    }
+
+    /**
+     * Запомнить сегмент; {@code order} — порядок стратегии (&lt; 0 — первая лучше).
+     */
+    public Segment add(String segmentId, String location, List<Task> tasks, Comparator<Task> order) {
+        var best = tasks.stream().min(order).orElseThrow();
+        var head = Task.builder()
+                .workflowType(best.getWorkflowType())
+                .workflowId(best.getWorkflowId())
+                .attributes(best.getAttributes())
+                .build();
+        var segment = new Segment(segmentId, location, head,
+                tasks.stream().map(Task::getWorkflowId).toList(), new HashSet<>());
+        segments.put(segmentId, segment);
+        for (var t : tasks) {
+            byTaskId.put(t.getWorkflowId(), segment);
+            tenants.put(t.getWorkflowId(), t.tenantId());
+            byTenant.merge(t.tenantId(), 1, Integer::sum);
+            if (t.getPayloadRef() != null) {
+                payloadRefs.put(t.getWorkflowId(), t.getPayloadRef());
+            }
+        }
+        return segment;
+    }
+
+    public boolean containsId(String workflowId) {
+        return byTaskId.containsKey(workflowId);
+    }
+
+    /**
+     * Claim-check ссылка вытесненной задачи или null: при отмене её payload надо удалить.
+     */
+    public String payloadRef(String workflowId) {
+        return payloadRefs.get(workflowId);
+    }
+
+    /**
+     * @return false, если задача не вытеснена
+     */
+    public boolean cancel(String workflowId) {
+        var segment = byTaskId.remove(workflowId);
+        if (segment == null) {
+            // задача может лежать в сегменте прошлого запуска: отбросим её при загрузке
+            if (!opaque.isEmpty()) {
+                canceledUnknown.add(workflowId);
+                updates.remove(workflowId);
+            }
+            return false;
+        }
+        segment.canceled().add(workflowId);
+        updates.remove(workflowId);
+        untrack(workflowId);
+        return true;
+    }
+
+    /**
+     * @return false, если задача не вытеснена; пока есть непрозрачные сегменты — true для любого id
+     */
+    public boolean updateAttributes(String workflowId, Map<String, Object> attributes) {
+        if (!containsId(workflowId) && (opaque.isEmpty() || canceledUnknown.contains(workflowId))) {
+            return false;
+        }
+        updates.computeIfAbsent(workflowId, id -> new HashMap<>()).putAll(attributes);
+        return true;
+    }
+
+    /**
+     * Сегмент с лучшей головой или null, если вытесненных задач нет.
+     */
+    public Segment best(Comparator<Task> order) {
+        return best(order, s -> true);
+    }
+
+    /**
+     * Лучший сегмент среди {@code available} (например, без недоступных хостов) или null.
+     */
+    public Segment best(Comparator<Task> order, Predicate<Segment> available) {
+        return segments.values().stream()
+                .filter(available)
+                .min(Comparator.comparing(Segment::head, order))
+                .orElse(null);
+    }
+
+    /**
+     * Забыть сегмент и вернуть его задачи без отменённых, с накопленными обновлениями атрибутов.
+     */
+    public List<Task> restore(Segment segment, List<Task> loaded) {
+        return restore(segment, loaded, t -> {
+        });
+    }
+
+    /**
+     * То же; {@code canceled} получает задачи непрозрачного сегмента, отменённые до загрузки, —
+     * их payload до этого момента был неизвестен.
+     */
+    public List<Task> restore(Segment segment, List<Task> loaded, Consumer<Task> canceled) {
+        segments.remove(segment.id());
+        var summary = opaque.remove(segment.id());
+        if (summary != null) {
+            return restoreOpaque(summary, loaded, canceled);
+        }
+        var tasks = new ArrayList<Task>(loaded.size());
+        for (var t : loaded) {
+            // отменённую задачу могли прислать заново — тогда id уже за другим сегментом или в очереди
+            if (segment.canceled().contains(t.getWorkflowId()) || !byTaskId.remove(t.getWorkflowId(), segment)) {
+                continue;
+            }
+            untrack(t.getWorkflowId());
+            var pending = updates.remove(t.getWorkflowId());
+            if (pending != null) {
+                t.mergeAttributes(pending);
+            }
+            tasks.add(t);
+        }
+        for (var id : segment.taskIds()) {
+            if (byTaskId.remove(id, segment)) {
+                untrack(id);
+            }
+        }
+        return tasks;
+    }
+
+    private List<Task> restoreOpaque(Summary summary, List<Task> loaded, Consumer<Task> canceled) {
+        opaqueSize -= summary.size();
+        summary.tenants().forEach((tenant, n) -> uncount(tenantOf(tenant), n));
+        var tasks = new ArrayList<Task>(loaded.size());
+        for (var t : loaded) {
+            if (canceledUnknown.remove(t.getWorkflowId())) {
+                canceled.accept(t);
+                continue;
+            }
+            var pending = updates.remove(t.getWorkflowId());
+            if (pending != null) {
+                t.mergeAttributes(pending);
+            }
+            tasks.add(t);
+        }
+        if (opaque.isEmpty()) {
+            // отмены и обновления id, которых не нашлось ни в одном сегменте, больше не нужны
+            canceledUnknown.clear();
+            updates.keySet().retainAll(byTaskId.keySet());
+        }
+        return tasks;
+    }
+
+    /**
+     * Сводки всех сегментов для continue-as-new.
+     */
+    public List<Summary> summaries() {
+        var live = new HashMap<String, Integer>();
+        var tenantsBySegment = new HashMap<String, Map<String, Integer>>();
+        byTaskId.forEach((id, segment) -> {
+            live.merge(segment.id(), 1, Integer::sum);
+            tenantsBySegment.computeIfAbsent(segment.id(), s -> new HashMap<>())
+                    .merge(tenantKey(tenants.get(id)), 1, Integer::sum);
+        });
+        return segments.values().stream()
+                .map(s -> opaque.containsKey(s.id())
+                        ? opaque.get(s.id())
+                        : new Summary(s.id(), s.location(), s.head(), live.getOrDefault(s.id(), 0),
+                                tenantsBySegment.getOrDefault(s.id(), Map.of())))
+                .toList();
+    }
+
+    /**
+     * Отменённые, но ещё не загруженные задачи: новый запуск отбросит их при загрузке.
+     */
+    public Set<String> pendingCancels() {
+        var canceled = new HashSet<>(canceledUnknown);
+        segments.values().forEach(s -> canceled.addAll(s.canceled()));
+        return canceled;
+    }
+
+    /**
+     * Накопленные обновления атрибутов ещё не загруженных задач.
+     */
+    public Map<String, Map<String, Object>> pendingUpdates() {
+        return new HashMap<>(updates);
+    }
+
+    /**
+     * Принять сегменты прошлого запуска из {@link #summaries()} вместе с его отменами и обновлениями.
+     */
+    public void restoreSummaries(List<Summary> summaries,
+                                 Set<String> canceled,
+                                 Map<String, Map<String, Object>> pendingUpdates) {
+        for (var summary : summaries) {
+            segments.put(summary.id(), new Segment(summary.id(), summary.location(), summary.head(),
+                    List.of(), new HashSet<>()));
+            opaque.put(summary.id(), summary);
+            opaqueSize += summary.size();
+            summary.tenants().forEach((tenant, n) -> byTenant.merge(tenantOf(tenant), n, Integer::sum));
+        }
+        if (!opaque.isEmpty()) {
+            canceledUnknown.addAll(canceled);
+            updates.putAll(pendingUpdates);
+        }
+    }
+
+    /**
+     * Число вытесненных задач тенанта (по тенанту на момент вытеснения): O(1).
+     */
+    public int countByTenant(String tenant) {
+        return byTenant.getOrDefault(tenant, 0);
+    }
+
+    /**
+     * Число вытесненных задач без отменённых.
+     */
+    public int size() {
+        return byTaskId.size() + opaqueSize;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    private void untrack(String workflowId) {
+        payloadRefs.remove(workflowId);
+        uncount(tenants.remove(workflowId), 1);
+    }
+
+    private void uncount(String tenant, int n) {
+        byTenant.computeIfPresent(tenant, (t, count) -> count > n ? count - n : null);
+    }
+
+    /* в JSON у ключа карты не бывает null */
+    private static String tenantKey(String tenant) {
+        return tenant != null ? tenant : NO_TENANT;
+    }
+
+    private static String tenantOf(String key) {
+        return NO_TENANT.equals(key) ? null : key;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Stride scheduling по ключам (тенантам): у ключа есть проход (pass), каждая отправка сдвигает его
+ * на {@code cost / weight}, следующим обслуживается активный ключ с наименьшим проходом.
+ * Доли получаются точными по числу (или заявленной стоимости) отправок, а не по usage задним числом.
+ * Активные ключи — в упорядоченном множестве: выбор и перестановка — O(log n).
+ * При равных проходах первым идёт меньший ключ, так что порядок детерминирован.
+ * Вернувшийся после простоя ключ начинает с текущего виртуального времени и не копит «кредит».
+ */
+public class StridePasses {
+
+    private final Map<String, Double> pass = new HashMap<>();
+    private final TreeSet<String> active = new TreeSet<>(
+            Comparator.<String>comparingDouble(pass::get).thenComparing(Comparator.naturalOrder()));
+    private ToDoubleFunction<String> weights;
+    private double virtualTime;   // проход последнего обслуженного ключа до сдвига
+
+    public StridePasses(ToDoubleFunction<String> weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Новые веса действуют на следующие отправки; накопленные проходы не пересчитываются.
+     */
+    public void setWeights(ToDoubleFunction<String> weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Проход ключа; у неактивного — с учётом простоя, не меньше виртуального времени.
+     */
+    public double pass(String key) {
+        var p = pass.getOrDefault(key, 0.0);
+        return isActive(key) ? p : Math.max(p, virtualTime);
+    }
+
+    public double stride(String key) {
+        var w = weights.applyAsDouble(key);
+        return 1.0 / (w > 0 ? w : 1.0);
+    }
+
+    public void activate(String key) {
+        if (!isActive(key)) {
+            pass.put(key, pass(key));
+            active.add(key);
+        }
+    }
+
+    public void deactivate(String key) {
+        if (isActive(key)) {
+            active.remove(key);
+        }
+    }
+
+    /* компаратор множества читает проход, поэтому ключ без прохода в нём искать нельзя */
+    public boolean isActive(String key) {
+        return pass.containsKey(key) && active.contains(key);
+    }
+
+    /**
+     * Активный ключ с наименьшим проходом или null.
+     */
+    public String first() {
+        return active.isEmpty() ? null : active.first();
+    }
+
+    /**
+     * Следующий за {@code after} активный ключ по возрастанию прохода (null — первый): O(log n).
+     * Не ломается, если множество меняется между вызовами.
+     */
+    public String next(String after) {
+        return after == null ? first() : active.higher(after);
+    }
+
+    /**
+     * Учесть отправку стоимостью {@code cost}: O(log n).
+     */
+    public void charge(String key, double cost) {
+        var wasActive = isActive(key) && active.remove(key);
+        var current = wasActive ? pass.get(key) : pass(key);
+        virtualTime = current;
+        pass.put(key, current + cost * stride(key));
+        if (wasActive) {
+            active.add(key);
+        }
+    }
+
+    public Map<String, Object> exportState() {
+        return Map.of("passes", new HashMap<>(pass), "virtualTime", virtualTime);
+    }
+
+    public void importState(Map<String, Object> state) {
+        // активные ключи переставляем: их позиция зависит от прохода
+        var keys = new ArrayList<>(active);
+        active.clear();
+        if (state.get("passes") instanceof Map<?, ?> m) {
+            m.forEach((k, v) -> {
+                if (k instanceof String key && v instanceof Number n) {
+                    pass.put(key, n.doubleValue());
+                }
+            });
+        }
+        if (state.get("virtualTime") instanceof Number vt) {
+            virtualTime = vt.doubleValue();
+        }
+        keys.forEach(this::activate);
+    }
+}
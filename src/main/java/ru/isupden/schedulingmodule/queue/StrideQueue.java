@@ -0,0 +1,147 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Ready-очередь stride scheduling: FIFO на ключ (тенанта), ключи упорядочены по проходу в {@link StridePasses}.
+ * Добавление и удаление — O(1) (+ O(log n), когда ключ становится активным или пустеет).
+ * Обход сливает ключи так, как их обслуживала бы череда отправок: каждая выданная задача
+ * сдвигает проход своего ключа на стоимость задачи, сами проходы при этом не меняются.
+ * Каждая выданная задача стоит O(log n) — на пачку из k задач не нужен обход всех ключей.
+ */
+public class StrideQueue extends ReadyQueue {
+
+    private final StridePasses passes;
+    private final Function<Task, String> keyOf;
+    private final ToDoubleFunction<Task> costOf;
+    private final Map<String, Map<String, Task>> byKey = new HashMap<>();
+
+    public StrideQueue(StridePasses passes, Function<Task, String> keyOf, ToDoubleFunction<Task> costOf) {
+        this.passes = passes;
+        this.keyOf = keyOf;
+        this.costOf = costOf;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public Task peek() {
+        var it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        byKey.keySet().forEach(passes::deactivate);
+        byKey.clear();
+    }
+
+    public int keySize(String key) {
+        var tasks = byKey.get(key);
+        return tasks != null ? tasks.size() : 0;
+    }
+
+    private static final class Cursor {
+        final String key;
+        final Iterator<Task> tasks;
+        double pass;
+
+        Cursor(String key, Iterator<Task> tasks, double pass) {
+            this.key = key;
+            this.tasks = tasks;
+            this.pass = pass;
+        }
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        // ключи, из которых уже брали задачи, — в локальной куче с «виртуальными» проходами
+        var touched = new PriorityQueue<Cursor>(
+                Comparator.<Cursor>comparingDouble(c -> c.pass).thenComparing(c -> c.key));
+        return new Iterator<>() {
+            private String pending = passes.next(null);
+            private Cursor current;
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return pending != null || !touched.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var head = touched.peek();
+                if (head != null && (pending == null || before(head, pending))) {
+                    current = touched.poll();
+                } else {
+                    current = new Cursor(pending, byKey.get(pending).values().iterator(), passes.pass(pending));
+                    pending = passes.next(pending);
+                }
+                last = current.tasks.next();
+                current.pass += costOf.applyAsDouble(last) * passes.stride(current.key);
+                if (current.tasks.hasNext()) {
+                    touched.add(current);
+                }
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                current.tasks.remove();
+                // ключ уже без задачи — хук onRemoved её не тронет
+                removeById(last.getWorkflowId());
+                last = null;
+            }
+
+            private boolean before(Cursor c, String key) {
+                var p = passes.pass(key);
+                return c.pass < p || (c.pass == p && c.key.compareTo(key) < 0);
+            }
+        };
+    }
+
+    /* ---- ключи ---- */
+
+    @Override
+    protected void onAdded(Task task) {
+        var key = keyOf.apply(task);
+        byKey.computeIfAbsent(key, k -> {
+            passes.activate(k);
+            return new LinkedHashMap<>();
+        }).put(task.getWorkflowId(), task);
+    }
+
+    @Override
+    protected void onRemoved(Task task) {
+        var key = keyOf.apply(task);
+        var tasks = byKey.get(key);
+        if (tasks == null) {
+            return;
+        }
+        tasks.remove(task.getWorkflowId());
+        if (tasks.isEmpty()) {
+            byKey.remove(key);
+            passes.deactivate(key);
+        }
+    }
+}
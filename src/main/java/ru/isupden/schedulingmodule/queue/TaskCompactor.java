@@ -0,0 +1,107 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Строит из задачи её уплотнённую неизменяемую копию ({@link QueuedTask}) для очереди scheduler-а,
+ * где задач могут быть миллионы; исходная задача не меняется:
+ * <ul>
+ *   <li>workflowType и tenantId берутся из общего пула строк (свой на воркфлоу, не String.intern);
+ *       пул ограничен {@code maxStrings} — дальше строки хранятся как пришли;</li>
+ *   <li>временные атрибуты (deadline, notBefore, enqueuedAt) хранятся как epoch millis —
+ *       после JSON это строки, которые иначе разбирались бы при каждом сравнении;</li>
+ *   <li>карты заменяются неизменяемыми копиями (массив вместо HashMap.Node на запись).</li>
+ * </ul>
+ * Карты с null-ключами или значениями Map.copyOf не принимает — они оборачиваются в unmodifiableMap.
+ */
+public class TaskCompactor {
+
+    static final Set<String> TIME_ATTRIBUTES = Set.of("deadline", DelayedTasks.NOT_BEFORE, "enqueuedAt");
+    static final int DEFAULT_MAX_STRINGS = 10_000;
+    private static final String TENANT_ID = "tenantId";
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final int maxStrings;
+
+    public TaskCompactor() {
+        this(DEFAULT_MAX_STRINGS);
+    }
+
+    /**
+     * @param maxStrings предел пула строк: типов и тенантов обычно десятки, а произвольные
+     *                   значения из сигналов не должны раздувать пул на всё время жизни воркфлоу
+     */
+    public TaskCompactor(int maxStrings) {
+        this.maxStrings = maxStrings;
+    }
+
+    /**
+     * Уплотнённая копия задачи; уже уплотнённая возвращается как есть.
+     */
+    public QueuedTask compact(Task task) {
+        if (task instanceof QueuedTask queued) {
+            return queued;
+        }
+        return new QueuedTask(
+                intern(task.getWorkflowType()),
+                task.getWorkflowId(),
+                compact(task.getPayload(), false),
+                compact(task.getAttributes(), true),
+                task.getPayloadRef());
+    }
+
+    public String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        var pooled = strings.get(s);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (strings.size() < maxStrings) {
+            strings.put(s, s);
+        }
+        return s;
+    }
+
+    /**
+     * Число строк в пуле (типы и тенанты).
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    private Map<String, Object> compact(Map<String, Object> map, boolean attributes) {
+        if (map == null || map.isEmpty()) {
+            return Map.of();
+        }
+        var hasNulls = false;
+        var copy = new HashMap<String, Object>(map.size());
+        for (var e : map.entrySet()) {
+            var value = e.getValue();
+            if (e.getKey() == null || value == null) {
+                hasNulls = true;
+            } else if (TENANT_ID.equals(e.getKey()) && value instanceof String s) {
+                value = intern(s);
+            } else if (attributes && TIME_ATTRIBUTES.contains(e.getKey())) {
+                value = epochMillis(value);
+            }
+            copy.put(e.getKey(), value);
+        }
+        return hasNulls ? Collections.unmodifiableMap(copy) : Map.copyOf(copy);
+    }
+
+    /* нераспознанное значение оставляем: instantAttr вернёт для него null, как и раньше */
+    private static Object epochMillis(Object value) {
+        if (value instanceof Long) {
+            return value;
+        }
+        var instant = Task.toInstant(value);
+        return instant != null ? instant.toEpochMilli() : value;
+    }
+}
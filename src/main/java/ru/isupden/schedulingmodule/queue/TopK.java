@@ -0,0 +1,56 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+/**
+ * Частичный выбор k лучших задач за один проход: куча размера k, O(n log k).
+ * При равенстве выигрывает задача, встретившаяся раньше (FIFO внутри равных).
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    private record Entry(Task task, long seq) {
+    }
+
+    /**
+     * k лучших задач из подходящих под {@code filter}, от лучшей к худшей
+     * ({@code order}: &lt; 0 — первая лучше).
+     */
+    public static List<Task> best(Iterable<Task> tasks, Predicate<Task> filter, int k, Comparator<Task> order) {
+        if (k <= 0) {
+            return List.of();
+        }
+        Comparator<Entry> byRank = (a, b) -> {
+            var c = order.compare(a.task(), b.task());
+            return c != 0 ? c : Long.compare(a.seq(), b.seq());
+        };
+        // корень — худшая из отобранных, её и вытесняем
+        var heap = new PriorityQueue<Entry>(k, byRank.reversed());
+        var seq = 0L;
+        for (var t : tasks) {
+            if (!filter.test(t)) {
+                continue;
+            }
+            var e = new Entry(t, seq++);
+            if (heap.size() < k) {
+                heap.add(e);
+            } else if (byRank.compare(e, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(e);
+            }
+        }
+        var result = new ArrayList<Task>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().task());
+        }
+        return result.reversed();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+
+public interface CompletionAwareStrategy extends SchedulingStrategy {
+    /**
+     * Задача, запущенная планировщиком, завершилась (из reportCompletions).
+     */
+    void onCompletion(TaskCompletion completion, Instant at);
+
+    /**
+     * Без отчётов о завершении стратегия принимала бы необратимые решения по оценкам по умолчанию
+     * (например, удаляла задачи): такая конфигурация отклоняется при старте и в updateConfig.
+     */
+    default boolean requiresCompletions() {
+        return false;
+    }
+}
@@ -2,12 +2,23 @@ package ru.isupden.schedulingmodule.strategy;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
 
+/**
+ * Цепочка стратегий: следующее звено сравнивает задачи, равные для предыдущих.
+ * Очередь и уровни — от первого звена, если его очередь — часть политики
+ * ({@link QueueProvidingStrategy#requiresOwnQueue()}, MLFQ); тогда dispatch идёт в порядке этой очереди,
+ * а остальные звенья участвуют только в сравнении (сброс, spill). Иначе очередь обычная и выбор —
+ * по compare всей цепочки.
+ */
 public class CompositeSchedulingStrategy
-        implements SchedulingStrategy, UsageAwareStrategy {
+        implements SchedulingStrategy, UsageAwareStrategy, CompletionAwareStrategy, DeadlineRiskStrategy,
+        QuotaAwareStrategy, QueueProvidingStrategy, LevelledStrategy {
 
     private final List<SchedulingStrategy> chain;
 
@@ -48,6 +59,53 @@ public class CompositeSchedulingStrategy
         chain.forEach(SchedulingStrategy::onShutdown);
     }
 
+    @Override
+    public boolean isDispatchOrderSensitive() {
+        return chain.stream().anyMatch(SchedulingStrategy::isDispatchOrderSensitive);
+    }
+
+    /* ---- state: по элементу на звено цепочки ---- */
+    @Override
+    public Map<String, Object> exportState() {
+        return Map.of("chain", chain.stream().map(SchedulingStrategy::exportState).toList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void importState(Map<String, Object> state) {
+        if (!(state.get("chain") instanceof List<?> states)) {
+            return;
+        }
+        for (var i = 0; i < Math.min(states.size(), chain.size()); i++) {
+            if (states.get(i) instanceof Map<?, ?> s) {
+                chain.get(i).importState((Map<String, Object>) s);
+            }
+        }
+    }
+
+    /* ---- очередь и уровни: от первого звена ---- */
+    @Override
+    public ReadyQueue createQueue() {
+        return chain.getFirst() instanceof QueueProvidingStrategy q && q.requiresOwnQueue()
+                ? q.createQueue()
+                : new ReadyQueue();
+    }
+
+    @Override
+    public int levelOf(Task task, Instant now) {
+        return chain.getFirst() instanceof LevelledStrategy l ? l.levelOf(task, now) : 0;
+    }
+
+    @Override
+    public int servedLevel(Task task, Instant at) {
+        return chain.getFirst() instanceof LevelledStrategy l ? l.servedLevel(task, at) : 0;
+    }
+
+    @Override
+    public boolean hasLevels() {
+        return chain.getFirst() instanceof LevelledStrategy l && l.hasLevels();
+    }
+
     /* ---- UsageAware ---- */
     @Override
     public void recordUsage(String tenant, double cost, Instant at) {
@@ -56,4 +114,31 @@ public class CompositeSchedulingStrategy
                 .map(UsageAwareStrategy.class::cast)
                 .forEach(c -> c.recordUsage(tenant, cost, at));
     }
+
+    /* ---- QuotaAware ---- */
+    @Override
+    public void updateQuotas(Map<String, Double> quotas, long halfLifeSeconds) {
+        chain.stream()
+                .filter(c -> c instanceof QuotaAwareStrategy)
+                .map(QuotaAwareStrategy.class::cast)
+                .forEach(c -> c.updateQuotas(quotas, halfLifeSeconds));
+    }
+
+    /* ---- CompletionAware ---- */
+    @Override
+    public void onCompletion(TaskCompletion completion, Instant at) {
+        chain.stream()
+                .filter(c -> c instanceof CompletionAwareStrategy)
+                .map(CompletionAwareStrategy.class::cast)
+                .forEach(c -> c.onCompletion(completion, at));
+    }
+
+    /* ---- DeadlineRisk ---- */
+    @Override
+    public boolean isHopeless(Task task, Instant now) {
+        return chain.stream()
+                .filter(c -> c instanceof DeadlineRiskStrategy)
+                .map(DeadlineRiskStrategy.class::cast)
+                .anyMatch(c -> c.isHopeless(task, now));
+    }
 }
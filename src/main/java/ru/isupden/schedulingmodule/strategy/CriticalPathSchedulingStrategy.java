@@ -1,10 +1,12 @@
 package ru.isupden.schedulingmodule.strategy;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import ru.isupden.schedulingmodule.model.Task;
 
@@ -17,9 +19,10 @@ import ru.isupden.schedulingmodule.model.Task;
 public class CriticalPathSchedulingStrategy implements SchedulingStrategy {
 
     /**
-     * ID уже dispatch-нутых задач (не обязательно завершённых)
+     * ID уже dispatch-нутых задач (не обязательно завершённых).
+     * Экземпляр принадлежит одному воркфлоу, поэтому синхронизация не нужна.
      */
-    private final Set<String> dispatched = ConcurrentHashMap.newKeySet();
+    private final Set<String> dispatched = new HashSet<>();
 
     /* ---------- core ---------- */
 
@@ -61,4 +64,24 @@ public class CriticalPathSchedulingStrategy implements SchedulingStrategy {
     public void onDispatch(Task t, Instant at) {
         dispatched.add(t.getWorkflowId());      // помечаем как «выданную»
     }
+
+    /* отправка задачи может сделать готовыми её зависимые */
+    @Override
+    public boolean isDispatchOrderSensitive() {
+        return true;
+    }
+
+    /* ---------- state ---------- */
+
+    @Override
+    public Map<String, Object> exportState() {
+        return Map.of("dispatched", new ArrayList<>(dispatched));
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        if (state.get("dispatched") instanceof List<?> ids) {
+            ids.forEach(id -> dispatched.add(String.valueOf(id)));
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+public interface DeadlineRiskStrategy extends SchedulingStrategy {
+    /**
+     * Задача уже не успеет к дедлайну, даже если уйдёт прямо сейчас.
+     */
+    boolean isHopeless(Task task, Instant now);
+}
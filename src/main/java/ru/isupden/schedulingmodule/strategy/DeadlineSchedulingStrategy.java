@@ -1,7 +1,6 @@
 package ru.isupden.schedulingmodule.strategy;
 
 import java.time.Instant;
-import java.time.format.DateTimeParseException;
 import java.util.Queue;
 
 import ru.isupden.schedulingmodule.model.Task;
@@ -26,17 +25,7 @@ public class DeadlineSchedulingStrategy implements SchedulingStrategy {
 
     /* ---------- helper & preprocess ---------- */
     private Instant deadlineOf(Task t) {
-        Object raw = t.getAttributes().get("deadline");
-        if (raw instanceof Instant i) {
-            return i;
-        }
-        if (raw instanceof String s) {
-            try {
-                return Instant.parse(s);
-            } catch (DateTimeParseException ignore) {
-            }
-        }
-        return null;
+        return t.instantAttr("deadline");
     }
 
     @Override
@@ -1,19 +1,22 @@
 package ru.isupden.schedulingmodule.strategy;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
-import lombok.RequiredArgsConstructor;
 import ru.isupden.schedulingmodule.model.Task;
 
 
-@RequiredArgsConstructor
-public class FairnessSchedulingStrategy implements UsageAwareStrategy {
+public class FairnessSchedulingStrategy implements UsageAwareStrategy, QuotaAwareStrategy {
 
-    private final Map<String, Double> quotas;    // tenant↦quota
-    private final double halfLifeSec;
-    private final Map<String, Usage> usage = new ConcurrentHashMap<>();
+    private Map<String, Double> quotas;    // tenant↦quota
+    private double halfLifeSec;
+    private final Map<String, Usage> usage = new HashMap<>();   // свой экземпляр на воркфлоу
+
+    public FairnessSchedulingStrategy(Map<String, Double> quotas, double halfLifeSec) {
+        this.quotas = quotas;
+        this.halfLifeSec = halfLifeSec;
+    }
 
     /* ---- compare ---- */
     @Override
@@ -46,6 +49,32 @@ public class FairnessSchedulingStrategy implements UsageAwareStrategy {
         usage.replaceAll((t, u) -> new Usage(decay(u, ts), ts));
     }
 
+    /* ---- live reconfiguration ---- */
+    @Override
+    public void updateQuotas(Map<String, Double> quotas, long halfLifeSeconds) {
+        this.quotas = Map.copyOf(quotas);
+        this.halfLifeSec = halfLifeSeconds;
+    }
+
+    /* ---- state: tenant ↦ {value, lastMs} ---- */
+    @Override
+    public Map<String, Object> exportState() {
+        var state = new HashMap<String, Object>();
+        usage.forEach((t, u) -> state.put(t, Map.of("value", u.value, "lastMs", u.lastMs)));
+        return state;
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        state.forEach((t, raw) -> {
+            if (raw instanceof Map<?, ?> m
+                    && m.get("value") instanceof Number v
+                    && m.get("lastMs") instanceof Number ts) {
+                usage.put(t, new Usage(v.doubleValue(), ts.longValue()));
+            }
+        });
+    }
+
     /* ---- helpers ---- */
     private double share(String tenant) {
         var u = usage.getOrDefault(tenant, new Usage(0, 0));
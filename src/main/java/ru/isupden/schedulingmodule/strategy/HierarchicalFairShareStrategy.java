@@ -0,0 +1,82 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.Map;
+
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.FairShareTree;
+import ru.isupden.schedulingmodule.queue.HierarchicalStrideQueue;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+
+/**
+ * Иерархический fair share (org → team → tenant): stride scheduling на каждом уровне {@link FairShareTree}.
+ * Доля узла делится между его детьми, поэтому команда с сотней тенантов получает ровно долю команды,
+ * а не сотню долей. Тенанты вне дерева висят на корне с весом из плоских {@code quotas}.
+ * По каждому узлу ведётся свёртка отправленной стоимости и reportUsage — {@link #rollup()}.
+ */
+public class HierarchicalFairShareStrategy
+        implements QueueProvidingStrategy, UsageAwareStrategy, QuotaAwareStrategy {
+
+    private final FairShareTree tree;
+
+    public HierarchicalFairShareStrategy(FairShareTree tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public boolean canCompare(Task a, Task b) {
+        return true;
+    }
+
+    @Override
+    public int compare(Task a, Task b) {
+        return tree.compare(StrideSchedulingStrategy.tenantOf(a), StrideSchedulingStrategy.tenantOf(b));
+    }
+
+    @Override
+    public void onDispatch(Task task, Instant at) {
+        tree.charge(StrideSchedulingStrategy.tenantOf(task), StrideSchedulingStrategy.costOf(task));
+    }
+
+    @Override
+    public void recordUsage(String tenantId, double cost, Instant at) {
+        tree.recordUsage(tenantId, cost);
+    }
+
+    /* отправка сдвигает проходы по пути: без своей очереди (в цепочке) выбираем по одной */
+    @Override
+    public boolean isDispatchOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public ReadyQueue createQueue() {
+        return new HierarchicalStrideQueue(tree,
+                StrideSchedulingStrategy::tenantOf, StrideSchedulingStrategy::costOf);
+    }
+
+    /**
+     * Путь узла ↦ {dispatched, usage} по всему дереву.
+     */
+    public Map<String, Object> rollup() {
+        return tree.rollup();
+    }
+
+    /* ---- live reconfiguration: плоские квоты — веса тенантов вне дерева ---- */
+    @Override
+    public void updateQuotas(Map<String, Double> quotas, long halfLifeSeconds) {
+        var copy = Map.copyOf(quotas);
+        tree.setRootWeights(t -> copy.getOrDefault(t, 1.0));
+    }
+
+    /* ---- state: проходы и свёртка по путям дерева ---- */
+    @Override
+    public Map<String, Object> exportState() {
+        return tree.exportState();
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        tree.importState(state);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+
+/**
+ * Least-laxity-first: первой уходит задача с наименьшим запасом
+ * {@code deadline − now − ожидаемая длительность}. В отличие от EDF длинная задача
+ * с близким дедлайном обгоняет короткую, которая может подождать.
+ * Задачи, которые уже не успеют (до дедлайна осталось меньше {@code hopelessFraction}
+ * от ожидаемой длительности), уходят после всех остальных или, с dropHopeless, удаляются.
+ * Задачи без дедлайна считаются задачами с бесконечным запасом: после успевающих, до безнадёжных,
+ * между собой равны — так порядок транзитивен и для смешанной очереди.
+ * Просроченные задачи удаляются, как в EDF.
+ */
+public class LeastLaxityStrategy implements CompletionAwareStrategy, DeadlineRiskStrategy {
+
+    private final RuntimeEstimator estimator;
+    private final double hopelessFraction;
+    private final boolean dropHopeless;
+    private long nowMs;
+
+    public LeastLaxityStrategy(RuntimeEstimator estimator, double hopelessFraction, boolean dropHopeless) {
+        this.estimator = estimator;
+        this.hopelessFraction = hopelessFraction;
+        this.dropHopeless = dropHopeless;
+    }
+
+    @Override
+    public boolean canCompare(Task a, Task b) {
+        return true;
+    }
+
+    @Override
+    public int compare(Task a, Task b) {
+        var c = Integer.compare(rank(a), rank(b));
+        if (c != 0 || deadlineOf(a) == null) {
+            return c;
+        }
+        return Double.compare(laxityMs(a, nowMs), laxityMs(b, nowMs));
+    }
+
+    @Override
+    public void preprocess(Queue<Task> queue, Instant now) {
+        nowMs = now.toEpochMilli();
+        queue.removeIf(t -> {
+            var dl = deadlineOf(t);
+            return dl != null && (dl.isBefore(now) || dropHopeless && hopeless(t, nowMs));
+        });
+    }
+
+    @Override
+    public boolean isHopeless(Task task, Instant now) {
+        return deadlineOf(task) != null && hopeless(task, now.toEpochMilli());
+    }
+
+    /* с dropHopeless задачи удалялись бы по default-ms, а не по выученной длительности */
+    @Override
+    public boolean requiresCompletions() {
+        return dropHopeless;
+    }
+
+    @Override
+    public void onCompletion(TaskCompletion c, Instant at) {
+        estimator.observe(c.getWorkflowType(), c.getTenantId(), c.getDurationMs());
+    }
+
+    @Override
+    public Map<String, Object> exportState() {
+        return estimator.exportState();
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        estimator.importState(state);
+    }
+
+    /* ---------- helpers ---------- */
+
+    /* успевающие, без дедлайна, безнадёжные — в конец */
+    private int rank(Task t) {
+        if (deadlineOf(t) == null) {
+            return 1;
+        }
+        return hopeless(t, nowMs) ? 2 : 0;
+    }
+
+    double laxityMs(Task t, long atMs) {
+        return deadlineOf(t).toEpochMilli() - atMs - expectedMs(t);
+    }
+
+    private boolean hopeless(Task t, long atMs) {
+        return deadlineOf(t).toEpochMilli() - atMs < hopelessFraction * expectedMs(t);
+    }
+
+    private double expectedMs(Task t) {
+        return estimator.estimateMs(t.getWorkflowType(), t.tenantId());
+    }
+
+    private Instant deadlineOf(Task t) {
+        return t.instantAttr("deadline");
+    }
+}
@@ -0,0 +1,26 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+
+import ru.isupden.schedulingmodule.model.Task;
+
+public interface LevelledStrategy extends SchedulingStrategy {
+    /**
+     * Уровень задачи на момент {@code now} (0 — верхний); по нему scheduler ведёт гистограммы ожидания.
+     */
+    int levelOf(Task task, Instant now);
+
+    /**
+     * Уровень, с которого задачу забрали на dispatch; по умолчанию — её уровень на момент {@code at}.
+     */
+    default int servedLevel(Task task, Instant at) {
+        return levelOf(task, at);
+    }
+
+    /**
+     * Есть ли у стратегии уровни; композиция отвечает за первое звено (см. {@link CompositeSchedulingStrategy}).
+     */
+    default boolean hasLevels() {
+        return true;
+    }
+}
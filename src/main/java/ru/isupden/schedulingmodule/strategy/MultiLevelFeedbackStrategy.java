@@ -0,0 +1,110 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.MultiLevelQueue;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+
+/**
+ * Multi-level feedback queue: задача попадает на уровень своего класса (атрибут {@code class}),
+ * а каждые {@code agingMs} ожидания поднимается на уровень выше — batch-задачи не голодают.
+ * Уровни делят dispatch по долям {@code shares}: верхний не забирает всё, нижний не заливает верхний.
+ * Внутри уровня очереди задачи идут по времени попадания в ready (см. {@link MultiLevelQueue});
+ * сравнение задач (для сброса и spill) — по уровню, затем по тому же времени.
+ */
+public class MultiLevelFeedbackStrategy implements QueueProvidingStrategy, LevelledStrategy {
+
+    private final double[] shares;
+    private final Map<String, Integer> classes;
+    private final String classAttribute;
+    private final int defaultLevel;
+    private final long agingMs;
+    private MultiLevelQueue queue;
+    private long nowMs;
+
+    public MultiLevelFeedbackStrategy(List<Double> shares,
+                                      Map<String, Integer> classes,
+                                      String classAttribute,
+                                      int defaultLevel,
+                                      long agingMs) {
+        if (shares.isEmpty()) {
+            throw new IllegalArgumentException("At least one level share is required");
+        }
+        this.shares = shares.stream().mapToDouble(Double::doubleValue).toArray();
+        this.classes = Map.copyOf(classes);
+        this.classAttribute = classAttribute;
+        this.defaultLevel = defaultLevel;
+        this.agingMs = agingMs;
+    }
+
+    @Override
+    public boolean canCompare(Task a, Task b) {
+        return true;
+    }
+
+    @Override
+    public int compare(Task a, Task b) {
+        var c = Integer.compare(levelAt(a, nowMs), levelAt(b, nowMs));
+        return c != 0 ? c : Long.compare(enqueuedAt(a), enqueuedAt(b));
+    }
+
+    /* ожидание считается от now последнего preprocess — одинаково для всего выбора */
+    @Override
+    public void preprocess(Queue<Task> q, Instant now) {
+        nowMs = now.toEpochMilli();
+        if (queue != null) {
+            queue.promote();
+        }
+    }
+
+    @Override
+    public void onDispatch(Task task, Instant at) {
+        if (queue != null) {
+            queue.served(task);
+        }
+    }
+
+    @Override
+    public int levelOf(Task task, Instant now) {
+        return levelAt(task, now.toEpochMilli());
+    }
+
+    @Override
+    public int servedLevel(Task task, Instant at) {
+        var level = queue != null ? queue.servedLevel(task.getWorkflowId()) : -1;
+        return level >= 0 ? level : levelOf(task, at);
+    }
+
+    @Override
+    public boolean requiresOwnQueue() {
+        return true;
+    }
+
+    @Override
+    public ReadyQueue createQueue() {
+        queue = new MultiLevelQueue(shares, t -> levelAt(t, nowMs), MultiLevelFeedbackStrategy::enqueuedAt);
+        return queue;
+    }
+
+    /* уровень класса минус число полных периодов aging-а, прошедших в очереди */
+    int levelAt(Task t, long atMs) {
+        var cls = t.attr(classAttribute, String.class);
+        var base = cls != null ? classes.getOrDefault(cls, defaultLevel) : defaultLevel;
+        var level = Math.max(0, Math.min(shares.length - 1, base));
+        var enqueued = t.instantAttr(ShortestExpectedJobStrategy.ENQUEUED_AT);
+        if (agingMs > 0 && enqueued != null) {
+            var waitMs = Math.max(0, atMs - enqueued.toEpochMilli());
+            level -= (int) Math.min(level, waitMs / agingMs);
+        }
+        return level;
+    }
+
+    private static long enqueuedAt(Task t) {
+        var at = t.instantAttr(ShortestExpectedJobStrategy.ENQUEUED_AT);
+        return at != null ? at.toEpochMilli() : Long.MAX_VALUE;
+    }
+}
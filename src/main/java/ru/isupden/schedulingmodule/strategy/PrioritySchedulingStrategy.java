@@ -1,11 +1,26 @@
 package ru.isupden.schedulingmodule.strategy;
 
 import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.PriorityBucketQueue;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
 
 /**
  * Picks the task with highest priority value.
+ * Очередь — корзины по приоритету (см. {@link PriorityBucketQueue}), поэтому выбор не сравнивает задачи.
  */
-public class PrioritySchedulingStrategy implements SchedulingStrategy {
+public class PrioritySchedulingStrategy implements QueueProvidingStrategy {
+
+    private final int minPriority;
+    private final int maxPriority;
+
+    public PrioritySchedulingStrategy() {
+        this(0, 31);
+    }
+
+    public PrioritySchedulingStrategy(int minPriority, int maxPriority) {
+        this.minPriority = minPriority;
+        this.maxPriority = maxPriority;
+    }
 
     @Override
     public boolean canCompare(Task a, Task b) {
@@ -25,4 +40,9 @@ public class PrioritySchedulingStrategy implements SchedulingStrategy {
         // Более высокий приоритет (большее число) должен идти раньше
         return Integer.compare(pb, pa);
     }
+
+    @Override
+    public ReadyQueue createQueue() {
+        return new PriorityBucketQueue(minPriority, maxPriority);
+    }
 }
@@ -0,0 +1,20 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+
+public interface QueueProvidingStrategy extends SchedulingStrategy {
+    /**
+     * Ready-очередь, обход которой совпадает с порядком стратегии
+     * ({@link ReadyQueue#isOrdered()}); scheduler берёт из неё первые подходящие задачи.
+     */
+    ReadyQueue createQueue();
+
+    /**
+     * Очередь — часть политики, а не только ускорение выбора: например, доли и повышение уровней MLFQ
+     * не сводятся к compare. Такая стратегия в композиции допустима только первым звеном, и композиция
+     * отдаёт её очередь; очереди остальных стратегий там не используются — они не знают о следующих звеньях.
+     */
+    default boolean requiresOwnQueue() {
+        return false;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.util.Map;
+
+public interface QuotaAwareStrategy extends SchedulingStrategy {
+    /**
+     * Заменить квоты тенантов и период полураспада usage; накопленное usage сохраняется.
+     */
+    void updateQuotas(Map<String, Double> quotas, long halfLifeSeconds);
+}
@@ -0,0 +1,115 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Оценка времени выполнения задач по фактическим длительностям (EWMA).
+ * Ведётся по workflowType и, опционально, по паре workflowType+тенант;
+ * пока по паре мало наблюдений, используется оценка по типу, для незнакомого типа — defaultMs.
+ */
+public class RuntimeEstimator {
+
+    private final double alpha;
+    private final double defaultMs;
+    private final boolean perTenant;
+    private final int minTenantSamples;
+    private final Map<String, Ewma> byType = new HashMap<>();
+    private final Map<String, Ewma> byTypeTenant = new HashMap<>();
+
+    public RuntimeEstimator(double alpha, double defaultMs, boolean perTenant, int minTenantSamples) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+        this.defaultMs = defaultMs;
+        this.perTenant = perTenant;
+        this.minTenantSamples = minTenantSamples;
+    }
+
+    public void observe(String type, String tenant, double durationMs) {
+        if (type == null || durationMs < 0) {
+            return;
+        }
+        update(byType, type, durationMs);
+        if (perTenant && tenant != null) {
+            update(byTypeTenant, key(type, tenant), durationMs);
+        }
+    }
+
+    /**
+     * Ожидаемая длительность (мс).
+     */
+    public double estimateMs(String type, String tenant) {
+        if (type == null) {
+            return defaultMs;
+        }
+        if (perTenant && tenant != null) {
+            var e = byTypeTenant.get(key(type, tenant));
+            if (e != null && e.samples >= minTenantSamples) {
+                return e.mean;
+            }
+        }
+        var e = byType.get(type);
+        return e != null ? e.mean : defaultMs;
+    }
+
+    public boolean isKnown(String type) {
+        return byType.containsKey(type);
+    }
+
+    /* ---- state: {types: {type ↦ {mean, samples}}, tenants: {type/tenant ↦ …}} ---- */
+    public Map<String, Object> exportState() {
+        return Map.of("types", export(byType), "tenants", export(byTypeTenant));
+    }
+
+    public void importState(Map<String, Object> state) {
+        load(state.get("types"), byType);
+        load(state.get("tenants"), byTypeTenant);
+    }
+
+    /* ---- helpers ---- */
+    private void update(Map<String, Ewma> map, String key, double value) {
+        var e = map.get(key);
+        if (e == null) {
+            map.put(key, new Ewma(value, 1));
+        } else {
+            e.mean += alpha * (value - e.mean);
+            e.samples++;
+        }
+    }
+
+    private static String key(String type, String tenant) {
+        return type + "/" + tenant;
+    }
+
+    private static Map<String, Object> export(Map<String, Ewma> map) {
+        var out = new HashMap<String, Object>();
+        map.forEach((k, e) -> out.put(k, Map.of("mean", e.mean, "samples", e.samples)));
+        return out;
+    }
+
+    private static void load(Object raw, Map<String, Ewma> into) {
+        if (!(raw instanceof Map<?, ?> m)) {
+            return;
+        }
+        m.forEach((k, v) -> {
+            if (k instanceof String key
+                    && v instanceof Map<?, ?> e
+                    && e.get("mean") instanceof Number mean
+                    && e.get("samples") instanceof Number n) {
+                into.put(key, new Ewma(mean.doubleValue(), n.longValue()));
+            }
+        });
+    }
+
+    private static final class Ewma {
+        double mean;
+        long samples;
+
+        Ewma(double mean, long samples) {
+            this.mean = mean;
+            this.samples = samples;
+        }
+    }
+}
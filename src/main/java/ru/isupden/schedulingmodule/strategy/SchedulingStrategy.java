@@ -1,6 +1,7 @@
 package ru.isupden.schedulingmodule.strategy;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Queue;
 
 import ru.isupden.schedulingmodule.model.Task;
@@ -38,4 +39,26 @@ public interface SchedulingStrategy {
 
     default void onShutdown() {
     }
+
+    /**
+     * Меняет ли onDispatch порядок оставшихся задач (как dispatched у critical).
+     * Для таких стратегий scheduler выбирает задачи по одной, а не пачкой.
+     */
+    default boolean isDispatchOrderSensitive() {
+        return false;
+    }
+
+    /**
+     * Снимок внутреннего состояния стратегии (только JSON-совместимые значения),
+     * чтобы его можно было передать через continue-as-new. По умолчанию состояния нет.
+     */
+    default Map<String, Object> exportState() {
+        return Map.of();
+    }
+
+    /**
+     * Восстановить состояние из {@link #exportState()}. Числа после JSON могут прийти другим типом.
+     */
+    default void importState(Map<String, Object> state) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.queue.FairShareTree;
+
+/**
+ * Создаёт отдельные экземпляры стратегий для каждого scheduler-воркфлоу.
+ * Состояние стратегий (usage fairness, dispatched critical-path) не делится между клиентами
+ * и живёт в воркфлоу, т.е. восстанавливается replay-ем, а не теряется при рестарте воркера.
+ */
+public class SchedulingStrategyFactory {
+
+    private final Map<String, Supplier<? extends SchedulingStrategy>> suppliers = new LinkedHashMap<>();
+
+    /**
+     * Фабрика со «штатными» стратегиями: priority, deadline, critical, fairness, sejf, llf, mlfq, stride,
+     * hierarchical-fairness.
+     */
+    public static SchedulingStrategyFactory withDefaults(SchedulingModuleProperties props) {
+        return new SchedulingStrategyFactory()
+                .register("priority", () -> new PrioritySchedulingStrategy(
+                        props.getPriorityBuckets().getMin(),
+                        props.getPriorityBuckets().getMax()))
+                .register("deadline", DeadlineSchedulingStrategy::new)
+                .register("critical", CriticalPathSchedulingStrategy::new)
+                .register("fairness", () -> new FairnessSchedulingStrategy(
+                        props.getQuotas(),
+                        props.getFairness().getHalfLifeSeconds()))
+                .register("sejf", () -> new ShortestExpectedJobStrategy(
+                        runtimeEstimator(props.getRuntimeEstimation()),
+                        props.getSejf().getAgingFactor()))
+                .register("llf", () -> new LeastLaxityStrategy(
+                        runtimeEstimator(props.getRuntimeEstimation()),
+                        props.getLlf().getHopelessFraction(),
+                        props.getLlf().isDropHopeless()))
+                .register("mlfq", () -> new MultiLevelFeedbackStrategy(
+                        props.getMlfq().getShares(),
+                        props.getMlfq().getClasses(),
+                        props.getMlfq().getClassAttribute(),
+                        props.getMlfq().getDefaultLevel(),
+                        props.getMlfq().getAgingSeconds() * 1000))
+                .register("stride", () -> new StrideSchedulingStrategy(props.getQuotas()))
+                .register("hierarchical-fairness", () -> new HierarchicalFairShareStrategy(fairShareTree(props)));
+    }
+
+    /* дерево из quotaTree в порядке обхода сверху вниз: родитель добавляется раньше детей */
+    private static FairShareTree fairShareTree(SchedulingModuleProperties props) {
+        var quotas = Map.copyOf(props.getQuotas());
+        var tree = new FairShareTree(t -> quotas.getOrDefault(t, 1.0));
+        addNodes(tree, List.of(), props.getQuotaTree());
+        return tree;
+    }
+
+    private static void addNodes(FairShareTree tree, List<String> parent,
+                                 Map<String, SchedulingModuleProperties.QuotaNode> nodes) {
+        nodes.forEach((name, node) -> {
+            var path = new ArrayList<>(parent);
+            path.add(name);
+            tree.add(path, node.getWeight());
+            addNodes(tree, path, node.getChildren());
+        });
+    }
+
+    private static RuntimeEstimator runtimeEstimator(SchedulingModuleProperties.RuntimeEstimation cfg) {
+        return new RuntimeEstimator(cfg.getAlpha(), cfg.getDefaultMs(), cfg.isPerTenant(), cfg.getMinTenantSamples());
+    }
+
+    /**
+     * Зарегистрировать (или заменить) стратегию. Supplier должен каждый раз возвращать новый экземпляр.
+     */
+    public SchedulingStrategyFactory register(String name, Supplier<? extends SchedulingStrategy> supplier) {
+        suppliers.put(name, supplier);
+        return this;
+    }
+
+    public Set<String> names() {
+        return suppliers.keySet();
+    }
+
+    /**
+     * Новый экземпляр стратегии по имени.
+     *
+     * @throws IllegalArgumentException если имя не зарегистрировано
+     */
+    public SchedulingStrategy create(String name) {
+        var supplier = suppliers.get(name);
+        if (supplier == null) {
+            throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+        return supplier.get();
+    }
+
+    /**
+     * Цепочка по спецификации вида "fairness+priority": имя → новый экземпляр, в порядке спецификации.
+     *
+     * @throws IllegalArgumentException если имя не зарегистрировано или стратегия, которой нужна
+     *                                  своя очередь ({@link QueueProvidingStrategy#requiresOwnQueue()}), стоит не первой
+     */
+    public Map<String, SchedulingStrategy> createChain(String spec) {
+        var chain = new LinkedHashMap<String, SchedulingStrategy>();
+        Arrays.stream(spec.split("\\+"))
+                .map(String::trim)
+                .forEach(name -> chain.put(name, create(name)));
+        chain.entrySet().stream()
+                .skip(1)
+                .filter(e -> e.getValue() instanceof QueueProvidingStrategy q && q.requiresOwnQueue())
+                .findFirst()
+                .ifPresent(e -> {
+                    throw new IllegalArgumentException(
+                            "Strategy " + e.getKey() + " must be the first in the chain: " + spec);
+                });
+        return chain;
+    }
+
+    /**
+     * Проверить спецификацию заранее — при старте и в validator-е updateConfig,
+     * чтобы ошибка не всплыла в цикле scheduler-воркфлоу.
+     *
+     * @throws IllegalArgumentException как {@link #createChain(String)}
+     */
+    public void validate(String spec) {
+        createChain(spec);
+    }
+
+    /**
+     * То же, но без отчётов о завершении ({@code completionsEnabled == false}) отклоняются и звенья,
+     * которым они обязательны ({@link CompletionAwareStrategy#requiresCompletions()}).
+     *
+     * @throws IllegalArgumentException как {@link #createChain(String)} или если такое звено есть
+     */
+    public void validate(String spec, boolean completionsEnabled) {
+        var chain = createChain(spec);
+        if (completionsEnabled) {
+            return;
+        }
+        chain.forEach((name, s) -> {
+            if (s instanceof CompletionAwareStrategy c && c.requiresCompletions()) {
+                throw new IllegalArgumentException(
+                        "Strategy " + name + " needs scheduling-module.completions.enabled: " + spec);
+            }
+        });
+    }
+
+    /**
+     * Стратегия по спецификации: одиночная или {@link CompositeSchedulingStrategy}.
+     */
+    public SchedulingStrategy createStrategy(String spec) {
+        return fromChain(createChain(spec));
+    }
+
+    /**
+     * Стратегия из готовой цепочки {@link #createChain(String)}: одиночная или композиция.
+     */
+    public static SchedulingStrategy fromChain(Map<String, SchedulingStrategy> chain) {
+        return chain.size() == 1
+                ? chain.values().iterator().next()
+                : new CompositeSchedulingStrategy(chain.values().stream().toList());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+
+/**
+ * Shortest-expected-job-first: первой уходит задача с наименьшей ожидаемой длительностью.
+ * Длительности берутся из {@link RuntimeEstimator}, который учится на reportCompletions.
+ * Чтобы длинные задачи не голодали, оценка уменьшается на {@code agingFactor × время ожидания}:
+ * при agingFactor = 0.1 каждые 10 с в очереди «сокращают» задачу на 1 с.
+ */
+public class ShortestExpectedJobStrategy implements CompletionAwareStrategy {
+
+    /**
+     * Момент попадания задачи в ready-очередь (epoch ms); ставит scheduler-воркфлоу.
+     */
+    public static final String ENQUEUED_AT = "enqueuedAt";
+
+    private final RuntimeEstimator estimator;
+    private final double agingFactor;
+    private long nowMs;
+
+    public ShortestExpectedJobStrategy(RuntimeEstimator estimator, double agingFactor) {
+        this.estimator = estimator;
+        this.agingFactor = agingFactor;
+    }
+
+    @Override
+    public boolean canCompare(Task a, Task b) {
+        return true;
+    }
+
+    @Override
+    public int compare(Task a, Task b) {
+        return Double.compare(score(a), score(b));
+    }
+
+    /* время ожидания считается от now последнего preprocess — одинаково для всего выбора */
+    @Override
+    public void preprocess(Queue<Task> queue, Instant now) {
+        nowMs = now.toEpochMilli();
+    }
+
+    @Override
+    public void onCompletion(TaskCompletion c, Instant at) {
+        estimator.observe(c.getWorkflowType(), c.getTenantId(), c.getDurationMs());
+    }
+
+    @Override
+    public Map<String, Object> exportState() {
+        return estimator.exportState();
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        estimator.importState(state);
+    }
+
+    double score(Task t) {
+        var expected = estimator.estimateMs(t.getWorkflowType(), t.tenantId());
+        var enqueuedAt = t.instantAttr(ENQUEUED_AT);
+        var waitMs = enqueuedAt != null ? Math.max(0, nowMs - enqueuedAt.toEpochMilli()) : 0;
+        return expected - agingFactor * waitMs;
+    }
+}
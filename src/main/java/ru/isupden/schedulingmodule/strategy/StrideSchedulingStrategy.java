@@ -0,0 +1,87 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+import ru.isupden.schedulingmodule.queue.StridePasses;
+import ru.isupden.schedulingmodule.queue.StrideQueue;
+
+/**
+ * Stride scheduling по тенантам: доли пропорциональны {@code quotas} и считаются по самим отправкам
+ * (или их заявленной стоимости, атрибут {@code cost}), а не по reportUsage задним числом.
+ * Выбор — O(log тенантов), всё состояние — проходы в воркфлоу, поэтому replay детерминирован.
+ */
+public class StrideSchedulingStrategy implements QueueProvidingStrategy, QuotaAwareStrategy {
+
+    /**
+     * Заявленная стоимость задачи (число); по умолчанию 1.
+     */
+    public static final String COST = "cost";
+
+    static final String DEFAULT_TENANT = "default";
+
+    private Map<String, Double> quotas;
+    private final StridePasses passes = new StridePasses(this::quota);
+
+    public StrideSchedulingStrategy(Map<String, Double> quotas) {
+        this.quotas = quotas;
+    }
+
+    @Override
+    public boolean canCompare(Task a, Task b) {
+        return true;
+    }
+
+    @Override
+    public int compare(Task a, Task b) {
+        return Double.compare(passes.pass(tenantOf(a)), passes.pass(tenantOf(b)));
+    }
+
+    @Override
+    public void onDispatch(Task task, Instant at) {
+        passes.charge(tenantOf(task), costOf(task));
+    }
+
+    /* отправка сдвигает проход тенанта: без своей очереди (в цепочке) выбираем по одной */
+    @Override
+    public boolean isDispatchOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public ReadyQueue createQueue() {
+        return new StrideQueue(passes, StrideSchedulingStrategy::tenantOf, StrideSchedulingStrategy::costOf);
+    }
+
+    /* ---- live reconfiguration: новые квоты действуют на следующие отправки ---- */
+    @Override
+    public void updateQuotas(Map<String, Double> quotas, long halfLifeSeconds) {
+        this.quotas = Map.copyOf(quotas);
+    }
+
+    /* ---- state: проходы тенантов ---- */
+    @Override
+    public Map<String, Object> exportState() {
+        return passes.exportState();
+    }
+
+    @Override
+    public void importState(Map<String, Object> state) {
+        passes.importState(state);
+    }
+
+    private double quota(String tenant) {
+        return quotas.getOrDefault(tenant, 1.0);
+    }
+
+    static String tenantOf(Task t) {
+        return Objects.requireNonNullElse(t.tenantId(), DEFAULT_TENANT);
+    }
+
+    static double costOf(Task t) {
+        return t.getAttributes().get(COST) instanceof Number n && n.doubleValue() > 0 ? n.doubleValue() : 1.0;
+    }
+}
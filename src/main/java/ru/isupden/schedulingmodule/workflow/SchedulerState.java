@@ -0,0 +1,60 @@
+package ru.isupden.schedulingmodule.workflow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.isupden.schedulingmodule.limit.RunningTasks;
+import ru.isupden.schedulingmodule.model.ConfigUpdate;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.SpilledSegments;
+
+/**
+ * Состояние scheduler-а, которое continue-as-new передаёт новому запуску.
+ * Вытесненные задачи переходят сводками сегментов, а не самими задачами, поэтому вход
+ * ограничен {@code continueAsNew.maxCarriedBytes} плюс по сводке на сегмент.
+ * Скользящее окно backpressure и rate-лимиты по типу и тенанту в новом запуске начинаются заново.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SchedulerState {
+
+    /**
+     * Настройки, изменённые через updateConfig.
+     */
+    private ConfigUpdate config;
+
+    /**
+     * Автоподстроенный лимит задач/сек; 0 — начать с throughputFactor.
+     */
+    private double dispatchRate;
+
+    /**
+     * {@code exportState()} звеньев цепочки стратегий по имени.
+     */
+    private Map<String, Map<String, Object>> strategyState;
+
+    /**
+     * Готовые и отложенные задачи.
+     */
+    private List<Task> tasks;
+
+    private List<SpilledSegments.Summary> segments;
+
+    /**
+     * Отмены и обновления атрибутов ещё не загруженных вытесненных задач.
+     */
+    private Set<String> spilledCancels;
+    private Map<String, Map<String, Object>> spilledUpdates;
+
+    /**
+     * Слоты maxRunning задач, о завершении которых ещё не сообщили.
+     */
+    private List<RunningTasks.Slot> running;
+}
@@ -1,21 +1,29 @@
 package ru.isupden.schedulingmodule.workflow;
 
 import java.util.List;
+import java.util.Map;
 
 import io.temporal.workflow.QueryMethod;
 import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.UpdateMethod;
+import io.temporal.workflow.UpdateValidatorMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
+import ru.isupden.schedulingmodule.model.ConfigUpdate;
+import ru.isupden.schedulingmodule.model.SubmitResult;
 import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
 
 @WorkflowInterface
 public interface SchedulerWorkflow {
 
     /**
      * Main entrypoint. Client name selects TaskQueue & strategy.
+     *
+     * @param state null при запуске; состояние прошлого запуска при continue-as-new
      */
     @WorkflowMethod
-    void run(String clientName);
+    void run(String clientName, SchedulerState state);
 
     /**
      * Signal to add more tasks into the ready queue.
@@ -23,12 +31,83 @@ public interface SchedulerWorkflow {
     @SignalMethod
     void submitTasks(List<Task> tasks, String clientName);
 
+    /**
+     * Update-вариант submitTasks: применяет admission-лимиты клиента и тенанта
+     * и сообщает, сколько задач принято, а сколько нужно отправить повторно.
+     */
+    @UpdateMethod
+    SubmitResult submitTasksWithAck(List<Task> tasks, String clientName);
+
+    /**
+     * Отклоняет update с некорректными задачами, не записывая его в историю.
+     */
+    @UpdateValidatorMethod(updateName = "submitTasksWithAck")
+    void validateSubmitTasksWithAck(List<Task> tasks, String clientName);
+
+    /**
+     * Меняет лимиты backpressure, квоты и half-life fairness и цепочку стратегий работающего
+     * scheduler-а без рестарта воркеров. Update пишется в историю, поэтому replay детерминирован.
+     *
+     * @return действующая конфигурация после изменения
+     */
+    @UpdateMethod
+    ConfigUpdate updateConfig(ConfigUpdate update);
+
+    /**
+     * Отклоняет некорректные значения и неизвестные стратегии, не записывая update в историю.
+     */
+    @UpdateValidatorMethod(updateName = "updateConfig")
+    void validateUpdateConfig(ConfigUpdate update);
+
+    /**
+     * Signal to drop queued tasks by workflowId. Unknown ids are ignored.
+     */
+    @SignalMethod
+    void cancelTasks(List<String> workflowIds);
+
+    /**
+     * Signal to merge attributes into a queued task (e.g. re-prioritize it).
+     */
+    @SignalMethod
+    void updateTaskAttributes(String workflowId, Map<String, Object> attributes);
+
     /**
      * Query current ready-queue length.
      */
     @QueryMethod
     int getQueueLength();
 
+    /**
+     * Query number of tasks parked until their notBefore time.
+     */
+    @QueryMethod
+    int getDelayedLength();
+
+    /**
+     * Query number of tasks spilled to disk segments past the high-water mark.
+     */
+    @QueryMethod
+    int getOverflowLength();
+
+    /**
+     * Query current dispatch rate limit (tasks/sec), auto-tuned when enabled.
+     */
+    @QueryMethod
+    double getDispatchRate();
+
+    /**
+     * Query per-node rollup of the hierarchical quota tree: node path ↦ {dispatched, usage}.
+     * Empty unless the client runs the hierarchical-fairness strategy.
+     */
+    @QueryMethod
+    Map<String, Object> getQuotaRollup();
+
     @SignalMethod
     void reportUsage(String tenant, double cost);
+
+    /**
+     * Signal with a batch of finished tasks; frees their maxRunning slots.
+     */
+    @SignalMethod
+    void reportCompletions(List<TaskCompletion> completions);
 }
\ No newline at end of file
@@ -4,29 +4,60 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 import io.temporal.activity.ActivityOptions;
+import io.temporal.api.enums.v1.ParentClosePolicy;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
 import io.temporal.failure.CanceledFailure;
 import io.temporal.workflow.Async;
+import io.temporal.workflow.ChildWorkflowOptions;
 import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
+import ru.isupden.schedulingmodule.activity.BacklogActivity;
 import ru.isupden.schedulingmodule.activity.DispatchActivity;
+import ru.isupden.schedulingmodule.activity.OverflowActivity;
+import ru.isupden.schedulingmodule.activity.PayloadActivity;
 import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.limit.DispatchRateController;
+import ru.isupden.schedulingmodule.limit.RunningTasks;
+import ru.isupden.schedulingmodule.limit.TaskRateLimits;
 import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.model.BacklogSample;
+import ru.isupden.schedulingmodule.model.ConfigUpdate;
+import ru.isupden.schedulingmodule.model.SubmitResult;
 import ru.isupden.schedulingmodule.model.Task;
-import ru.isupden.schedulingmodule.strategy.CompositeSchedulingStrategy;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+import ru.isupden.schedulingmodule.payload.PayloadStore;
+import ru.isupden.schedulingmodule.queue.DelayedTasks;
+import ru.isupden.schedulingmodule.queue.LoadShedder;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+import ru.isupden.schedulingmodule.queue.SpilledSegments;
+import ru.isupden.schedulingmodule.queue.TaskCompactor;
+import ru.isupden.schedulingmodule.queue.TopK;
+import ru.isupden.schedulingmodule.strategy.CompletionAwareStrategy;
+import ru.isupden.schedulingmodule.strategy.DeadlineRiskStrategy;
+import ru.isupden.schedulingmodule.strategy.HierarchicalFairShareStrategy;
+import ru.isupden.schedulingmodule.strategy.LevelledStrategy;
+import ru.isupden.schedulingmodule.strategy.QueueProvidingStrategy;
+import ru.isupden.schedulingmodule.strategy.QuotaAwareStrategy;
 import ru.isupden.schedulingmodule.strategy.SchedulingStrategy;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
+import ru.isupden.schedulingmodule.strategy.ShortestExpectedJobStrategy;
 import ru.isupden.schedulingmodule.strategy.UsageAwareStrategy;
 
 @Slf4j
@@ -35,18 +66,51 @@ import ru.isupden.schedulingmodule.strategy.UsageAwareStrategy;
 @NoArgsConstructor
 public class SchedulerWorkflowImpl implements SchedulerWorkflow {
 
-    private final Queue<Task> ready = new LinkedList<>();
+    private static final long MIN_RETRY_AFTER_MS = 1000;
+    private static final int DELETE_BATCH = 1000;   // ссылок на один вызов deletePayloads
+    private static final long SEGMENT_RETRY_MS = 60_000;   // пауза перед новой загрузкой с недоступного хоста
+    private static final long HAND_OFF_RETRY_MS = 60_000;   // пауза после отложенного continue-as-new
+
+    private ReadyQueue ready = new ReadyQueue();
+    private final DelayedTasks delayed = new DelayedTasks();
     private final Deque<Instant> window = new ArrayDeque<>();
     private final List<Promise<Void>> async = new ArrayList<>();
+    private final TaskCompactor compactor = new TaskCompactor();
+    private final SpilledSegments spilled = new SpilledSegments();
     private SchedulingMetricsService metricsService;
     private SchedulingModuleProperties props;
-    private Map<String, SchedulingStrategy> strategies;
+    private SchedulingStrategyFactory strategies;
     private DispatchActivity dispatch;
     private SchedulingStrategy strategy;
     private SchedulingModuleProperties.ClientProperties cfg;
+    private String client;
+    private TaskRateLimits limits;
+    private RunningTasks running;
+    private boolean trackRunning;   // есть лимиты maxRunning и отчёты о завершении
+    private long queueVersion;   // растёт при каждом изменении очереди извне (signal/update)
+    private double dispatchRate; // текущий лимит задач/сек; 0 — до run(), берётся из backpressure
+    private BacklogActivity backlog;
+    private DispatchRateController rateController;
+    private Promise<BacklogSample> pendingSample;
+    private long nextSampleMs;
+    private long lastSampleMs;
+    private OverflowActivity overflow;
+    private ActivityOptions segmentOptions;
+    private final Map<String, OverflowActivity> segmentStubs = new HashMap<>();   // по очереди хоста
+    private final Map<String, Long> unreachableUntil = new HashMap<>();
+    private PayloadActivity payloads;
+    private final List<String> discarded = new ArrayList<>();   // claim-check ссылки задач, не ушедших в dispatch
+    private final List<Promise<Void>> cleanup = new ArrayList<>();   // удаление payload-ов и сегментов
+    private long nextHandOffMs;   // раньше continue-as-new не пробуем: очередь не уместилась во вход
+    /* настройки, которые меняет updateConfig; до run() — из props */
+    private SchedulingModuleProperties.Backpressure backpressure;
+    private Map<String, Double> quotas;
+    private long halfLifeSeconds;
+    private String strategySpec;
+    private Map<String, SchedulingStrategy> chain;   // звенья текущей стратегии по имени
 
     public SchedulerWorkflowImpl(SchedulingModuleProperties p,
-                                 Map<String, SchedulingStrategy> reg,
+                                 SchedulingStrategyFactory reg,
                                  DispatchActivity a,
                                  SchedulingMetricsService m) {
         this.props = p;
@@ -56,7 +120,7 @@ public class SchedulerWorkflowImpl implements SchedulerWorkflow {
     }
 
     public void initialize(SchedulingModuleProperties p,
-                           Map<String, SchedulingStrategy> reg,
+                           SchedulingStrategyFactory reg,
                            DispatchActivity a,
                            SchedulingMetricsService m) {
         this.props = p;
@@ -66,70 +130,145 @@ public class SchedulerWorkflowImpl implements SchedulerWorkflow {
     }
 
     @Override
-    public void run(String clientName) {
+    public void run(String clientName, SchedulerState state) {
         if (props == null) {
             throw new IllegalStateException("SchedulerWorkflowImpl not properly initialized");
         }
         log.info("Starting scheduler workflow for client: {}", clientName);
+        client = clientName;
 
         cfg = Optional.ofNullable(props.getClients().get(clientName))
                 .orElseThrow();
 
         log.info("config: {}", cfg);
 
-        strategy = buildStrategy(cfg.getStrategy());
+        // копии: updateConfig меняет их только у этого воркфлоу, а изменение пишется в историю
+        backpressure = new SchedulingModuleProperties.Backpressure();
+        backpressure.setWindowSeconds(props.getBackpressure().getWindowSeconds());
+        backpressure.setThroughputFactor(props.getBackpressure().getThroughputFactor());
+        quotas = new HashMap<>(props.getQuotas());
+        halfLifeSeconds = props.getFairness().getHalfLifeSeconds();
+        var spec = cfg.getStrategy();
+        if (state != null && state.getConfig() != null) {
+            // продолжение после continue-as-new: настройки, изменённые через updateConfig
+            var config = state.getConfig();
+            backpressure.setWindowSeconds(config.getWindowSeconds());
+            backpressure.setThroughputFactor(config.getThroughputFactor());
+            quotas = new HashMap<>(config.getQuotas());
+            halfLifeSeconds = config.getFairnessHalfLifeSeconds();
+            spec = config.getStrategy();
+        }
+
+        limits = new TaskRateLimits(cfg.getRateLimits());
+        running = new RunningTasks(cfg.getConcurrency());
+        // без отчётов о завершении слоты не освободятся: такие лимиты не применяем и не копим running
+        trackRunning = running.isLimited() && props.getCompletions().isEnabled();
+        if (running.isLimited() && !trackRunning) {
+            log.warn("Concurrency caps of {} are ignored: scheduling-module.completions.enabled is off", clientName);
+        }
+
+        // собственные экземпляры: состояние стратегий не делится с другими клиентами
+        installStrategy(spec);
+        if (state != null && state.getStrategyState() != null) {
+            state.getStrategyState().forEach((name, exported) -> {
+                var link = chain.get(name);
+                if (link != null) {
+                    link.importState(exported);
+                }
+            });
+        }
         metricsService.registerClient(clientName);
         log.info("Using strategy: {}", strategy);
 
+        // dispatch-воркеры слушают свою очередь и масштабируются отдельно от scheduler-а
+        // уже существующий workflow повтором не запустить: promise падает и освобождает слот
         var ao = ActivityOptions.newBuilder()
-                .setStartToCloseTimeout(Duration.ofMinutes(1)).build();
+                .setTaskQueue(cfg.resolveDispatchTaskQueue(clientName))
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setDoNotRetry(WorkflowExecutionAlreadyStarted.class.getName())
+                        .build())
+                .build();
         dispatch = Workflow.newActivityStub(DispatchActivity.class, ao);
 
-        // Ожидаем появления задач
-        Workflow.await(() -> !ready.isEmpty());
-        log.info("Initial tasks received, starting processing");
+        dispatchRate = backpressure.getThroughputFactor();
+        if (state != null && state.getDispatchRate() > 0) {
+            dispatchRate = state.getDispatchRate();
+        }
+        if (cfg.getAutoTune().isEnabled()) {
+            rateController = new DispatchRateController(cfg.getAutoTune(), dispatchRate);
+            dispatchRate = rateController.rate();
+            // замер периодический, поэтому без повторов: следующий всё равно скоро
+            backlog = Workflow.newActivityStub(BacklogActivity.class, ActivityOptions.newBuilder()
+                    .setTaskQueue(cfg.resolveDispatchTaskQueue(clientName))
+                    .setStartToCloseTimeout(Duration.ofSeconds(10))
+                    .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
+                    .build());
+        }
+        // payload-ы отменённых, сброшенных и отклонённых задач; удаление ссылки идемпотентно
+        payloads = Workflow.newActivityStub(PayloadActivity.class, ActivityOptions.newBuilder()
+                .setTaskQueue(cfg.resolveDispatchTaskQueue(clientName))
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .build());
+        if (cfg.getSpill().isEnabled()) {
+            // сегменты пишет dispatch-воркер: у scheduler-а в истории остаются только их сводки
+            overflow = Workflow.newActivityStub(OverflowActivity.class, ActivityOptions.newBuilder()
+                    .setTaskQueue(cfg.resolveDispatchTaskQueue(clientName))
+                    .setStartToCloseTimeout(Duration.ofMinutes(1))
+                    .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build())
+                    .build());
+            // загрузка ждёт только свой хост: если его нет, цикл не должен висеть на ней
+            segmentOptions = ActivityOptions.newBuilder()
+                    .setScheduleToStartTimeout(Duration.ofSeconds(10))
+                    .setStartToCloseTimeout(Duration.ofMinutes(1))
+                    .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build())
+                    .build();
+        }
+        if (state != null) {
+            restoreState(state);
+        }
 
         try {
             while (true) {
+                releaseDelayed();
+                expireRunning();
+                sampleBacklog();
                 metricsService.updateQueueSize(clientName, ready.size());
                 // Предобработка очереди перед выбором задачи
-                strategy.preprocess(ready, now());
-
-                // Безопасный выбор следующей задачи для выполнения
-                var next = selectNextTask();
+                var dropped = ready.removedDuring(() -> strategy.preprocess(ready, now()));
+                if (!dropped.isEmpty()) {
+                    metricsService.recordDeadlineOutcome(clientName, "dropped", dropped.size());
+                    dropped.stream().filter(t -> !ready.containsId(t.getWorkflowId())).forEach(this::discard);
+                }
+                enforceBudget();
+                pageOverflow();
+                deleteDiscarded();
+                if (shouldContinueAsNew()) {
+                    continueAsNew();
+                }
 
-                if (next == null) {
-                    log.info("No suitable tasks found, waiting for more tasks");
-                    Workflow.await(() -> !ready.isEmpty());
+                var k = batchSize();
+                if (k <= 0) {
+                    log.info("Dispatch in-flight limit reached, waiting for started tasks");
+                    awaitCapacity();
                     continue;
                 }
 
-                log.info("Selected task for dispatch: {}", next.getWorkflowId());
-                var taskReadyTime = now();
-                ready.remove(next);
+                // k лучших задач за один проход вместо полного выбора на каждую
+                var batch = selectBatch(k);
 
-                /* throttling перед dispatch */
-                throttleIfNeeded(clientName);
-
-                var waitTimeMs = Duration.between(taskReadyTime, now()).toMillis();
-                metricsService.recordTaskWaitTime(clientName, waitTimeMs);
-
-                var tenantId = (String) next.getPayload().getOrDefault("tenantId",
-                        next.attr("tenantId", String.class));
-                metricsService.recordTaskDispatched(clientName, next.getWorkflowType(), tenantId);
-
-                /* асинхронный dispatch */
-                log.info("Dispatching task: {} to queue: {}", next.getWorkflowId(), cfg.getTaskQueue());
-                Promise<Void> p = Async.procedure(() -> dispatch.dispatchTask(
-                        next.getWorkflowType(),
-                        next.getWorkflowId(),
-                        next.getPayload(),
-                        cfg.getTaskQueue()));
-                async.add(p);
+                if (batch.isEmpty()) {
+                    log.info("No suitable tasks found, waiting for more tasks");
+                    awaitWork(nextAllowed());
+                    continue;
+                }
 
-                /* фиксируем факт dispatch-а */
-                recordDispatch();
-                strategy.onDispatch(next, now());
+                for (var next : batch) {
+                    // предыдущие задачи пачки могли выбрать лимит её типа или тенанта
+                    if (ready.contains(next) && isEligible(next, Workflow.currentTimeMillis())) {
+                        dispatchNext(next);
+                    }
+                }
             }
 
         } catch (CanceledFailure cf) {
@@ -147,37 +286,731 @@ public class SchedulerWorkflowImpl implements SchedulerWorkflow {
     }
 
     /*
-     * Безопасный выбор следующей задачи с учетом результатов canCompare
+     * Новая цепочка стратегий: звенья с тем же именем получают состояние старых,
+     * задачи переносятся в очередь стратегии (корзины priority) или в обычную
+     */
+    private void installStrategy(String spec) {
+        var next = strategies.createChain(spec);
+        if (chain != null) {
+            next.forEach((name, s) -> {
+                var old = chain.get(name);
+                if (old != null) {
+                    s.importState(old.exportState());
+                }
+            });
+            strategy.onShutdown();
+        }
+        chain = next;
+        strategySpec = spec;
+        strategy = SchedulingStrategyFactory.fromChain(next);
+        warnIfCompletionsOff(next);
+        if (strategy instanceof QuotaAwareStrategy q) {
+            q.updateQuotas(quotas, halfLifeSeconds);
+        }
+        var queue = strategy instanceof QueueProvidingStrategy q ? q.createQueue() : new ReadyQueue();
+        // с лимитами выбор обходит только свободные пары (workflowType, тенант)
+        if (trackRunning || limits.isLimited()) {
+            queue.indexKeys();
+        }
+        queue.addAll(ready);
+        ready = queue;
+    }
+
+    /* оценки sejf/llf учатся только на reportCompletions: без них всё время работает default-ms */
+    private void warnIfCompletionsOff(Map<String, SchedulingStrategy> next) {
+        if (props.getCompletions().isEnabled()) {
+            return;
+        }
+        var learning = next.entrySet().stream()
+                .filter(e -> e.getValue() instanceof CompletionAwareStrategy)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!learning.isEmpty()) {
+            log.warn("Strategies {} of {} learn from completions, but scheduling-module.completions.enabled is off: "
+                    + "every task is estimated at runtime-estimation.default-ms", learning, client);
+        }
+    }
+
+    private void dispatchNext(Task next) {
+        log.info("Selected task for dispatch: {}", next.getWorkflowId());
+        var taskReadyTime = now();
+        ready.remove(next);
+        limits.acquire(next, Workflow.currentTimeMillis());
+        if (trackRunning) {
+            running.onDispatch(next, Workflow.currentTimeMillis());
+        }
+
+        /* throttling перед dispatch */
+        throttleIfNeeded(client);
+
+        var waitTimeMs = Duration.between(taskReadyTime, now()).toMillis();
+        metricsService.recordTaskWaitTime(client, waitTimeMs);
+
+        var tenantId = next.tenantId();
+        metricsService.recordTaskDispatched(client, next.getWorkflowType(), tenantId);
+        recordDeadlineOutcome(next);
+        recordLevelWait(next);
+
+        /* асинхронный dispatch */
+        log.info("Dispatching task: {} to queue: {}", next.getWorkflowId(), cfg.getTaskQueue());
+        var started = dispatchAsync(next, client, tenantId);
+        if (trackRunning) {
+            // не запустилась — слот не занят: отчёта о завершении не будет
+            started = started.exceptionally(e -> {
+                releaseRunning(next.getWorkflowId(), e);
+                return null;
+            });
+        }
+        async.add(started);
+
+        /* фиксируем факт dispatch-а; хук стратегии — по задаче, в порядке отправки */
+        recordDispatch();
+        strategy.onDispatch(next, now());
+    }
+
+    /*
+     * Размер пачки: не больше maxSize, свободных токенов окна и свободных in-flight слотов.
+     * Если порядок стратегии зависит от уже отправленных задач (critical, stride), выбираем по одной —
+     * кроме упорядоченной очереди стратегии: её обход уже учитывает сдвиг от каждой отправки
+     */
+    private int batchSize() {
+        var batch = cfg.getBatch();
+        var k = strategy.isDispatchOrderSensitive() && !ready.isOrdered() ? 1 : Math.max(1, batch.getMaxSize());
+        // без свободных токенов всё равно отправляем одну — throttle выдержит паузу
+        k = Math.min(k, Math.max(1, rateTokens()));
+        if (batch.getMaxInFlight() > 0) {
+            k = Math.min(k, batch.getMaxInFlight() - inFlight());
+        }
+        return k;
+    }
+
+    /* незавершённые старты; завершённые promise-ы больше не нужны */
+    private int inFlight() {
+        async.removeIf(Promise::isCompleted);
+        return async.size();
+    }
+
+    private void awaitCapacity() {
+        Workflow.await(() -> async.stream().anyMatch(Promise::isCompleted));
+    }
+
+    /*
+     * Ждём изменения очереди, ближайшего notBefore или освобождения rate-лимита —
+     * один таймер на всё, без блокировки на конкретной задаче
+     */
+    private void awaitWork(Instant wakeAt) {
+        var release = delayed.nextRelease();
+        var until = release == null || (wakeAt != null && wakeAt.isBefore(release)) ? wakeAt : release;
+        var seen = queueVersion;
+        if (until == null) {
+            Workflow.await(() -> queueVersion != seen || sampleReady());
+            return;
+        }
+        var timeout = Duration.between(now(), until);
+        if (!timeout.isNegative() && !timeout.isZero()) {
+            // пробуждаемся раньше, если очередь изменилась или сдвинулся ближайший выпуск
+            Workflow.await(timeout, () -> queueVersion != seen
+                    || !Objects.equals(release, delayed.nextRelease())
+                    || sampleReady());
+        }
+    }
+
+    private void recordDeadlineOutcome(Task t) {
+        var deadline = t.instantAttr("deadline");
+        if (deadline == null) {
+            return;
+        }
+        var now = now();
+        String outcome;
+        if (deadline.isBefore(now)) {
+            outcome = "late";
+        } else if (strategy instanceof DeadlineRiskStrategy r && r.isHopeless(t, now)) {
+            outcome = "hopeless";
+        } else {
+            outcome = "on_time";
+        }
+        metricsService.recordDeadlineOutcome(client, outcome, 1);
+    }
+
+    /* ожидание от попадания в ready — по уровню, в котором задача ушла */
+    private void recordLevelWait(Task t) {
+        var enqueuedAt = t.instantAttr(ShortestExpectedJobStrategy.ENQUEUED_AT);
+        if (strategy instanceof LevelledStrategy l && l.hasLevels() && enqueuedAt != null) {
+            var now = now();
+            metricsService.recordLevelWait(client, l.servedLevel(t, now), Duration.between(enqueuedAt, now).toMillis());
+        }
+    }
+
+    private boolean sampleReady() {
+        return pendingSample != null && pendingSample.isCompleted();
+    }
+
+    /*
+     * Автоподстройка скорости: замер backlog-а идёт асинхронно и не держит цикл,
+     * результат применяется на следующей итерации
+     */
+    private void sampleBacklog() {
+        if (rateController == null) {
+            return;
+        }
+        var nowMs = Workflow.currentTimeMillis();
+        if (sampleReady()) {
+            try {
+                applySample(pendingSample.get(), nowMs);
+            } catch (ActivityFailure e) {
+                log.warn("Backlog sample failed, keeping rate {}: {}", dispatchRate, e.getMessage());
+            }
+            pendingSample = null;
+        }
+        if (pendingSample == null && nowMs >= nextSampleMs) {
+            var queue = Optional.ofNullable(cfg.getAutoTune().getTargetTaskQueue()).orElse(cfg.getTaskQueue());
+            pendingSample = Async.function(backlog::sampleBacklog, queue);
+            nextSampleMs = nowMs + cfg.getAutoTune().getIntervalSeconds() * 1000;
+        }
+    }
+
+    private void applySample(BacklogSample sample, long nowMs) {
+        if (!sample.isAvailable()) {
+            return;
+        }
+        var dtSec = lastSampleMs > 0
+                ? (nowMs - lastSampleMs) / 1000.0
+                : cfg.getAutoTune().getIntervalSeconds();
+        lastSampleMs = nowMs;
+        dispatchRate = rateController.update(sample.getBacklog(), dtSec);
+        log.info("Backlog of {} is {} ({} pollers), dispatch rate {}",
+                sample.getTaskQueue(), sample.getBacklog(), sample.getPollers(), dispatchRate);
+        metricsService.updateDownstreamBacklog(client, sample.getBacklog(), sample.getPollers());
+        metricsService.updateDispatchRate(client, dispatchRate);
+    }
+
+    /*
+     * Ближайший момент, когда какая-то из задач очереди пройдёт rate-лимиты: O(число пар ключей),
+     * у всех задач пары он один. Задачи, упёршиеся в maxRunning, ждут reportCompletions или
+     * истечения самого старого слота; сегменты недоступного хоста — конца паузы перед новой загрузкой
+     */
+    private Instant nextAllowed() {
+        var nowMs = Workflow.currentTimeMillis();
+        var earliest = LongStream.concat(
+                        LongStream.concat(
+                                ready.limitKeys().stream()
+                                        .filter(keys -> !trackRunning
+                                                || running.isAllowed(keys.workflowType(), keys.tenant()))
+                                        .mapToLong(keys -> limits.nextAllowedMs(
+                                                keys.workflowType(), keys.tenant(), nowMs)),
+                                running.nextExpiryMs().stream()),
+                        unreachableUntil.values().stream().mapToLong(Long::longValue))
+                .min();
+        return earliest.isPresent() ? Instant.ofEpochMilli(earliest.getAsLong()) : null;
+    }
+
+    /* слоты задач, о завершении которых так и не сообщили */
+    private void expireRunning() {
+        var expired = running.expire(Workflow.currentTimeMillis());
+        if (!expired.isEmpty()) {
+            log.warn("No completion reported within {}s for {} tasks, releasing their slots: {}",
+                    cfg.getConcurrency().getRunningTimeoutSeconds(), expired.size(), expired);
+            metricsService.updateRunningTasks(client, running.size());
+        }
+    }
+
+    private void releaseRunning(String workflowId, Throwable failure) {
+        if (running.onComplete(workflowId)) {
+            log.warn("Dispatch of {} failed, releasing its slot: {}", workflowId, failure.getMessage());
+            queueVersion++;   // освободился слот maxRunning — пересмотреть очередь
+            metricsService.updateRunningTasks(client, running.size());
+        }
+    }
+
+    /* переносим в ready задачи, у которых наступил notBefore */
+    private void releaseDelayed() {
+        var due = delayed.releaseDue(now());
+        if (!due.isEmpty()) {
+            log.info("Releasing {} delayed tasks", due.size());
+            due.forEach(this::offerReady);
+        }
+    }
+
+    /* в ready или, если notBefore ещё не наступил, в отложенные; false — дубликат */
+    private boolean enqueue(Task t) {
+        if (isQueued(t.getWorkflowId())) {
+            return false;
+        }
+        queueVersion++;
+        return DelayedTasks.isDelayed(t, now()) ? delayed.offer(compactor.compact(t)) : offerReady(t);
+    }
+
+    /* момент попадания в ready нужен для aging в sejf; в очереди задача хранится уплотнённой */
+    private boolean offerReady(Task t) {
+        if (t.instantAttr(ShortestExpectedJobStrategy.ENQUEUED_AT) == null) {
+            t = t.withAttributes(Map.of(ShortestExpectedJobStrategy.ENQUEUED_AT, Workflow.currentTimeMillis()));
+        }
+        return ready.offer(compactor.compact(t));
+    }
+
+    private boolean isQueued(String workflowId) {
+        return ready.containsId(workflowId) || delayed.containsId(workflowId) || spilled.containsId(workflowId);
+    }
+
+    /*
+     * Безопасный выбор k лучших задач с учетом результатов canCompare
      */
-    private Task selectNextTask() {
+    private List<Task> selectBatch(int k) {
         if (ready.isEmpty()) {
-            return null;
+            return List.of();
+        }
+
+        // пары (workflowType, тенант), упёршиеся в rate-лимит или maxRunning, пропускаем целиком
+        var nowMs = Workflow.currentTimeMillis();
+        var eligible = ready.limitKeys().stream()
+                .filter(keys -> isEligible(keys, nowMs))
+                .mapToInt(ready::countByKeys)
+                .sum();
+        if (eligible == 0) {
+            return List.of();
+        }
+        var candidates = ready.withKeys(keys -> isEligible(keys, nowMs));
+        if (ready.isOrdered()) {
+            // очередь уже в порядке стратегии: первые подходящие, без сравнений;
+            // обход заканчивается на последней подходящей задаче
+            return StreamSupport.stream(candidates.spliterator(), false)
+                    .limit(Math.min(k, eligible))
+                    .toList();
         }
+        if (k == 1) {
+            return StreamSupport.stream(candidates.spliterator(), false)
+                    .min(this::safeCompare)
+                    .map(List::of)
+                    .orElse(List.of());
+        }
+        return TopK.best(candidates, t -> true, k, this::safeCompare);
+    }
+
+    private boolean isEligible(Task t, long nowMs) {
+        return isEligible(ReadyQueue.LimitKeys.of(t), nowMs);
+    }
+
+    /* у всех задач пары ключей лимиты одни и те же */
+    private boolean isEligible(ReadyQueue.LimitKeys keys, long nowMs) {
+        return (!trackRunning || running.isAllowed(keys.workflowType(), keys.tenant()))
+                && limits.isAllowed(keys.workflowType(), keys.tenant(), nowMs);
+    }
 
-        // Если в очереди одна задача, просто возвращаем её
-        if (ready.size() == 1) {
-            return ready.peek();
+    /* безопасная функция сравнения: ошибка стратегии не роняет цикл */
+    private int safeCompare(Task a, Task b) {
+        try {
+            return strategy.compare(a, b);
+        } catch (Exception e) {
+            log.warn("Error comparing tasks: {}", e.getMessage());
+            return 0; // Если произошла ошибка, считаем задачи равными
         }
+    }
 
-        // Создаем безопасную функцию сравнения для минимизации
-        return ready.stream()
-                .min((a, b) -> {
-                    try {
-                        return strategy.compare(a, b);
-                    } catch (Exception e) {
-                        log.warn("Error comparing tasks: {}", e.getMessage());
-                        return 0; // Если произошла ошибка, считаем задачи равными
-                    }
-                })
-                .orElse(null);
+    private boolean overBudget(SchedulingModuleProperties.Budget budget) {
+        return budget.getMaxTasks() > 0 && ready.size() > budget.getMaxTasks()
+                || budget.getMaxBytes() > 0 && ready.bytes() > budget.getMaxBytes();
+    }
+
+    /*
+     * Бюджет очереди: сбрасываем худшие по стратегии задачи, без полной сортировки
+     */
+    private void enforceBudget() {
+        var budget = cfg.getBudget();
+        while (true) {
+            var excess = 0;
+            var reason = "count";
+            if (budget.getMaxTasks() > 0) {
+                excess = ready.size() - budget.getMaxTasks();
+            }
+            if (budget.getMaxBytes() > 0 && ready.bytes() > budget.getMaxBytes() && excess <= 0) {
+                var avg = Math.max(1, ready.bytes() / ready.size());
+                excess = (int) Math.ceil((ready.bytes() - budget.getMaxBytes()) / (double) avg);
+                reason = "bytes";
+            }
+            if (excess <= 0) {
+                return;
+            }
+
+            log.warn("Queue over budget ({}), shedding {} tasks", reason, excess);
+            for (var t : LoadShedder.worst(ready, excess, this::safeCompare)) {
+                ready.remove(t);
+                discard(t);
+                metricsService.recordTaskShed(client, t.tenantId(), reason);
+            }
+        }
+    }
+
+    /*
+     * Overflow-ярус: выше highWaterMark худшие задачи пачками уходят в сегменты на диске,
+     * ниже lowWaterMark подгружается сегмент с лучшей головой
+     */
+    private void pageOverflow() {
+        if (overflow == null) {
+            return;
+        }
+        var spill = cfg.getSpill();
+        while (ready.size() > spill.getHighWaterMark()) {
+            var victims = spillWorst(ready.size() - spill.getHighWaterMark());
+            if (!spillSegment(victims)) {
+                victims.forEach(ready::offer);
+                break;
+            }
+        }
+        var nowMs = Workflow.currentTimeMillis();
+        unreachableUntil.values().removeIf(until -> until <= nowMs);
+        while (ready.size() < spill.getLowWaterMark() && !spilled.isEmpty()) {
+            var segment = spilled.best(this::safeCompare, s -> !unreachableUntil.containsKey(s.location()));
+            if (segment == null) {
+                break;
+            }
+            List<Task> loaded;
+            try {
+                loaded = segmentStub(segment.location()).loadTasks(segment.id());
+            } catch (ActivityFailure e) {
+                // хост сегмента недоступен — пробуем сегменты других хостов, к этому вернёмся позже
+                log.warn("Load of segment {} from {} failed, retrying later: {}",
+                        segment.id(), segment.location(), e.getMessage());
+                unreachableUntil.put(segment.location(), nowMs + SEGMENT_RETRY_MS);
+                continue;
+            }
+            // задачи сегмента прошлого запуска, отменённые до загрузки: только теперь известен их payload
+            var tasks = spilled.restore(segment, loaded, this::discard);
+            tasks.forEach(this::offerRestored);
+            track(Async.procedure(segmentStub(segment.location())::deleteSegment, segment.id()));
+            log.info("Loaded {} tasks from segment {}", tasks.size(), segment.id());
+        }
+        metricsService.updateOverflowSize(client, spilled.size());
+    }
+
+    /* худшие задачи ready на один сегмент, не больше {@code max}; из очереди уже убраны */
+    private List<Task> spillWorst(int max) {
+        var spill = cfg.getSpill();
+        var n = Math.min(Math.max(1, spill.getBatchSize()), max);
+        var victims = fitSegment(LoadShedder.worst(ready, n, this::safeCompare), spill.getMaxSegmentBytes());
+        victims.forEach(ready::remove);
+        return victims;
+    }
+
+    /*
+     * Id сегмента — Workflow.randomUUID, так что при replay activity получают те же id.
+     * false — запись не удалась, задачи надо вернуть туда, откуда их взяли
+     */
+    private boolean spillSegment(List<Task> victims) {
+        var segmentId = Workflow.randomUUID().toString();
+        String host;
+        try {
+            host = overflow.spillTasks(segmentId, victims);
+        } catch (ActivityFailure e) {
+            log.warn("Spill of {} tasks failed, keeping them in memory: {}", victims.size(), e.getMessage());
+            return false;
+        }
+        var location = host != null ? cfg.resolveSegmentTaskQueue(client, host) : null;
+        spilled.add(segmentId, location, victims, this::safeCompare);
+        log.info("Spilled {} tasks to segment {} on {}", victims.size(), segmentId, host);
+        return true;
+    }
+
+    /* сегмент читается и удаляется только на хосте, который его записал */
+    private OverflowActivity segmentStub(String location) {
+        if (location == null) {
+            return overflow;
+        }
+        return segmentStubs.computeIfAbsent(location, q -> Workflow.newActivityStub(OverflowActivity.class,
+                ActivityOptions.newBuilder(segmentOptions).setTaskQueue(q).build()));
+    }
+
+    /*
+     * Сегмент целиком идёт во вход spillTasks и в результат loadTasks, т.е. в историю.
+     * Больше лимита blob-а Temporal (2 MB) он уронил бы workflow task, а не activity,
+     * поэтому берём худшие задачи, пока их оценка не превысит maxBytes (хотя бы одну)
+     */
+    private List<Task> fitSegment(List<Task> victims, long maxBytes) {
+        var total = victims.stream().mapToLong(LoadShedder::estimateBytes).sum();
+        if (maxBytes <= 0 || total <= maxBytes) {
+            return victims;
+        }
+        var worstFirst = new ArrayList<>(victims);
+        worstFirst.sort((a, b) -> safeCompare(b, a));
+        var bytes = 0L;
+        var n = 0;
+        while (n < worstFirst.size()) {
+            bytes += LoadShedder.estimateBytes(worstFirst.get(n));
+            if (bytes > maxBytes && n > 0) {
+                break;
+            }
+            n++;
+        }
+        return new ArrayList<>(worstFirst.subList(0, n));
+    }
+
+    /*
+     * Обновление атрибутов, пока задача лежала на диске, могло снова её отложить.
+     * Задачи сегментов прошлого запуска не видны isQueued, их могли прислать заново — копию пропускаем
+     */
+    private void offerRestored(Task t) {
+        if (isQueued(t.getWorkflowId())) {
+            log.info("Task {} is already queued, restored copy ignored", t.getWorkflowId());
+            discardDuplicate(t);
+        } else if (DelayedTasks.isDelayed(t, now())) {
+            delayed.offer(compactor.compact(t));
+        } else {
+            offerReady(t);
+        }
+    }
+
+    /*
+     * Запуск задачи: через DispatchActivity или напрямую child-воркфлоу
+     */
+    private Promise<Void> dispatchAsync(Task next, String clientName, String tenantId) {
+        // claim-check задачи идут через activity: воркфлоу не может сам прочитать PayloadStore
+        if (cfg.getDispatchMode() == SchedulingModuleProperties.DispatchMode.CHILD_WORKFLOW
+                && next.getPayloadRef() == null) {
+            return startAbandonedChild(next, clientName, tenantId);
+        }
+        var payload = dispatchPayload(next, tenantId);
+        return Async.procedure(() -> dispatch.dispatchTask(
+                next.getWorkflowType(),
+                next.getWorkflowId(),
+                payload,
+                cfg.getTaskQueue()));
+    }
+
+    /*
+     * Для claim-check в activity уходит только ссылка (+ tenantId для memo).
+     * С отчётами о завершении clientName идёт служебным ключом: воркер задачи вернёт по нему отчёт;
+     * без них ключ не добавляем, чтобы собственная реализация DispatchActivity не передала его в аргументы
+     */
+    private Map<String, Object> dispatchPayload(Task next, String tenantId) {
+        var payload = new HashMap<String, Object>();
+        if (next.getPayloadRef() == null) {
+            payload.putAll(next.getPayload());
+        } else {
+            payload.put(PayloadStore.REF_KEY, next.getPayloadRef());
+            if (tenantId != null) {
+                payload.put("tenantId", tenantId);
+            }
+        }
+        if (props.getCompletions().isEnabled()) {
+            payload.put(DispatchActivity.CLIENT_NAME_KEY, client);
+        }
+        return payload;
+    }
+
+    /*
+     * Child с ABANDON переживает scheduler; promise завершается, как только child стартовал
+     */
+    private Promise<Void> startAbandonedChild(Task next, String clientName, String tenantId) {
+        var opts = ChildWorkflowOptions.newBuilder()
+                .setWorkflowId(next.getWorkflowId())
+                .setTaskQueue(cfg.getTaskQueue())
+                .setParentClosePolicy(ParentClosePolicy.PARENT_CLOSE_POLICY_ABANDON)
+                .setMemo(Map.of(
+                        "tenantId", tenantId != null ? tenantId : "default",
+                        "clientName", clientName))
+                .build();
+
+        var child = Workflow.newUntypedChildWorkflowStub(next.getWorkflowType(), opts);
+        child.executeAsync(Void.class, next.getPayload());
+        return child.getExecution().thenApply(e -> null);
     }
 
     /* ───── signals / query ───── */
     @Override
     public void submitTasks(List<Task> tasks, String clientName) {
         log.info("Received {} tasks", tasks.size());
-        ready.addAll(tasks);
+        for (var t : tasks) {
+            if (t.getWorkflowId() == null) {
+                log.warn("Task of type {} has no workflowId, ignored", t.getWorkflowType());
+                discard(t);
+            } else if (!enqueue(t)) {
+                log.info("Task {} is already queued, duplicate ignored", t.getWorkflowId());
+                discardDuplicate(t);
+            }
+        }
+        if (strategy != null) {
+            enforceBudget();
+        }
+        deleteDiscarded();
+        metricsService.updateQueueSize(clientName, ready.size());
+    }
+
+    @Override
+    public void validateSubmitTasksWithAck(List<Task> tasks, String clientName) {
+        if (tasks == null) {
+            throw new IllegalArgumentException("tasks must not be null");
+        }
+        for (var t : tasks) {
+            if (t == null || t.getWorkflowId() == null || t.getWorkflowType() == null) {
+                throw new IllegalArgumentException("Every task needs workflowId and workflowType");
+            }
+        }
+    }
+
+    @Override
+    public SubmitResult submitTasksWithAck(List<Task> tasks, String clientName) {
+        var clientCfg = Optional.ofNullable(cfg)
+                .or(() -> Optional.ofNullable(props.getClients().get(clientName)));
+        var admission = clientCfg.map(SchedulingModuleProperties.ClientProperties::getAdmission)
+                .orElseGet(SchedulingModuleProperties.Admission::new);
+        var budget = clientCfg.map(SchedulingModuleProperties.ClientProperties::getBudget)
+                .orElseGet(SchedulingModuleProperties.Budget::new);
+
+        var result = new SubmitResult();
+        for (var t : tasks) {
+            if (isQueued(t.getWorkflowId())) {
+                result.setDuplicates(result.getDuplicates() + 1);
+                discardDuplicate(t);
+                continue;
+            }
+
+            var tenant = t.tenantId();
+            String reason = null;
+            if (admission.getMaxQueued() > 0 && ready.size() + delayed.size() + spilled.size() >= admission.getMaxQueued()) {
+                reason = "client-cap";
+            } else if (admission.getMaxQueuedPerTenant() > 0
+                    && ready.countByTenant(tenant) + delayed.countByTenant(tenant) + spilled.countByTenant(tenant)
+                    >= admission.getMaxQueuedPerTenant()) {
+                reason = "tenant-cap";
+            }
+
+            if (reason == null) {
+                enqueue(t);
+                // бюджет — здесь же: иначе enforceBudget сбросил бы задачу, о приёме которой мы уже сообщили
+                if (ready.containsId(t.getWorkflowId()) && overBudget(budget)) {
+                    ready.removeById(t.getWorkflowId());
+                    reason = "budget";
+                }
+            }
+
+            if (reason == null) {
+                result.setAccepted(result.getAccepted() + 1);
+            } else {
+                result.setRejected(result.getRejected() + 1);
+                result.getRejectedIds().add(t.getWorkflowId());
+                metricsService.recordTaskRejected(clientName, tenant, reason);
+                discard(t);
+            }
+        }
+        deleteDiscarded();
+
+        if (result.getRejected() > 0) {
+            result.setRetryAfterMs(retryAfterMs(result.getRejected()));
+        }
+        log.info("Admission: accepted {}, duplicates {}, rejected {}",
+                result.getAccepted(), result.getDuplicates(), result.getRejected());
         metricsService.updateQueueSize(clientName, ready.size());
+        return result;
+    }
+
+    @Override
+    public void cancelTasks(List<String> workflowIds) {
+        var removed = 0;
+        for (var id : workflowIds) {
+            var spilledRef = spilled.payloadRef(id);
+            var task = Optional.ofNullable(ready.removeById(id)).orElseGet(() -> delayed.removeById(id));
+            if (task != null) {
+                discard(task);
+                removed++;
+            } else if (spilled.cancel(id)) {
+                discardRef(spilledRef);
+                removed++;
+            }
+        }
+        deleteDiscarded();
+        log.info("Canceled {} of {} requested tasks", removed, workflowIds.size());
+    }
+
+    @Override
+    public void updateTaskAttributes(String workflowId, Map<String, Object> attributes) {
+        queueVersion++;
+        // слияние копирует атрибуты в HashMap со строковыми датами — уплотняем заново
+        if (ready.updateAttributes(workflowId, attributes, compactor::compact)) {
+            // новый notBefore в будущем снова откладывает задачу
+            var task = ready.get(workflowId);
+            if (DelayedTasks.isDelayed(task, now())) {
+                ready.removeById(workflowId);
+                delayed.offer(task);
+            }
+        } else if (!delayed.updateAttributes(workflowId, attributes, compactor::compact)
+                && !spilled.updateAttributes(workflowId, attributes)) {
+            log.info("Task {} is not queued, attributes update ignored", workflowId);
+        }
+    }
+
+    @Override
+    public void validateUpdateConfig(ConfigUpdate update) {
+        if (strategy == null) {
+            throw new IllegalStateException("Scheduler is not running yet");
+        }
+        if (update == null) {
+            throw new IllegalArgumentException("update must not be null");
+        }
+        if (update.getThroughputFactor() != null && !(update.getThroughputFactor() > 0)) {
+            throw new IllegalArgumentException("throughputFactor must be positive");
+        }
+        if (update.getWindowSeconds() != null && update.getWindowSeconds() <= 0) {
+            throw new IllegalArgumentException("windowSeconds must be positive");
+        }
+        if (update.getFairnessHalfLifeSeconds() != null && update.getFairnessHalfLifeSeconds() <= 0) {
+            throw new IllegalArgumentException("fairnessHalfLifeSeconds must be positive");
+        }
+        if (update.getQuotas() != null && update.getQuotas().values().stream().anyMatch(q -> q == null || !(q > 0))) {
+            throw new IllegalArgumentException("Every quota must be positive");
+        }
+        if (update.getStrategy() != null) {
+            strategies.validate(update.getStrategy(), props.getCompletions().isEnabled());
+        }
+    }
+
+    @Override
+    public ConfigUpdate updateConfig(ConfigUpdate update) {
+        if (update.getThroughputFactor() != null) {
+            backpressure.setThroughputFactor(update.getThroughputFactor());
+            // с автоподстройкой лимит ведёт регулятор
+            if (rateController == null) {
+                dispatchRate = update.getThroughputFactor();
+                metricsService.updateDispatchRate(client, dispatchRate);
+            }
+        }
+        if (update.getWindowSeconds() != null) {
+            backpressure.setWindowSeconds(update.getWindowSeconds());
+        }
+        if (update.getQuotas() != null || update.getFairnessHalfLifeSeconds() != null) {
+            quotas = update.getQuotas() != null ? new HashMap<>(update.getQuotas()) : quotas;
+            halfLifeSeconds = Objects.requireNonNullElse(update.getFairnessHalfLifeSeconds(), halfLifeSeconds);
+            if (strategy instanceof QuotaAwareStrategy q) {
+                q.updateQuotas(quotas, halfLifeSeconds);
+            }
+        }
+        if (update.getStrategy() != null && !update.getStrategy().equals(strategySpec)) {
+            installStrategy(update.getStrategy());
+            log.info("Using strategy: {}", strategy);
+        }
+        queueVersion++;   // новые лимиты и порядок — пересмотреть очередь
+        var applied = currentConfig();
+        log.info("Configuration updated: {}", applied);
+        return applied;
+    }
+
+    @Override
+    public void reportCompletions(List<TaskCompletion> completions) {
+        if (running == null) {
+            log.info("Scheduler is not running yet, {} completions ignored", completions.size());
+            return;
+        }
+        if (strategy instanceof CompletionAwareStrategy c) {
+            var at = now();
+            completions.forEach(completion -> c.onCompletion(completion, at));
+        }
+        var released = completions.stream()
+                .filter(c -> running.onComplete(c.getWorkflowId()))
+                .count();
+        if (released > 0) {
+            queueVersion++;   // освободились слоты maxRunning — пересмотреть очередь
+        }
+        log.info("Completions: {} reported, {} released, {} still running",
+                completions.size(), released, running.size());
+        metricsService.updateRunningTasks(client, running.size());
     }
 
     @Override
@@ -194,42 +1027,242 @@ public class SchedulerWorkflowImpl implements SchedulerWorkflow {
         return ready.size();
     }
 
-    /* ─────────── helpers ─────────── */
-    private SchedulingStrategy buildStrategy(String name) {
-        var list = Arrays.stream(name.split("\\+"))
-                .map(str -> {
-                    var strategy = strategies.get(str);
-                    if (strategy == null) {
-                        throw new IllegalArgumentException("Unknown strategy: " + str);
-                    }
-                    return strategy;
-                })
-                .toList();
-        log.info("Building strategy: {}; strategies: {}, getting: {}", name, strategies, list);
-        return list.size() == 1 ? list.getFirst() : new CompositeSchedulingStrategy(list);
+    @Override
+    public int getDelayedLength() {
+        return delayed.size();
+    }
+
+    @Override
+    public int getOverflowLength() {
+        return spilled.size();
+    }
+
+    @Override
+    public double getDispatchRate() {
+        return currentRate();
+    }
+
+    @Override
+    public Map<String, Object> getQuotaRollup() {
+        if (chain == null) {
+            return Map.of();
+        }
+        return chain.values().stream()
+                .filter(HierarchicalFairShareStrategy.class::isInstance)
+                .map(s -> ((HierarchicalFairShareStrategy) s).rollup())
+                .findFirst()
+                .orElse(Map.of());
+    }
+
+    /* ─────────── continue-as-new ─────────── */
+
+    /* история подошла к лимиту; после неудачной попытки ждём HAND_OFF_RETRY_MS */
+    private boolean shouldContinueAsNew() {
+        if (Workflow.currentTimeMillis() < nextHandOffMs) {
+            return false;
+        }
+        var info = Workflow.getInfo();
+        var max = cfg.getContinueAsNew().getMaxHistoryLength();
+        return info.isContinueAsNewSuggested() || max > 0 && info.getHistoryLength() >= max;
+    }
+
+    /*
+     * Новый запуск получает очередь, сводки сегментов и состояние стратегий.
+     * Перед этим дожидаемся стартов, удалений и обработчиков signal/update:
+     * незавершённые activity и принятые, но не обработанные задачи при continue-as-new потерялись бы.
+     * Возвращается, только если очередь не уместилась во вход нового запуска
+     */
+    private void continueAsNew() {
+        var maxBytes = cfg.getContinueAsNew().getMaxCarriedBytes();
+        if (!fitCarried(maxBytes)) {
+            log.warn("Queue of {} does not fit {} bytes for continue-as-new, retrying in {} ms",
+                    client, maxBytes, HAND_OFF_RETRY_MS);
+            nextHandOffMs = Workflow.currentTimeMillis() + HAND_OFF_RETRY_MS;
+            return;
+        }
+        Workflow.await(() -> async.stream().allMatch(Promise::isCompleted)
+                && cleanup.stream().allMatch(Promise::isCompleted)
+                && (pendingSample == null || pendingSample.isCompleted())
+                && Workflow.isEveryHandlerFinished());
+        // обработчики могли добавить задачи и ссылки на удаление — они тоже уходят в новый запуск
+        deleteDiscarded();
+        Workflow.await(() -> cleanup.stream().allMatch(Promise::isCompleted));
+
+        var tasks = new ArrayList<Task>(ready);
+        tasks.addAll(delayed.tasks());
+        var strategyState = new HashMap<String, Map<String, Object>>();
+        chain.forEach((name, link) -> strategyState.put(name, link.exportState()));
+        var state = SchedulerState.builder()
+                .config(currentConfig())
+                .dispatchRate(rateController != null ? dispatchRate : 0)
+                .strategyState(strategyState)
+                .tasks(tasks)
+                .segments(spilled.summaries())
+                .spilledCancels(spilled.pendingCancels())
+                .spilledUpdates(spilled.pendingUpdates())
+                .running(running.snapshot())
+                .build();
+        log.info("Continuing {} as new: {} tasks, {} segments, history length {}",
+                client, tasks.size(), state.getSegments().size(), Workflow.getInfo().getHistoryLength());
+        strategy.onShutdown();
+        Workflow.continueAsNew(client, state);
+    }
+
+    /*
+     * Вход нового запуска ограничен maxBytes: лишние задачи, сначала худшие готовые, потом отложенные,
+     * уходят в сегменты теми же пачками, что и при вытеснении. Без spill-а — false
+     */
+    private boolean fitCarried(long maxBytes) {
+        var delayedTasks = delayed.tasks();
+        var bytes = ready.bytes() + delayedTasks.stream().mapToLong(LoadShedder::estimateBytes).sum();
+        var nextDelayed = 0;
+        while (bytes > maxBytes) {
+            if (overflow == null) {
+                return false;
+            }
+            List<Task> victims;
+            if (!ready.isEmpty()) {
+                victims = spillWorst(ready.size());
+                if (!spillSegment(victims)) {
+                    victims.forEach(ready::offer);
+                    return false;
+                }
+            } else {
+                var n = Math.min(Math.max(1, cfg.getSpill().getBatchSize()), delayedTasks.size() - nextDelayed);
+                victims = fitSegment(delayedTasks.subList(nextDelayed, nextDelayed + n),
+                        cfg.getSpill().getMaxSegmentBytes());
+                if (victims.isEmpty() || !spillSegment(victims)) {
+                    return false;
+                }
+                victims.forEach(t -> delayed.removeById(t.getWorkflowId()));
+                nextDelayed += victims.size();
+            }
+            bytes -= victims.stream().mapToLong(LoadShedder::estimateBytes).sum();
+        }
+        metricsService.updateOverflowSize(client, spilled.size());
+        return true;
+    }
+
+    /* очередь, сегменты, стратегии и слоты прошлого запуска */
+    private void restoreState(SchedulerState state) {
+        if (state.getRunning() != null && trackRunning) {
+            running.restore(state.getRunning());
+        }
+        if (state.getSegments() != null) {
+            spilled.restoreSummaries(state.getSegments(),
+                    Optional.ofNullable(state.getSpilledCancels()).orElseGet(Set::of),
+                    Optional.ofNullable(state.getSpilledUpdates()).orElseGet(Map::of));
+        }
+        if (state.getTasks() != null) {
+            state.getTasks().forEach(this::offerRestored);
+        }
+        log.info("Restored {} tasks and {} spilled tasks of the previous run",
+                ready.size() + delayed.size(), spilled.size());
+    }
+
+    /* ─────────── claim-check ─────────── */
+
+    /* задача не уйдёт в dispatch: её payload в PayloadStore больше никому не нужен */
+    private void discard(Task t) {
+        discardRef(t.getPayloadRef());
+    }
+
+    private void discardRef(String ref) {
+        if (ref != null) {
+            discarded.add(ref);
+        }
+    }
+
+    /* дубликат с той же ссылкой — повтор той же отправки: payload принадлежит задаче в очереди */
+    private void discardDuplicate(Task t) {
+        if (t.getPayloadRef() != null && !t.getPayloadRef().equals(queuedPayloadRef(t.getWorkflowId()))) {
+            discard(t);
+        }
     }
 
+    private String queuedPayloadRef(String workflowId) {
+        var queued = Optional.ofNullable(ready.get(workflowId)).orElseGet(() -> delayed.get(workflowId));
+        return queued != null ? queued.getPayloadRef() : spilled.payloadRef(workflowId);
+    }
+
+    /* завершённые удаления больше не нужны; незавершённые ждёт continue-as-new */
+    private void track(Promise<Void> promise) {
+        cleanup.removeIf(Promise::isCompleted);
+        cleanup.add(promise);
+    }
+
+    /* удаление — пачками по DELETE_BATCH, чтобы вход activity не упёрся в лимит blob-а */
+    private void deleteDiscarded() {
+        if (payloads == null || discarded.isEmpty()) {
+            return;
+        }
+        for (var from = 0; from < discarded.size(); from += DELETE_BATCH) {
+            var refs = new ArrayList<>(discarded.subList(from, Math.min(discarded.size(), from + DELETE_BATCH)));
+            track(Async.procedure(payloads::deletePayloads, refs));
+        }
+        log.info("Deleting payloads of {} discarded tasks", discarded.size());
+        discarded.clear();
+    }
+
+    /* ─────────── helpers ─────────── */
     private Instant now() {
         return Instant.ofEpochMilli(Workflow.currentTimeMillis());
     }
 
+    private ConfigUpdate currentConfig() {
+        return ConfigUpdate.builder()
+                .throughputFactor(backpressure.getThroughputFactor())
+                .windowSeconds(backpressure.getWindowSeconds())
+                .quotas(new HashMap<>(quotas))
+                .fairnessHalfLifeSeconds(halfLifeSeconds)
+                .strategy(strategySpec)
+                .build();
+    }
+
+    /* сколько ждать, пока очередь разгребёт отклонённый объём при текущем лимите */
+    private long retryAfterMs(int rejected) {
+        var limit = currentRate();
+        return Math.max(MIN_RETRY_AFTER_MS, (long) Math.ceil(rejected * 1000.0 / limit));
+    }
+
+    /* лимит задач/сек: автоподстроенный или статический throughputFactor */
+    private double currentRate() {
+        return dispatchRate > 0 ? dispatchRate : backpressure().getThroughputFactor();
+    }
+
+    /* до run() своей копии ещё нет */
+    private SchedulingModuleProperties.Backpressure backpressure() {
+        return backpressure != null ? backpressure : props.getBackpressure();
+    }
+
     /* запись метки времени успешного dispatch-а */
     private void recordDispatch() {
         window.addLast(now());
     }
 
+    /* сколько задач ещё влезает в скользящее окно без throttling-а */
+    private int rateTokens() {
+        var W = backpressure().getWindowSeconds();
+        pruneWindow(W);
+        return (int) Math.min(Integer.MAX_VALUE, Math.floor(currentRate() * W) - window.size());
+    }
+
+    private void pruneWindow(long W) {
+        var border = now().minusSeconds(W);
+        while (!window.isEmpty() && window.peekFirst().isBefore(border)) {
+            window.removeFirst();
+        }
+    }
+
     /* скользящее окно + динамический sleep */
     private void throttleIfNeeded(String clientName) {
         if (props == null) {
             return;
         }
-        var W = props.getBackpressure().getWindowSeconds();
-        var limit = props.getBackpressure().getThroughputFactor();  // задач / сек
+        var W = backpressure().getWindowSeconds();
+        var limit = currentRate();  // задач / сек
 
-        var border = now().minusSeconds(W);
-        while (!window.isEmpty() && window.peekFirst().isBefore(border)) {
-            window.removeFirst();
-        }
+        pruneWindow(W);
 
         var rate = window.size() / (double) W;      // фактический QPS
         if (rate <= limit) {
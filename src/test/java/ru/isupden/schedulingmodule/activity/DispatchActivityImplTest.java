@@ -4,18 +4,29 @@ import java.util.HashMap;
 import java.util.Map;
 
 import io.micrometer.core.instrument.Timer;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
 import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.payload.InMemoryPayloadStore;
+import ru.isupden.schedulingmodule.payload.PayloadStore;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -105,6 +116,116 @@ class DispatchActivityImplTest {
         assertEquals("default", memo.get("tenantId"));
     }
 
+    @Test
+    void testPipelinedDispatchReleasesActivitySlot() {
+        var pipeline = mock(DispatchPipeline.class);
+        var context = mock(ActivityExecutionContext.class);
+        var token = new byte[]{42};
+        when(context.getTaskToken()).thenReturn(token);
+        when(pipeline.submit(eq(token), any(Runnable.class))).thenReturn(true);
+
+        var pipelined = new DispatchActivityImpl(workflowClient, metricsService, pipeline, null);
+
+        try (MockedStatic<Activity> activity = mockStatic(Activity.class)) {
+            activity.when(Activity::getExecutionContext).thenReturn(context);
+
+            pipelined.dispatchTask("TestWorkflow", "test-wf-id", new HashMap<>(), "test-task-queue");
+        }
+
+        verify(context, times(1)).doNotCompleteOnReturn();
+        verify(workflowClient, never()).newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class));
+    }
+
+    @Test
+    void testPipelinedDispatchFallsBackToSyncStartWhenFull() {
+        var pipeline = mock(DispatchPipeline.class);
+        var context = mock(ActivityExecutionContext.class);
+        when(context.getTaskToken()).thenReturn(new byte[]{42});
+        when(pipeline.submit(any(), any(Runnable.class))).thenReturn(false);
+        when(workflowClient.newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class)))
+                .thenReturn(workflowStub);
+
+        var pipelined = new DispatchActivityImpl(workflowClient, metricsService, pipeline, null);
+
+        try (MockedStatic<Activity> activity = mockStatic(Activity.class)) {
+            activity.when(Activity::getExecutionContext).thenReturn(context);
+
+            pipelined.dispatchTask("TestWorkflow", "test-wf-id", new HashMap<>(), "test-task-queue");
+        }
+
+        verify(context, never()).doNotCompleteOnReturn();
+        verify(workflowStub, times(1)).start(any());
+    }
+
+    @Test
+    void testDispatchTaskResolvesClaimCheckReference() {
+        var store = new InMemoryPayloadStore();
+        var stored = Map.<String, Object>of("data", "large");
+        var ref = store.put("test-wf-id", stored);
+        var payload = new HashMap<String, Object>();
+        payload.put(PayloadStore.REF_KEY, ref);
+        payload.put("tenantId", "testTenant");
+        when(workflowClient.newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class)))
+                .thenReturn(workflowStub);
+
+        var claimCheck = new DispatchActivityImpl(workflowClient, metricsService, null, store);
+        claimCheck.dispatchTask("TestWorkflow", "test-wf-id", payload, "test-task-queue");
+
+        var optionsCaptor = ArgumentCaptor.forClass(WorkflowOptions.class);
+        verify(workflowClient).newUntypedWorkflowStub(eq("TestWorkflow"), optionsCaptor.capture());
+        verify(workflowStub, times(1)).start(eq(stored));
+        assertEquals("testTenant", optionsCaptor.getValue().getMemo().get("tenantId"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testDispatchTaskWithConsumedReferenceTreatsTaskAsStarted() {
+        var store = new InMemoryPayloadStore();
+        var payload = new HashMap<String, Object>();
+        payload.put(PayloadStore.REF_KEY, "already-deleted");
+
+        // повтор после потерянного ответа: ссылку удалила прошлая, успешная попытка
+        var claimCheck = new DispatchActivityImpl(workflowClient, metricsService, null, store);
+        claimCheck.dispatchTask("TestWorkflow", "test-wf-id", payload, "test-task-queue");
+
+        verify(workflowClient, never()).newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class));
+    }
+
+    @Test
+    void testDispatchTaskDeletesReferenceWhenAlreadyStarted() {
+        var store = new InMemoryPayloadStore();
+        var ref = store.put("test-wf-id", Map.of("data", "large"));
+        var payload = new HashMap<String, Object>();
+        payload.put(PayloadStore.REF_KEY, ref);
+        when(workflowClient.newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class)))
+                .thenReturn(workflowStub);
+        var alreadyStarted = new WorkflowExecutionAlreadyStarted(
+                WorkflowExecution.newBuilder().setWorkflowId("test-wf-id").build(), "TestWorkflow", null);
+        doThrow(alreadyStarted).when(workflowStub).start(any());
+
+        var claimCheck = new DispatchActivityImpl(workflowClient, metricsService, null, store);
+
+        assertThrows(WorkflowExecutionAlreadyStarted.class,
+                () -> claimCheck.dispatchTask("TestWorkflow", "test-wf-id", payload, "test-task-queue"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testDispatchTaskMovesClientNameToMemo() {
+        var payload = new HashMap<String, Object>();
+        payload.put("data", "testData");
+        payload.put(DispatchActivity.CLIENT_NAME_KEY, "clientA");
+        when(workflowClient.newUntypedWorkflowStub(anyString(), any(WorkflowOptions.class)))
+                .thenReturn(workflowStub);
+
+        dispatchActivity.dispatchTask("TestWorkflow", "test-wf-id", payload, "test-task-queue");
+
+        var optionsCaptor = ArgumentCaptor.forClass(WorkflowOptions.class);
+        verify(workflowClient).newUntypedWorkflowStub(eq("TestWorkflow"), optionsCaptor.capture());
+        verify(workflowStub, times(1)).start(eq(Map.of("data", "testData")));
+        assertEquals("clientA", optionsCaptor.getValue().getMemo().get("clientName"));
+    }
+
     // Helper method to access private WorkflowOptions fields via reflection
     private String getWorkflowId(WorkflowOptions options) {
         try {
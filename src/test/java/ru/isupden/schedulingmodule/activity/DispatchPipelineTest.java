@@ -0,0 +1,87 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.temporal.client.ActivityCompletionClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class DispatchPipelineTest {
+
+    private static final byte[] TOKEN = {1, 2, 3};
+
+    private ActivityCompletionClient completionClient;
+    private DispatchPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        completionClient = mock(ActivityCompletionClient.class);
+        pipeline = new DispatchPipeline(completionClient, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.close();
+    }
+
+    @Test
+    void submit_ShouldCompleteActivityAfterStart() {
+        assertTrue(pipeline.submit(TOKEN, () -> {
+        }));
+
+        verify(completionClient, timeout(1000)).complete(eq(TOKEN), isNull());
+        verify(completionClient, never()).completeExceptionally(any(byte[].class), any(Exception.class));
+    }
+
+    @Test
+    void submit_ShouldFailActivity_WhenStartThrows() {
+        var failure = new IllegalStateException("boom");
+
+        assertTrue(pipeline.submit(TOKEN, () -> {
+            throw failure;
+        }));
+
+        verify(completionClient, timeout(1000)).completeExceptionally(TOKEN, failure);
+    }
+
+    @Test
+    void submit_ShouldReject_WhenPipelineIsFull() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        assertTrue(pipeline.submit(TOKEN, blocking));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(pipeline.submit(TOKEN, () -> {
+        }));
+
+        assertEquals(1, pipeline.inFlight());
+        assertEquals(1, pipeline.queueDepth());
+        assertFalse(pipeline.submit(TOKEN, () -> {
+        }));
+
+        release.countDown();
+        verify(completionClient, timeout(1000).times(2)).complete(eq(TOKEN), isNull());
+        assertEquals(1, pipeline.peakInFlight());
+    }
+}
@@ -0,0 +1,70 @@
+package ru.isupden.schedulingmodule.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.client.WorkflowClient;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties.ChannelSelection;
+import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class WorkflowClientPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SchedulingMetricsService metrics = new SchedulingMetricsService(registry);
+    private final List<WorkflowClient> clients = List.of(
+            mock(WorkflowClient.class), mock(WorkflowClient.class), mock(WorkflowClient.class));
+
+    @Test
+    void call_RoundRobin_ShouldCycleThroughChannels() {
+        var pool = new WorkflowClientPool(clients, ChannelSelection.ROUND_ROBIN, metrics);
+
+        var used = new ArrayList<WorkflowClient>();
+        for (var i = 0; i < 6; i++) {
+            used.add(pool.call(c -> c));
+        }
+
+        assertEquals(List.of(clients.get(0), clients.get(1), clients.get(2),
+                clients.get(0), clients.get(1), clients.get(2)), used);
+    }
+
+    @Test
+    void call_LeastInFlight_ShouldAvoidBusyChannel() {
+        var pool = new WorkflowClientPool(clients.subList(0, 2), ChannelSelection.LEAST_IN_FLIGHT, metrics);
+
+        // пока первый вызов держит канал, второй и третий идут в свободный
+        pool.call(outer -> {
+            assertNotSame(outer, pool.call(inner -> inner));
+            assertNotSame(outer, pool.call(inner -> inner));
+            return null;
+        });
+
+        assertEquals(0, pool.inFlight(0));
+        assertEquals(0, pool.inFlight(1));
+    }
+
+    @Test
+    void call_ShouldReleaseChannelAndRecordLatencyOnFailure() {
+        var pool = new WorkflowClientPool(clients.subList(0, 1), ChannelSelection.LEAST_IN_FLIGHT, metrics);
+
+        assertThrows(IllegalStateException.class, () -> pool.call(c -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(0, pool.inFlight(0));
+        assertEquals(1, registry.get("scheduling.dispatch.channel.latency").tag("channel", "0").timer().count());
+    }
+
+    @Test
+    void constructor_ShouldRegisterGaugePerChannel() {
+        new WorkflowClientPool(clients, ChannelSelection.ROUND_ROBIN, metrics);
+
+        assertEquals(3, registry.get("scheduling.dispatch.channel.inflight").gauges().size());
+    }
+}
@@ -0,0 +1,146 @@
+package ru.isupden.schedulingmodule.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import io.temporal.workflow.unsafe.WorkflowUnsafe;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.isupden.schedulingmodule.activity.DispatchActivityImpl;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflowImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение путей dispatch-а: DispatchActivity против abandoned child-воркфлоу.
+ * Печатает dispatch/сек и число событий истории scheduler-а на одну задачу.
+ * Запуск: {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class DispatchModeBenchmark {
+
+    private static final String CLIENT = "bench";
+    private static final String TARGET_QUEUE = "bench-target";
+    private static final int TASKS = 2_000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private static final AtomicInteger STARTED = new AtomicInteger();
+
+    @ParameterizedTest
+    @EnumSource(SchedulingModuleProperties.DispatchMode.class)
+    void dispatchThroughput(SchedulingModuleProperties.DispatchMode mode) throws InterruptedException {
+        STARTED.set(0);
+
+        var clientProps = new SchedulingModuleProperties.ClientProperties();
+        clientProps.setTaskQueue(TARGET_QUEUE);
+        clientProps.setStrategy("priority");
+        clientProps.setDispatchMode(mode);
+
+        var props = new SchedulingModuleProperties();
+        props.setClients(Map.of(CLIENT, clientProps));
+        props.getBackpressure().setThroughputFactor(1_000_000);
+
+        var metrics = new SchedulingMetricsService(new SimpleMeterRegistry());
+        var strategies = new SchedulingStrategyFactory().register("priority", PrioritySchedulingStrategy::new);
+
+        var env = TestWorkflowEnvironment.newInstance();
+        try {
+            var activity = new DispatchActivityImpl(env.getWorkflowClient(), metrics);
+            var schedulerWorker = env.newWorker("scheduler-" + CLIENT);
+            schedulerWorker.registerWorkflowImplementationFactory(
+                    SchedulerWorkflow.class,
+                    () -> new SchedulerWorkflowImpl(props, strategies, activity, metrics));
+            env.newWorker("dispatch-" + CLIENT).registerActivitiesImplementations(activity);
+            env.newWorker(TARGET_QUEUE).registerWorkflowImplementationTypes(BenchChildImpl.class);
+            env.start();
+
+            var scheduler = env.getWorkflowClient().newWorkflowStub(
+                    SchedulerWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setWorkflowId("SCHED_" + CLIENT)
+                            .setTaskQueue("scheduler-" + CLIENT)
+                            .build());
+            var execution = WorkflowClient.start(scheduler::run, CLIENT, null);
+
+            var begin = System.nanoTime();
+            scheduler.submitTasks(tasks(), CLIENT);
+            var deadline = begin + TIMEOUT.toNanos();
+            while (STARTED.get() < TASKS && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            var elapsedSec = (System.nanoTime() - begin) / 1e9;
+
+            assertEquals(TASKS, STARTED.get(), "не все задачи были запущены");
+
+            var events = historyEvents(env, execution);
+            System.out.printf("[%s] %d tasks in %.2f s: %.0f dispatches/s, %.2f history events/task%n",
+                    mode, TASKS, elapsedSec, TASKS / elapsedSec, events / (double) TASKS);
+        } finally {
+            env.close();
+        }
+    }
+
+    private static List<Task> tasks() {
+        var list = new ArrayList<Task>(TASKS);
+        for (var i = 0; i < TASKS; i++) {
+            var task = Task.builder()
+                    .workflowType("BenchChild")
+                    .workflowId("bench-" + i)
+                    .payload(Map.of("tenantId", "tenant-" + (i % 4), "n", i))
+                    .build();
+            task.getAttributes().put("priority", i % 10);
+            list.add(task);
+        }
+        return list;
+    }
+
+    private static int historyEvents(TestWorkflowEnvironment env, WorkflowExecution execution) {
+        var stub = env.getWorkflowServiceStubs().blockingStub();
+        var count = 0;
+        var token = ByteString.EMPTY;
+        do {
+            var response = stub.getWorkflowExecutionHistory(GetWorkflowExecutionHistoryRequest.newBuilder()
+                    .setNamespace(env.getNamespace())
+                    .setExecution(execution)
+                    .setNextPageToken(token)
+                    .build());
+            count += response.getHistory().getEventsCount();
+            token = response.getNextPageToken();
+        } while (!token.isEmpty());
+        return count;
+    }
+
+    @WorkflowInterface
+    public interface BenchChild {
+        @WorkflowMethod
+        void run(Map<String, Object> payload);
+    }
+
+    public static class BenchChildImpl implements BenchChild {
+        @Override
+        public void run(Map<String, Object> payload) {
+            if (!WorkflowUnsafe.isReplaying()) {
+                STARTED.incrementAndGet();
+            }
+        }
+    }
+}
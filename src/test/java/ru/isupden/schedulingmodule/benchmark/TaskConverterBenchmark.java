@@ -0,0 +1,84 @@
+package ru.isupden.schedulingmodule.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.converter.TaskPayloadConverter;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сериализация пачки задач (как в submitTasks): Jackson JSON против TaskPayloadConverter.
+ * Печатает задач/сек на serialize и deserialize и байт на задачу.
+ * Запуск: {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class TaskConverterBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 1_000;
+
+    @Test
+    void jsonVersusBinary() {
+        var tasks = tasks();
+        run("jackson", new JacksonJsonPayloadConverter(), tasks);
+        run("binary", new TaskPayloadConverter(), tasks);
+    }
+
+    private void run(String name, PayloadConverter converter, List<Task> tasks) {
+        Payload payload = null;
+        for (var i = 0; i < WARMUP; i++) {
+            payload = converter.toData(tasks).orElseThrow();
+            converter.fromData(payload, List.class, List.class);
+        }
+
+        var start = System.nanoTime();
+        for (var i = 0; i < ROUNDS; i++) {
+            payload = converter.toData(tasks).orElseThrow();
+        }
+        var serializeSec = (System.nanoTime() - start) / 1e9;
+
+        List<?> decoded = null;
+        start = System.nanoTime();
+        for (var i = 0; i < ROUNDS; i++) {
+            decoded = converter.fromData(payload, List.class, List.class);
+        }
+        var deserializeSec = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(BATCH, decoded.size());
+        System.out.printf("%s: serialize %.0f tasks/s, deserialize %.0f tasks/s, %d B/task%n",
+                name,
+                BATCH * ROUNDS / serializeSec,
+                BATCH * ROUNDS / deserializeSec,
+                payload.getData().size() / BATCH);
+    }
+
+    private static List<Task> tasks() {
+        var deadline = Instant.parse("2030-01-01T00:00:00Z");
+        var tasks = new ArrayList<Task>(BATCH);
+        for (var i = 0; i < BATCH; i++) {
+            var payload = new HashMap<String, Object>();
+            payload.put("tenantId", "tenant-" + i % 50);
+            payload.put("orderId", i);
+            payload.put("comment", "order #" + i);
+            var task = Task.builder()
+                    .workflowId("wf-" + i)
+                    .workflowType("ReportWorkflow")
+                    .payload(payload)
+                    .build();
+            task.getAttributes().put("priority", i % 10);
+            task.getAttributes().put("deadline", deadline.plusSeconds(i).toString());
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.isupden.schedulingmodule.benchmark;
+
+import java.time.Instant;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+import ru.isupden.schedulingmodule.queue.TaskCompactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Память на задачу в ready-очереди: задачи «как после JSON» против уплотнённых TaskCompactor-ом.
+ * Печатает байт на задачу по разнице занятой кучи после GC.
+ * Запуск: {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class TaskFootprintBenchmark {
+
+    private static final Instant DEADLINE = Instant.parse("2030-01-01T00:00:00Z");
+
+    @ParameterizedTest(name = "tasks={0}")
+    @ValueSource(ints = {100_000, 1_000_000})
+    void heapPerTask(int tasks) {
+        var raw = measure(tasks, false);
+        var compact = measure(tasks, true);
+
+        System.out.printf("tasks=%d raw=%d B/task compact=%d B/task (%.0f%%)%n",
+                tasks, raw, compact, 100.0 * compact / raw);
+    }
+
+    private long measure(int tasks, boolean compacted) {
+        var compactor = new TaskCompactor();
+        var before = usedHeap();
+        var queue = new ReadyQueue();
+        for (var i = 0; i < tasks; i++) {
+            var task = jsonLikeTask(i);
+            queue.offer(compacted ? compactor.compact(task) : task);
+        }
+        var after = usedHeap();
+        assertEquals(tasks, queue.size());
+        return (after - before) / tasks;
+    }
+
+    /* строки создаются заново, как при десериализации каждой задачи */
+    private static Task jsonLikeTask(int i) {
+        var payload = new HashMap<String, Object>();
+        payload.put(new String("tenantId"), new String("tenant-" + i % 100));
+        payload.put(new String("orderId"), i);
+        var task = Task.builder()
+                .workflowId("wf-" + i)
+                .workflowType(new String("ReportWorkflow"))
+                .payload(payload)
+                .build();
+        task.getAttributes().put(new String("priority"), i % 10);
+        task.getAttributes().put(new String("deadline"), DEADLINE.plusSeconds(i).toString());
+        task.getAttributes().put(new String("enqueuedAt"), 1_700_000_000_000L + i);
+        return task;
+    }
+
+    private static long usedHeap() {
+        var rt = Runtime.getRuntime();
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.isupden.schedulingmodule.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import io.temporal.workflow.unsafe.WorkflowUnsafe;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.isupden.schedulingmodule.activity.DispatchActivityImpl;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.config.TemporalOptions;
+import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflowImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * DispatchActivity на платформенных и виртуальных потоках при 1k+ одновременных стартов.
+ * Печатает dispatch/сек и пиковое число живых платформенных потоков JVM.
+ * Запуск: {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadDispatchBenchmark {
+
+    private static final String CLIENT = "vt-bench";
+    private static final String TARGET_QUEUE = "vt-bench-target";
+    private static final int TASKS = 5_000;
+    private static final int CONCURRENCY = 2_000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private static final AtomicInteger STARTED = new AtomicInteger();
+
+    @ParameterizedTest(name = "virtualThreads={0}")
+    @ValueSource(booleans = {false, true})
+    void dispatchThroughput(boolean virtualThreads) throws InterruptedException {
+        STARTED.set(0);
+
+        var clientProps = new SchedulingModuleProperties.ClientProperties();
+        clientProps.setTaskQueue(TARGET_QUEUE);
+        clientProps.setStrategy("priority");
+        clientProps.getDispatchWorker().setMaxConcurrentActivityExecutionSize(CONCURRENCY);
+        clientProps.getDispatchWorker().setMaxConcurrentActivityTaskPollers(16);
+        clientProps.getDispatchWorker().setVirtualThreads(virtualThreads);
+        clientProps.getWorker().setVirtualThreads(virtualThreads);
+
+        var props = new SchedulingModuleProperties();
+        props.setClients(Map.of(CLIENT, clientProps));
+        props.getBackpressure().setThroughputFactor(1_000_000);
+        props.getWorkerFactory().setVirtualWorkflowThreads(virtualThreads);
+
+        var metrics = new SchedulingMetricsService(new SimpleMeterRegistry());
+        var strategies = new SchedulingStrategyFactory().register("priority", PrioritySchedulingStrategy::new);
+
+        var threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        var env = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(TemporalOptions.factoryOptions(props.getWorkerFactory()))
+                .build());
+        try {
+            var activity = new DispatchActivityImpl(env.getWorkflowClient(), metrics);
+            var schedulerWorker = env.newWorker("scheduler-" + CLIENT,
+                    TemporalOptions.workerOptions(clientProps.getWorker()));
+            schedulerWorker.registerWorkflowImplementationFactory(
+                    SchedulerWorkflow.class,
+                    () -> new SchedulerWorkflowImpl(props, strategies, activity, metrics));
+            env.newWorker(clientProps.resolveDispatchTaskQueue(CLIENT),
+                            TemporalOptions.workerOptions(clientProps.getDispatchWorker()))
+                    .registerActivitiesImplementations(activity);
+            env.newWorker(TARGET_QUEUE).registerWorkflowImplementationTypes(BenchTargetImpl.class);
+            env.start();
+
+            var scheduler = env.getWorkflowClient().newWorkflowStub(
+                    SchedulerWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setWorkflowId("SCHED_" + CLIENT)
+                            .setTaskQueue("scheduler-" + CLIENT)
+                            .build());
+            WorkflowClient.start(scheduler::run, CLIENT, null);
+
+            var begin = System.nanoTime();
+            scheduler.submitTasks(tasks(), CLIENT);
+            var deadline = begin + TIMEOUT.toNanos();
+            while (STARTED.get() < TASKS && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            var elapsedSec = (System.nanoTime() - begin) / 1e9;
+
+            assertEquals(TASKS, STARTED.get(), "не все задачи были запущены");
+
+            System.out.printf("[virtualThreads=%s] %d tasks in %.2f s: %.0f dispatches/s, peak platform threads %d%n",
+                    virtualThreads, TASKS, elapsedSec, TASKS / elapsedSec, threads.getPeakThreadCount());
+        } finally {
+            env.close();
+        }
+    }
+
+    private static List<Task> tasks() {
+        var list = new ArrayList<Task>(TASKS);
+        for (var i = 0; i < TASKS; i++) {
+            var task = Task.builder()
+                    .workflowType("BenchTarget")
+                    .workflowId("vt-bench-" + i)
+                    .payload(Map.of("tenantId", "tenant-" + (i % 4), "n", i))
+                    .build();
+            task.getAttributes().put("priority", i % 10);
+            list.add(task);
+        }
+        return list;
+    }
+
+    @WorkflowInterface
+    public interface BenchTarget {
+        @WorkflowMethod
+        void run(Map<String, Object> payload);
+    }
+
+    public static class BenchTargetImpl implements BenchTarget {
+        @Override
+        public void run(Map<String, Object> payload) {
+            if (!WorkflowUnsafe.isReplaying()) {
+                STARTED.incrementAndGet();
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package ru.isupden.schedulingmodule.config;
 
-import java.util.Map;
-
 import io.temporal.client.WorkflowClient;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.worker.WorkerFactory;
@@ -13,7 +11,7 @@ import ru.isupden.schedulingmodule.strategy.CriticalPathSchedulingStrategy;
 import ru.isupden.schedulingmodule.strategy.DeadlineSchedulingStrategy;
 import ru.isupden.schedulingmodule.strategy.FairnessSchedulingStrategy;
 import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
-import ru.isupden.schedulingmodule.strategy.SchedulingStrategy;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -33,7 +31,7 @@ class SchedulingModuleAutoConfigurationTest {
     DispatchActivity dispatchActivity;
 
     @Autowired
-    Map<String, SchedulingStrategy> strategyRegistry;
+    SchedulingStrategyFactory strategyFactory;
 
     @Test
     void contextLoads_andAllBeansCreated() {
@@ -41,10 +39,12 @@ class SchedulingModuleAutoConfigurationTest {
         assertThat(workflowClient).isNotNull();
         assertThat(workerFactory).isNotNull();
         assertThat(dispatchActivity).isNotNull();
-        assertThat(strategyRegistry).isNotNull().containsKeys("priority", "deadline", "critical", "fairness");
-        assertThat(strategyRegistry.get("priority")).isInstanceOf(PrioritySchedulingStrategy.class);
-        assertThat(strategyRegistry.get("deadline")).isInstanceOf(DeadlineSchedulingStrategy.class);
-        assertThat(strategyRegistry.get("critical")).isInstanceOf(CriticalPathSchedulingStrategy.class);
-        assertThat(strategyRegistry.get("fairness")).isInstanceOf(FairnessSchedulingStrategy.class);
+        assertThat(strategyFactory).isNotNull();
+        assertThat(strategyFactory.names()).contains("priority", "deadline", "critical", "fairness");
+        assertThat(strategyFactory.create("priority")).isInstanceOf(PrioritySchedulingStrategy.class);
+        assertThat(strategyFactory.create("deadline")).isInstanceOf(DeadlineSchedulingStrategy.class);
+        assertThat(strategyFactory.create("critical")).isInstanceOf(CriticalPathSchedulingStrategy.class);
+        assertThat(strategyFactory.create("fairness")).isInstanceOf(FairnessSchedulingStrategy.class);
+        assertThat(strategyFactory.create("fairness")).isNotSameAs(strategyFactory.create("fairness"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ru.isupden.schedulingmodule.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemporalOptionsTest {
+
+    @Test
+    void workerOptions_shouldApplyConfiguredValues() {
+        var cfg = new SchedulingModuleProperties.WorkerTuning();
+        cfg.setMaxConcurrentActivityExecutionSize(2000);
+        cfg.setMaxConcurrentActivityTaskPollers(8);
+        cfg.setVirtualThreads(true);
+
+        var options = TemporalOptions.workerOptions(cfg);
+
+        assertThat(options.getMaxConcurrentActivityExecutionSize()).isEqualTo(2000);
+        assertThat(options.getMaxConcurrentActivityTaskPollers()).isEqualTo(8);
+        assertThat(options.isUsingVirtualThreads()).isTrue();
+    }
+
+    @Test
+    void factoryOptions_shouldKeepSdkDefaultsForZeroValues() {
+        var cfg = new SchedulingModuleProperties.WorkerFactoryTuning();
+        cfg.setVirtualWorkflowThreads(true);
+
+        var options = TemporalOptions.factoryOptions(cfg);
+        var defaults = io.temporal.worker.WorkerFactoryOptions.getDefaultInstance();
+
+        assertThat(options.getWorkflowCacheSize()).isEqualTo(defaults.getWorkflowCacheSize());
+        assertThat(options.isUsingVirtualWorkflowThreads()).isTrue();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.isupden.schedulingmodule.converter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.EncodingKeys;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskPayloadConverterTest {
+
+    private static final Instant DEADLINE = Instant.parse("2030-01-01T00:00:00Z");
+
+    private final TaskPayloadConverter converter = new TaskPayloadConverter();
+    private final DataConverter dataConverter = TaskPayloadConverter.newDataConverter();
+
+    @Test
+    void testTask_ShouldRoundTripWithTypedSchedulingFields() {
+        var task = createTask("A", "tenant1");
+
+        var payload = converter.toData(task).orElseThrow();
+        var decoded = converter.fromData(payload, Task.class, Task.class);
+
+        assertEquals(TaskPayloadConverter.ENCODING,
+                payload.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+        assertEquals("ReportWorkflow", decoded.getWorkflowType());
+        assertEquals("A", decoded.getWorkflowId());
+        assertNull(decoded.getPayloadRef());
+        assertEquals(Map.of("tenantId", "tenant1", "amount", 42L, "tags", List.of("x", "y")), decoded.getPayload());
+        assertEquals(7, decoded.getAttributes().get("priority"));
+        // deadline приходил ISO-строкой, а декодируется числом
+        assertEquals(DEADLINE.toEpochMilli(), decoded.getAttributes().get("deadline"));
+        assertEquals(DEADLINE, decoded.instantAttr("deadline"));
+    }
+
+    @Test
+    void testTaskList_ShouldRoundTripThroughDataConverter() {
+        var tasks = List.of(createTask("A", "tenant1"), createTask("B", "tenant2"));
+
+        var payloads = dataConverter.toPayloads(tasks, "client").orElseThrow();
+        List<?> decoded = dataConverter.fromPayloads(0, Optional.of(payloads), List.class, List.class);
+        var clientName = dataConverter.fromPayloads(1, Optional.of(payloads), String.class, String.class);
+
+        assertEquals(2, decoded.size());
+        assertEquals("B", ((Task) decoded.get(1)).getWorkflowId());
+        assertEquals("tenant2", ((Task) decoded.get(1)).tenantId());
+        assertEquals("client", clientName);
+    }
+
+    @Test
+    void testToData_ShouldSkipNonTaskValues() {
+        assertTrue(converter.toData("text").isEmpty());
+        assertTrue(converter.toData(List.of()).isEmpty());
+        assertTrue(converter.toData(List.of("a", "b")).isEmpty());
+        assertTrue(converter.toData(Map.of("k", "v")).isEmpty());
+    }
+
+    @Test
+    void testUnknownValues_ShouldBecomeJsonLikeTrees() {
+        var task = createTask("A", "tenant1");
+        var payload = new HashMap<String, Object>();
+        payload.put("amount", new BigDecimal("12.5"));
+        payload.put("missing", null);
+        payload.put("at", DEADLINE);
+        task.setPayload(payload);
+
+        var decoded = converter.fromData(converter.toData(task).orElseThrow(), Task.class, Task.class);
+
+        assertEquals(12.5, decoded.getPayload().get("amount"));
+        assertTrue(decoded.getPayload().containsKey("missing"));
+        assertEquals(DEADLINE, decoded.getPayload().get("at"));
+    }
+
+    @Test
+    void testEncoding_ShouldBeSmallerThanJsonForRepeatedStrings() {
+        var tasks = new ArrayList<Task>();
+        for (var i = 0; i < 100; i++) {
+            tasks.add(createTask("wf-" + i, "tenant-" + i % 5));
+        }
+
+        var binary = converter.toData(tasks).orElseThrow().getData().size();
+        var json = DataConverter.getDefaultInstance().toPayload(tasks).orElseThrow().getData().size();
+
+        assertTrue(binary < json, "binary " + binary + " >= json " + json);
+    }
+
+    private Task createTask(String id, String tenant) {
+        var payload = new HashMap<String, Object>();
+        payload.put("tenantId", tenant);
+        payload.put("amount", 42L);
+        payload.put("tags", List.of("x", "y"));
+        var task = Task.builder()
+                .workflowId(id)
+                .workflowType("ReportWorkflow")
+                .payload(payload)
+                .build();
+        task.getAttributes().put("priority", 7);
+        task.getAttributes().put("deadline", DEADLINE.toString());
+        return task;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.isupden.schedulingmodule.interceptor;
+
+import java.util.List;
+
+import io.temporal.client.WorkflowClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompletionReporterTest {
+
+    private WorkflowClient client;
+    private SchedulerWorkflow scheduler;
+    private CompletionReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(WorkflowClient.class);
+        scheduler = mock(SchedulerWorkflow.class);
+        when(client.newWorkflowStub(eq(SchedulerWorkflow.class), eq("SCHED_clientA"))).thenReturn(scheduler);
+        reporter = new CompletionReporter(client, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reporter.close();
+    }
+
+    @Test
+    void report_ShouldSendFullBatchImmediately() {
+        var first = completion("wf1");
+        var second = completion("wf2");
+
+        reporter.report("clientA", first);
+        verify(scheduler, never()).reportCompletions(anyList());
+
+        reporter.report("clientA", second);
+        verify(scheduler).reportCompletions(List.of(first, second));
+    }
+
+    @Test
+    void flush_ShouldSendPartialBatch() {
+        var only = completion("wf1");
+        reporter.report("clientA", only);
+
+        reporter.flush();
+
+        verify(scheduler).reportCompletions(List.of(only));
+    }
+
+    private TaskCompletion completion(String id) {
+        return new TaskCompletion(id, "TestWorkflow", "tenant1", 100);
+    }
+}
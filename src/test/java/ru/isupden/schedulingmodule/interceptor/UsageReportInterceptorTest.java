@@ -2,14 +2,19 @@ package ru.isupden.schedulingmodule.interceptor;
 
 import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
 import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInfo;
+import io.temporal.workflow.unsafe.WorkflowUnsafe;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
 import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -79,4 +84,34 @@ class UsageReportInterceptorTest {
             verify(schedMock).reportUsage(eq("tenant1"), eq(3.0));
         }
     }
+
+    @Test
+    void sendUsageSignal_shouldReportCompletion_whenTenantIdMissing() {
+        var next = mock(WorkflowInboundCallsInterceptor.class);
+        var reporter = mock(CompletionReporter.class);
+        var interceptor = new UsageReportInterceptor(next, reporter);
+
+        var input = mock(WorkflowInboundCallsInterceptor.WorkflowInput.class);
+        when(next.execute(any())).thenReturn(mock(WorkflowInboundCallsInterceptor.WorkflowOutput.class));
+
+        var info = mock(WorkflowInfo.class);
+        when(info.getWorkflowId()).thenReturn("wf-1");
+        when(info.getWorkflowType()).thenReturn("TestWorkflow");
+
+        try (MockedStatic<Workflow> workflowMock = mockStatic(Workflow.class);
+             MockedStatic<WorkflowUnsafe> unsafeMock = mockStatic(WorkflowUnsafe.class)) {
+            workflowMock.when(Workflow::currentTimeMillis).thenReturn(1000L, 4000L);
+            workflowMock.when(() -> Workflow.getMemo(eq("clientName"), eq(String.class)))
+                    .thenReturn("clientA");
+            workflowMock.when(Workflow::getInfo).thenReturn(info);
+            unsafeMock.when(WorkflowUnsafe::isReplaying).thenReturn(false);
+
+            interceptor.execute(input);
+
+            // без тенанта usage не шлём, но слот maxRunning освобождаем
+            verify(reporter).report("clientA", new TaskCompletion("wf-1", "TestWorkflow", null, 3000));
+            workflowMock.verify(() -> Workflow.newExternalWorkflowStub(eq(SchedulerWorkflow.class), anyString()),
+                    never());
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package ru.isupden.schedulingmodule.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchRateControllerTest {
+
+    private SchedulingModuleProperties.AutoTune cfg;
+
+    @BeforeEach
+    void setUp() {
+        cfg = new SchedulingModuleProperties.AutoTune();
+        cfg.setTargetBacklog(100);
+        cfg.setKp(0.1);
+        cfg.setKi(0.01);
+        cfg.setKd(0);
+        cfg.setMinRate(1);
+        cfg.setMaxRate(500);
+    }
+
+    @Test
+    void testUpdate_WhenBacklogBelowTarget_ShouldRaiseRate() {
+        var controller = new DispatchRateController(cfg, 50);
+
+        assertTrue(controller.update(0, 10) > 50);
+    }
+
+    @Test
+    void testUpdate_WhenBacklogAboveTarget_ShouldLowerRate() {
+        var controller = new DispatchRateController(cfg, 50);
+
+        assertTrue(controller.update(300, 10) < 50);
+    }
+
+    @Test
+    void testUpdate_ShouldStayWithinLimits() {
+        var controller = new DispatchRateController(cfg, 50);
+
+        assertEquals(1, controller.update(1_000_000, 10));
+        assertEquals(500, new DispatchRateController(cfg, 50).update(-1_000_000, 10));
+    }
+
+    @Test
+    void testUpdate_ShouldNotWindUpWhileSaturated() {
+        var controller = new DispatchRateController(cfg, 50);
+
+        // долго в насыщении снизу, затем backlog ровно на цели
+        for (var i = 0; i < 100; i++) {
+            controller.update(100_000, 10);
+        }
+
+        assertEquals(50, controller.update(100, 10), 1e-9);
+    }
+
+    @Test
+    void testUpdate_ShouldConvergeOnSimulatedQueue() {
+        cfg.setKp(0.05);
+        cfg.setKi(0.005);
+        var controller = new DispatchRateController(cfg, 10);
+
+        // downstream обрабатывает 40 задач/сек; backlog растёт на (rate - 40) за секунду
+        var backlog = 0.0;
+        for (var step = 0; step < 500; step++) {
+            backlog = Math.max(0, backlog + (controller.rate() - 40));
+            controller.update((long) backlog, 1);
+        }
+
+        assertEquals(40, controller.rate(), 2);
+        assertEquals(100, backlog, 30);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.isupden.schedulingmodule.limit;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedRateLimiterTest {
+
+    private final KeyedRateLimiter limiter = new KeyedRateLimiter(
+            key -> Map.of("slow", 2.0).getOrDefault(key, 0.0), 1);
+
+    @Test
+    void testIsAllowed_ShouldLimitOnlyConfiguredKeys() {
+        limiter.acquire("slow", 0);
+        limiter.acquire("slow", 0);
+
+        assertFalse(limiter.isAllowed("slow", 0));
+        assertTrue(limiter.isAllowed("other", 0));
+    }
+
+    @Test
+    void testNextAvailable_ShouldFollowRefillRate() {
+        limiter.acquire("slow", 0);
+        limiter.acquire("slow", 0);
+
+        assertEquals(500, limiter.nextAvailableMs("slow", 0));
+        assertFalse(limiter.isAllowed("slow", 499));
+        assertTrue(limiter.isAllowed("slow", 500));
+    }
+
+    @Test
+    void testBucket_ShouldNotAccumulateAboveBurst() {
+        limiter.isAllowed("slow", 0);
+
+        limiter.acquire("slow", 60_000);
+        limiter.acquire("slow", 60_000);
+
+        assertFalse(limiter.isAllowed("slow", 60_000));
+    }
+
+    @Test
+    void testTaskRateLimits_ShouldRequireBothTypeAndTenant() {
+        var cfg = new SchedulingModuleProperties.RateLimits();
+        cfg.getWorkflowTypes().put("Heavy", 1.0);
+        cfg.setDefaultTenantRate(1.0);
+        var limits = new TaskRateLimits(cfg);
+
+        var heavy = createTask("h1", "Heavy", "tenantA");
+        var lightSameTenant = createTask("l1", "Light", "tenantA");
+        var lightOtherTenant = createTask("l2", "Light", "tenantB");
+
+        limits.acquire(heavy, 0);
+
+        assertFalse(limits.isAllowed(createTask("h2", "Heavy", "tenantC"), 0));
+        assertFalse(limits.isAllowed(lightSameTenant, 0));
+        assertTrue(limits.isAllowed(lightOtherTenant, 0));
+        assertEquals(1000, limits.nextAllowedMs(lightSameTenant, 0));
+    }
+
+    private Task createTask(String id, String type, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType(type).build();
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.isupden.schedulingmodule.limit;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunningTasksTest {
+
+    private SchedulingModuleProperties.Concurrency cfg;
+    private RunningTasks running;
+
+    @BeforeEach
+    void setUp() {
+        cfg = new SchedulingModuleProperties.Concurrency();
+        cfg.getWorkflowTypes().put("Heavy", 2);
+        cfg.getTenants().put("vip", 10);
+        cfg.setDefaultPerTenant(1);
+        running = new RunningTasks(cfg);
+    }
+
+    @Test
+    void testIsAllowed_ShouldApplyTypeCap() {
+        running.onDispatch(createTask("h1", "Heavy", "vip"), 0);
+        running.onDispatch(createTask("h2", "Heavy", "vip"), 0);
+
+        assertFalse(running.isAllowed(createTask("h3", "Heavy", "vip")));
+        assertTrue(running.isAllowed(createTask("l1", "Light", "vip")));
+    }
+
+    @Test
+    void testIsAllowed_ShouldApplyDefaultTenantCap() {
+        running.onDispatch(createTask("a1", "Light", "tenantA"), 0);
+
+        assertFalse(running.isAllowed(createTask("a2", "Light", "tenantA")));
+        assertTrue(running.isAllowed(createTask("b1", "Light", "tenantB")));
+    }
+
+    @Test
+    void testOnComplete_ShouldReleaseSlotsOnce() {
+        running.onDispatch(createTask("a1", "Heavy", "tenantA"), 0);
+
+        assertTrue(running.onComplete("a1"));
+        assertFalse(running.onComplete("a1"));
+        assertFalse(running.onComplete("unknown"));
+
+        assertEquals(0, running.size());
+        assertEquals(0, running.countByType("Heavy"));
+        assertEquals(0, running.countByTenant("tenantA"));
+    }
+
+    @Test
+    void testRestore_ShouldKeepSlotsOfSnapshot() {
+        running.onDispatch(createTask("h1", "Heavy", "tenantA"), 5);
+        running.onDispatch(createTask("h2", "Heavy", "vip"), 7);
+
+        var next = new RunningTasks(cfg);
+        next.restore(running.snapshot());
+
+        assertEquals(2, next.size());
+        assertFalse(next.isAllowed(createTask("h3", "Heavy", "vip")));
+        assertEquals(5, next.nextExpiryMs().orElseThrow() - cfg.getRunningTimeoutSeconds() * 1000);
+        assertTrue(next.onComplete("h1"));
+        assertEquals(0, next.countByTenant("tenantA"));
+    }
+
+    @Test
+    void testOnDispatch_ShouldIgnoreRepeatedWorkflowId() {
+        running.onDispatch(createTask("a1", "Heavy", "vip"), 0);
+        running.onDispatch(createTask("a1", "Heavy", "vip"), 0);
+
+        assertEquals(1, running.countByType("Heavy"));
+    }
+
+    @Test
+    void testExpire_ShouldReleaseSlotsWithoutCompletion() {
+        cfg.setRunningTimeoutSeconds(60);
+        running.onDispatch(createTask("a1", "Heavy", "tenantA"), 0);
+        running.onDispatch(createTask("b1", "Heavy", "tenantB"), 30_000);
+
+        assertEquals(60_000, running.nextExpiryMs().getAsLong());
+        assertEquals(List.of(), running.expire(59_999));
+        assertEquals(List.of("a1"), running.expire(60_000));
+
+        assertTrue(running.isAllowed(createTask("a2", "Light", "tenantA")));
+        assertEquals(1, running.countByType("Heavy"));
+        assertFalse(running.onComplete("a1"));
+        assertEquals(90_000, running.nextExpiryMs().getAsLong());
+    }
+
+    @Test
+    void testExpire_WhenTimeoutDisabled_ShouldKeepSlots() {
+        cfg.setRunningTimeoutSeconds(0);
+        running.onDispatch(createTask("a1", "Heavy", "tenantA"), 0);
+
+        assertEquals(List.of(), running.expire(Long.MAX_VALUE));
+        assertTrue(running.nextExpiryMs().isEmpty());
+        assertEquals(1, running.size());
+    }
+
+    private Task createTask(String id, String type, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType(type).build();
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.workflow.SchedulerWorkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ClaimCheckSubmitterTest {
+
+    private final InMemoryPayloadStore store = new InMemoryPayloadStore();
+    private final ClaimCheckSubmitter submitter = new ClaimCheckSubmitter(store);
+
+    @Test
+    void testCheckIn_ShouldReplacePayloadWithReference() {
+        var payload = new HashMap<String, Object>();
+        payload.put("data", "large");
+        payload.put("tenantId", "tenant1");
+        var task = Task.builder()
+                .workflowType("TestWorkflow")
+                .workflowId("A")
+                .payload(payload)
+                .build();
+        task.getAttributes().put("priority", 5);
+
+        var checked = submitter.checkIn(List.of(task)).getFirst();
+
+        assertNotNull(checked.getPayloadRef());
+        assertTrue(checked.getPayload().isEmpty());
+        assertEquals("A", checked.getWorkflowId());
+        assertEquals(5, checked.attr("priority", Integer.class));
+        assertEquals("tenant1", checked.attr("tenantId", String.class));
+        assertEquals(payload, store.get(checked.getPayloadRef()));
+
+        // исходная задача не тронута
+        assertNull(task.getPayloadRef());
+        assertEquals("large", task.getPayload().get("data"));
+    }
+
+    @Test
+    void testCheckIn_WhenPayloadEmpty_ShouldKeepTask() {
+        var task = Task.builder().workflowType("TestWorkflow").workflowId("A").build();
+
+        assertSame(task, submitter.checkIn(List.of(task)).getFirst());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testSubmit_ShouldSignalCheckedInTasks() {
+        var scheduler = mock(SchedulerWorkflow.class);
+        var task = Task.builder()
+                .workflowType("TestWorkflow")
+                .workflowId("A")
+                .payload(Map.of("data", "large"))
+                .build();
+
+        submitter.submit(scheduler, List.of(task), "client");
+
+        verify(scheduler).submitTasks(anyList(), eq("client"));
+        assertEquals(1, store.size());
+    }
+}
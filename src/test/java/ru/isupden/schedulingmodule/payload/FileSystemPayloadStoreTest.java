@@ -0,0 +1,51 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileSystemPayloadStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPutAndGet_ShouldRoundTripPayload() {
+        var store = new FileSystemPayloadStore(directory);
+        Map<String, Object> payload = Map.of("data", "value", "n", 42, "items", List.of("a", "b"));
+
+        var ref = store.put("wf-1", payload);
+
+        assertEquals(payload, store.get(ref));
+    }
+
+    @Test
+    void testPut_ShouldReturnDistinctRefs() {
+        var store = new FileSystemPayloadStore(directory);
+
+        assertNotEquals(store.put("wf-1", Map.of()), store.put("wf-1", Map.of()));
+    }
+
+    @Test
+    void testDelete_ShouldRemoveFile() throws Exception {
+        var store = new FileSystemPayloadStore(directory);
+        var ref = store.put("wf-1", Map.of("data", "value"));
+
+        store.delete(ref);
+        store.delete(ref);
+
+        try (var files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+        assertThrows(IllegalStateException.class, () -> store.get(ref));
+    }
+}
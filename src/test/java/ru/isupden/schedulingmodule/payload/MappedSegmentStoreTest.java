@@ -0,0 +1,65 @@
+package ru.isupden.schedulingmodule.payload;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedSegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndRead_ShouldRoundTripTasks() {
+        var store = new MappedSegmentStore(directory.resolve("segments"));
+        var task = Task.builder()
+                .workflowId("wf-1")
+                .workflowType("TestWorkflow")
+                .payload(Map.of("data", "value", "n", 42))
+                .build();
+        task.getAttributes().put("priority", 3);
+
+        store.write("seg-1", List.of(task, Task.builder().workflowId("wf-2").workflowType("TestWorkflow").build()));
+        var loaded = store.read("seg-1");
+
+        assertEquals(2, loaded.size());
+        assertEquals("wf-1", loaded.get(0).getWorkflowId());
+        assertEquals(Map.of("data", "value", "n", 42), loaded.get(0).getPayload());
+        assertEquals(3, loaded.get(0).attr("priority", Integer.class));
+        assertEquals("wf-2", loaded.get(1).getWorkflowId());
+    }
+
+    @Test
+    void testWrite_ShouldOverwriteSegmentOnRetry() {
+        var store = new MappedSegmentStore(directory);
+
+        store.write("seg-1", List.of(Task.builder().workflowId("a").workflowType("T").build(),
+                Task.builder().workflowId("b").workflowType("T").build()));
+        store.write("seg-1", List.of(Task.builder().workflowId("a").workflowType("T").build()));
+
+        assertEquals(1, store.read("seg-1").size());
+    }
+
+    @Test
+    void testDelete_ShouldRemoveSegment() throws Exception {
+        var store = new MappedSegmentStore(directory);
+        store.write("seg-1", List.of(Task.builder().workflowId("a").workflowType("T").build()));
+
+        store.delete("seg-1");
+        store.delete("seg-1");
+
+        try (var files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+        assertThrows(IllegalStateException.class, () -> store.read("seg-1"));
+    }
+}
@@ -0,0 +1,118 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DelayedTasksTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final DelayedTasks delayed = new DelayedTasks();
+
+    @Test
+    void testIsDelayed_ShouldCompareNotBeforeWithNow() {
+        assertTrue(DelayedTasks.isDelayed(createTask("A", T0.plusSeconds(1)), T0));
+        assertFalse(DelayedTasks.isDelayed(createTask("B", T0), T0));
+        assertFalse(DelayedTasks.isDelayed(Task.builder().workflowId("C").build(), T0));
+    }
+
+    @Test
+    void testReleaseDue_ShouldReturnTasksInReleaseOrder() {
+        delayed.offer(createTask("late", T0.plusSeconds(30)));
+        delayed.offer(createTask("early", T0.plusSeconds(10)));
+        delayed.offer(createTask("mid", T0.plusSeconds(20)));
+
+        assertEquals(T0.plusSeconds(10), delayed.nextRelease());
+        assertEquals(List.of(), delayed.releaseDue(T0));
+
+        var due = delayed.releaseDue(T0.plusSeconds(20));
+
+        assertEquals(List.of("early", "mid"), due.stream().map(Task::getWorkflowId).toList());
+        assertEquals(1, delayed.size());
+        assertEquals(T0.plusSeconds(30), delayed.nextRelease());
+    }
+
+    @Test
+    void testOffer_ShouldRejectDuplicateWorkflowId() {
+        assertTrue(delayed.offer(createTask("A", T0.plusSeconds(10))));
+        assertFalse(delayed.offer(createTask("A", T0.plusSeconds(20))));
+        assertEquals(1, delayed.size());
+    }
+
+    @Test
+    void testRemoveById_ShouldSkipStaleHeapEntry() {
+        delayed.offer(createTask("A", T0.plusSeconds(10)));
+        delayed.offer(createTask("B", T0.plusSeconds(20)));
+
+        assertEquals("A", delayed.removeById("A").getWorkflowId());
+        assertNull(delayed.removeById("A"));
+
+        var due = delayed.releaseDue(T0.plusSeconds(30));
+        assertEquals(List.of("B"), due.stream().map(Task::getWorkflowId).toList());
+        assertTrue(delayed.isEmpty());
+        assertNull(delayed.nextRelease());
+    }
+
+    @Test
+    void testUpdateAttributes_ShouldRescheduleOnNewNotBefore() {
+        delayed.offer(createTask("A", T0.plusSeconds(10)));
+        delayed.offer(createTask("B", T0.plusSeconds(20)));
+
+        assertTrue(delayed.updateAttributes("A", Map.of("notBefore", T0.plusSeconds(60).toString())));
+        assertFalse(delayed.updateAttributes("missing", Map.of("priority", 1)));
+
+        assertEquals(List.of("B"), delayed.releaseDue(T0.plusSeconds(30)).stream()
+                .map(Task::getWorkflowId).toList());
+        assertEquals(List.of("A"), delayed.releaseDue(T0.plusSeconds(60)).stream()
+                .map(Task::getWorkflowId).toList());
+    }
+
+    @Test
+    void testUpdateAttributes_WhenNotBeforeRemoved_ShouldReleaseImmediately() {
+        var task = createTask("A", T0.plusSeconds(10));
+        delayed.offer(task);
+
+        task.getAttributes().remove("notBefore");
+        delayed.updateAttributes("A", Map.of("priority", 1));
+
+        assertEquals(List.of("A"), delayed.releaseDue(T0).stream().map(Task::getWorkflowId).toList());
+    }
+
+    @Test
+    void testCountByTenant_ShouldFollowOfferRemoveAndRelease() {
+        delayed.offer(createTask("A", "t1", T0.plusSeconds(10)));
+        delayed.offer(createTask("B", "t1", T0.plusSeconds(20)));
+        delayed.offer(createTask("C", "t2", T0.plusSeconds(10)));
+        delayed.updateAttributes("B", Map.of("notBefore", T0.plusSeconds(30).toString()));
+
+        assertEquals(2, delayed.countByTenant("t1"));
+        assertEquals(1, delayed.countByTenant("t2"));
+
+        delayed.removeById("C");
+        delayed.releaseDue(T0.plusSeconds(10));
+
+        assertEquals(1, delayed.countByTenant("t1"));
+        assertEquals(0, delayed.countByTenant("t2"));
+    }
+
+    private Task createTask(String id, String tenant, Instant notBefore) {
+        var task = createTask(id, notBefore);
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+
+    private Task createTask(String id, Instant notBefore) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("notBefore", notBefore.toString());
+        return task;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalStrideQueueTest {
+
+    private final FairShareTree tree = tree();
+    private final HierarchicalStrideQueue queue = new HierarchicalStrideQueue(tree, Task::tenantId, t -> 1.0);
+
+    @Test
+    void testIteration_ShouldSplitShareAtEachLevel() {
+        for (var i = 1; i <= 4; i++) {
+            for (var tenant : List.of("t1", "t2", "t3", "t4")) {
+                queue.add(createTask(tenant + "-" + i, tenant));
+            }
+        }
+
+        assertTrue(queue.isOrdered());
+        // team-b с одним тенантом получает столько же, сколько три тенанта team-a вместе
+        assertEquals(List.of("t1-1", "t4-1", "t2-1", "t4-2", "t3-1", "t4-3", "t1-2", "t4-4"),
+                ids().subList(0, 8));
+    }
+
+    @Test
+    void testCharge_ShouldMoveWholeTeamBack() {
+        queue.addAll(List.of(createTask("t1-1", "t1"), createTask("t2-1", "t2"), createTask("t4-1", "t4")));
+
+        tree.charge("t1", 1);
+
+        // t2 ещё не обслуживался, но его команда уже сдвинута отправкой t1
+        assertEquals("t4-1", queue.peek().getWorkflowId());
+    }
+
+    @Test
+    void testRemove_ShouldDeactivateEmptyPath() {
+        queue.addAll(List.of(createTask("t1-1", "t1"), createTask("t4-1", "t4")));
+
+        queue.removeById("t4-1");
+
+        assertEquals(0, queue.tenantSize("t4"));
+        assertFalse(tree.root().passes().isActive("team-b"));
+        assertEquals("t1-1", queue.poll().getWorkflowId());
+        assertNull(tree.root().passes().first());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testRemoveIf_ShouldWorkThroughIterator() {
+        queue.addAll(List.of(createTask("t1-1", "t1"), createTask("t2-1", "t2"), createTask("t4-1", "t4")));
+
+        queue.removeIf(t -> t.tenantId().equals("t1") || t.tenantId().equals("t4"));
+
+        assertEquals(List.of("t2-1"), ids());
+        assertFalse(tree.root().child("team-a").passes().isActive("t1"));
+        assertFalse(tree.root().passes().isActive("team-b"));
+    }
+
+    @Test
+    void testUnknownTenant_ShouldHangOffRoot() {
+        queue.addAll(List.of(createTask("x-1", "x"), createTask("x-2", "x"), createTask("t4-1", "t4")));
+
+        assertEquals(List.of("t4-1", "x-1", "x-2"), ids());
+        assertEquals("x", tree.leaf("x").path());
+    }
+
+    @Test
+    void testAdd_ShouldRejectInvalidNodes() {
+        assertThrows(IllegalArgumentException.class, () -> tree.add(List.of("team-c", "t5"), 1.0));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(List.of("team-a", "t1"), 1.0));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(List.of("team-a", "t5"), 0));
+    }
+
+    private static FairShareTree tree() {
+        // тенанты вне дерева берут вес из плоских квот
+        var tree = new FairShareTree(t -> Map.of("x", 0.5).getOrDefault(t, 1.0));
+        tree.add(List.of("team-a"), 1.0);
+        tree.add(List.of("team-a", "t1"), 1.0);
+        tree.add(List.of("team-a", "t2"), 1.0);
+        tree.add(List.of("team-a", "t3"), 1.0);
+        tree.add(List.of("team-b"), 1.0);
+        tree.add(List.of("team-b", "t4"), 1.0);
+        return tree;
+    }
+
+    private List<String> ids() {
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+        return ids;
+    }
+
+    private Task createTask(String id, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+}
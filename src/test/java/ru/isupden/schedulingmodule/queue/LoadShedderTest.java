@@ -0,0 +1,66 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadShedderTest {
+
+    private final PrioritySchedulingStrategy strategy = new PrioritySchedulingStrategy();
+
+    @Test
+    void testWorst_ShouldPickLowestPriorityTasks() {
+        var tasks = new ArrayList<Task>();
+        for (var p : List.of(5, 1, 9, 3, 7)) {
+            tasks.add(createTask("p" + p, p));
+        }
+
+        var victims = LoadShedder.worst(tasks, 2, strategy::compare);
+
+        assertEquals(Set.of("p1", "p3"), ids(victims));
+    }
+
+    @Test
+    void testWorst_OnTie_ShouldShedNewerTasks() {
+        var tasks = List.of(createTask("old", 1), createTask("mid", 1), createTask("new", 1));
+
+        var victims = LoadShedder.worst(tasks, 1, strategy::compare);
+
+        assertEquals(Set.of("new"), ids(victims));
+    }
+
+    @Test
+    void testWorst_WhenKNotPositive_ShouldReturnEmpty() {
+        assertTrue(LoadShedder.worst(List.of(createTask("A", 1)), 0, strategy::compare).isEmpty());
+    }
+
+    @Test
+    void testEstimateBytes_ShouldGrowWithPayload() {
+        var small = createTask("A", 1);
+        var large = createTask("B", 1);
+        var payload = new HashMap<String, Object>();
+        payload.put("blob", "x".repeat(10_000));
+        large.setPayload(payload);
+
+        assertTrue(LoadShedder.estimateBytes(large) > LoadShedder.estimateBytes(small) + 10_000);
+    }
+
+    private Set<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getWorkflowId).collect(Collectors.toSet());
+    }
+
+    private Task createTask(String id, int priority) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("priority", priority);
+        return task;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiLevelQueueTest {
+
+    // уровень задачи — из атрибута level
+    private final MultiLevelQueue queue = new MultiLevelQueue(new double[]{0.5, 0.5},
+            t -> t.attr("level", Integer.class));
+
+    @Test
+    void testIteration_ShouldAlternateLevelsWithEqualShares() {
+        queue.addAll(List.of(createTask("A", 0), createTask("B", 0), createTask("C", 1), createTask("D", 1)));
+
+        assertTrue(queue.isOrdered());
+        assertEquals(List.of("A", "C", "B", "D"), ids());
+    }
+
+    @Test
+    void testServed_ShouldLetOtherLevelGoFirst() {
+        queue.addAll(List.of(createTask("A", 0), createTask("C", 1)));
+
+        queue.served(0);
+
+        assertEquals(List.of("C", "A"), ids());
+    }
+
+    @Test
+    void testPromote_ShouldMoveHeadsToUpperLevel() {
+        var task = createTask("A", 1);
+        queue.addAll(List.of(task, createTask("B", 1)));
+
+        task.mergeAttributes(Map.of("level", 0));
+
+        assertEquals(1, queue.promote());
+        assertEquals(0, queue.levelOf("A"));
+        assertEquals(1, queue.levelOf("B"));
+        assertEquals(1, queue.levelSize(0));
+    }
+
+    @Test
+    void testRemoveById_ShouldDropFromLevel() {
+        queue.addAll(List.of(createTask("A", 0), createTask("B", 5)));
+
+        queue.removeById("A");
+        queue.poll();
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.levelSize(0));
+        assertEquals(0, queue.levelSize(1));
+        assertEquals(-1, queue.levelOf("B"));
+    }
+
+    @Test
+    void testNonPositiveShare_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new MultiLevelQueue(new double[]{1, 0}, t -> 0));
+    }
+
+    private List<String> ids() {
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+        return ids;
+    }
+
+    private Task createTask(String id, int level) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("level", level);
+        return task;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityBucketQueueTest {
+
+    private final PriorityBucketQueue queue = new PriorityBucketQueue(0, 9);
+
+    @Test
+    void testIteration_ShouldGoFromHighestPriorityAndKeepFifoWithinBucket() {
+        queue.addAll(List.of(createTask("A", 1), createTask("B", 5), createTask("C", 1), createTask("D", 5)));
+
+        assertTrue(queue.isOrdered());
+        assertEquals(List.of("B", "D", "A", "C"), ids());
+    }
+
+    @Test
+    void testOutOfRangePriorities_ShouldFallBackToOrderedMap() {
+        queue.addAll(List.of(createTask("low", -3), createTask("mid", 4), createTask("high", 100),
+                createTask("higher", 200)));
+
+        assertEquals(List.of("higher", "high", "mid", "low"), ids());
+    }
+
+    @Test
+    void testTaskWithoutPriority_ShouldGoToBucketZero() {
+        queue.add(Task.builder().workflowId("none").workflowType("TestWorkflow").build());
+        queue.add(createTask("one", 1));
+        queue.add(createTask("negative", -1));
+
+        assertEquals(List.of("one", "none", "negative"), ids());
+    }
+
+    @Test
+    void testPoll_ShouldReturnBestAndRemoveIt() {
+        queue.addAll(List.of(createTask("A", 2), createTask("B", 7), createTask("C", 42)));
+
+        assertEquals("C", queue.poll().getWorkflowId());
+        assertEquals("B", queue.poll().getWorkflowId());
+        assertEquals("A", queue.peek().getWorkflowId());
+        assertEquals("A", queue.poll().getWorkflowId());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testUpdateAttributes_ShouldMoveTaskBetweenBuckets() {
+        queue.addAll(List.of(createTask("A", 1), createTask("B", 3)));
+
+        assertTrue(queue.updateAttributes("A", Map.of("priority", 8)));
+        assertEquals(List.of("A", "B"), ids());
+
+        assertTrue(queue.updateAttributes("B", Map.of("priority", 50)));
+        assertEquals(List.of("B", "A"), ids());
+    }
+
+    @Test
+    void testRemoveIfAndRemoveById_ShouldKeepIndexAndBucketsInSync() {
+        queue.addAll(List.of(createTask("A", 1), createTask("B", 1), createTask("C", 20), createTask("D", 3)));
+
+        queue.removeIf(t -> t.getWorkflowId().equals("B") || t.getWorkflowId().equals("C"));
+        assertEquals("D", queue.removeById("D").getWorkflowId());
+
+        assertEquals(List.of("A"), ids());
+        assertEquals(1, queue.size());
+        assertFalse(queue.containsId("C"));
+        assertFalse(queue.offer(createTask("A", 9)));
+    }
+
+    @Test
+    void testClear_ShouldEmptyBuckets() {
+        queue.addAll(List.of(createTask("A", 1), createTask("B", 99)));
+
+        queue.clear();
+
+        assertTrue(ids().isEmpty());
+        assertEquals(0, queue.bytes());
+    }
+
+    @Test
+    void testConstructor_WhenRangeInvalid_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new PriorityBucketQueue(5, 1));
+    }
+
+    private List<String> ids() {
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+        return ids;
+    }
+
+    private Task createTask(String id, int priority) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("priority", priority);
+        return task;
+    }
+}
@@ -0,0 +1,190 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadyQueueTest {
+
+    private final ReadyQueue queue = new ReadyQueue();
+
+    @Test
+    void testOffer_ShouldRejectDuplicateWorkflowId() {
+        var first = createTask("A");
+        var duplicate = createTask("A");
+
+        assertTrue(queue.offer(first));
+        assertFalse(queue.offer(duplicate));
+        assertFalse(queue.add(duplicate));
+
+        assertEquals(1, queue.size());
+        assertSame(first, queue.get("A"));
+    }
+
+    @Test
+    void testOffer_WhenWorkflowIdMissing_ShouldThrow() {
+        assertThrows(NullPointerException.class, () -> queue.offer(Task.builder().build()));
+    }
+
+    @Test
+    void testIteration_ShouldKeepFifoOrder() {
+        queue.addAll(List.of(createTask("A"), createTask("B"), createTask("C")));
+
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+
+        assertEquals(List.of("A", "B", "C"), ids);
+        assertEquals("A", queue.poll().getWorkflowId());
+        assertEquals("B", queue.peek().getWorkflowId());
+    }
+
+    @Test
+    void testRemoveById_ShouldDropTask() {
+        queue.addAll(List.of(createTask("A"), createTask("B")));
+
+        assertEquals("A", queue.removeById("A").getWorkflowId());
+        assertNull(queue.removeById("A"));
+        assertFalse(queue.containsId("A"));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testRemove_ShouldUseIdentity() {
+        var task = createTask("A");
+        queue.add(task);
+
+        assertFalse(queue.remove(createTask("A")));
+        assertTrue(queue.remove(task));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testRemoveIf_ShouldWorkThroughIterator() {
+        queue.addAll(List.of(createTask("A"), createTask("B"), createTask("C")));
+
+        queue.removeIf(t -> t.getWorkflowId().equals("B"));
+
+        assertEquals(2, queue.size());
+        assertFalse(queue.containsId("B"));
+    }
+
+    @Test
+    void testUpdateAttributes_ShouldReplaceTaskInPlace() {
+        var task = createTask("A");
+        task.getAttributes().put("priority", 1);
+        queue.addAll(List.of(task, createTask("B")));
+
+        assertTrue(queue.updateAttributes("A", Map.of("priority", 5, "tenantId", "t1")));
+        assertFalse(queue.updateAttributes("missing", Map.of("priority", 5)));
+
+        var updated = queue.get("A");
+        assertEquals(5, updated.attr("priority", Integer.class));
+        assertEquals("t1", updated.attr("tenantId", String.class));
+        assertEquals(1, task.attr("priority", Integer.class));
+        assertSame(updated, queue.peek());
+    }
+
+    @Test
+    void testCountByTenant_ShouldTrackAddsRemovesAndUpdates() {
+        var a1 = createTask("A1");
+        a1.getAttributes().put("tenantId", "tenantA");
+        var a2 = createTask("A2");
+        a2.getPayload().put("tenantId", "tenantA");
+        var b1 = createTask("B1");
+        b1.getAttributes().put("tenantId", "tenantB");
+        queue.addAll(List.of(a1, a2, b1, createTask("none")));
+
+        assertEquals(2, queue.countByTenant("tenantA"));
+        assertEquals(1, queue.countByTenant(null));
+
+        queue.removeById("A1");
+        queue.poll();
+        assertEquals(0, queue.countByTenant("tenantA"));
+
+        queue.updateAttributes("B1", Map.of("tenantId", "tenantC"));
+        assertEquals(0, queue.countByTenant("tenantB"));
+        assertEquals(1, queue.countByTenant("tenantC"));
+    }
+
+    @Test
+    void testBytes_ShouldReturnToZeroWhenDrained() {
+        queue.addAll(List.of(createTask("A"), createTask("B")));
+        assertTrue(queue.bytes() > 0);
+
+        queue.updateAttributes("A", Map.of("blob", "x".repeat(1000)));
+        queue.removeById("A");
+        queue.poll();
+
+        assertEquals(0, queue.bytes());
+    }
+
+    @Test
+    void testRemovedDuring_ShouldReturnOnlyTasksRemovedByAction() {
+        var a = createTask("A");
+        var b = createTask("B");
+        queue.addAll(List.of(a, b, createTask("C")));
+
+        var removed = queue.removedDuring(() -> queue.removeIf(t -> !t.getWorkflowId().equals("C")));
+        queue.remove(queue.peek());
+
+        assertEquals(List.of(a, b), removed);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testWithKeys_ShouldSkipDisallowedPairsAndKeepFifoOrder() {
+        queue.indexKeys();
+        queue.addAll(List.of(createTenantTask("A1", "A"), createTenantTask("B1", "B"),
+                createTenantTask("A2", "A"), createTenantTask("B2", "B")));
+        queue.updateAttributes("A1", Map.of("priority", 5));
+        var asked = new ArrayList<ReadyQueue.LimitKeys>();
+
+        var ids = new ArrayList<String>();
+        queue.withKeys(keys -> {
+            asked.add(keys);
+            return true;
+        }).forEach(t -> ids.add(t.getWorkflowId()));
+        var onlyA = new ArrayList<String>();
+        queue.withKeys(keys -> "A".equals(keys.tenant())).forEach(t -> onlyA.add(t.getWorkflowId()));
+
+        assertEquals(List.of("A1", "B1", "A2", "B2"), ids);
+        assertEquals(2, asked.size(), "Лимиты проверяются раз на пару, а не на задачу");
+        assertEquals(List.of("A1", "A2"), onlyA);
+        assertEquals(2, queue.countByKeys(new ReadyQueue.LimitKeys("TestWorkflow", "A")));
+    }
+
+    @Test
+    void testLimitKeys_ShouldFollowTenantChange() {
+        queue.indexKeys();
+        queue.addAll(List.of(createTenantTask("A1", "A"), createTenantTask("B1", "B")));
+
+        queue.updateAttributes("A1", Map.of("tenantId", "B"));
+        queue.removeById("B1");
+
+        var onlyB = new ArrayList<String>();
+        queue.withKeys(keys -> "B".equals(keys.tenant())).forEach(t -> onlyB.add(t.getWorkflowId()));
+        assertEquals(List.of("A1"), onlyB);
+        assertEquals(1, queue.limitKeys().size());
+        assertEquals(1, queue.countByKeys(new ReadyQueue.LimitKeys("TestWorkflow", "B")));
+    }
+
+    private Task createTenantTask(String id, String tenant) {
+        var task = createTask(id);
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+
+    private Task createTask(String id) {
+        return Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+    }
+}
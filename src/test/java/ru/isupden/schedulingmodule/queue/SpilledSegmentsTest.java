@@ -0,0 +1,141 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpilledSegmentsTest {
+
+    // выше приоритет — лучше
+    private static final Comparator<Task> ORDER =
+            Comparator.comparing((Task t) -> t.attr("priority", Integer.class)).reversed();
+
+    private final SpilledSegments spilled = new SpilledSegments();
+
+    @Test
+    void testBest_ShouldPickSegmentWithBestHead() {
+        spilled.add("low", List.of(createTask("a", 1), createTask("b", 2)), ORDER);
+        spilled.add("high", List.of(createTask("c", 5), createTask("d", 0)), ORDER);
+
+        var best = spilled.best(ORDER);
+
+        assertEquals("high", best.id());
+        assertEquals("c", best.head().getWorkflowId());
+        assertEquals(4, spilled.size());
+    }
+
+    @Test
+    void testRestore_ShouldApplyCancelsAndUpdates() {
+        var a = createTask("a", 1);
+        var b = createTask("b", 2);
+        var segment = spilled.add("s", List.of(a, b), ORDER);
+
+        assertTrue(spilled.cancel("a"));
+        assertFalse(spilled.cancel("a"));
+        assertTrue(spilled.updateAttributes("b", Map.of("priority", 7)));
+        assertFalse(spilled.updateAttributes("missing", Map.of("priority", 7)));
+        assertEquals(1, spilled.size());
+
+        var restored = spilled.restore(segment, List.of(a, b));
+
+        assertEquals(List.of(b), restored);
+        assertEquals(7, b.attr("priority", Integer.class));
+        assertTrue(spilled.isEmpty());
+        assertEquals(0, spilled.size());
+        assertNull(spilled.best(ORDER));
+    }
+
+    @Test
+    void testRestore_ShouldSkipCanceledTaskResubmittedToAnotherSegment() {
+        var old = createTask("a", 1);
+        var first = spilled.add("s1", List.of(old), ORDER);
+        spilled.cancel("a");
+        var resubmitted = createTask("a", 3);
+        spilled.add("s2", List.of(resubmitted), ORDER);
+
+        assertEquals(List.of(), spilled.restore(first, List.of(old)));
+        assertTrue(spilled.containsId("a"));
+        assertEquals(List.of(resubmitted), spilled.restore(spilled.best(ORDER), List.of(resubmitted)));
+        assertFalse(spilled.containsId("a"));
+    }
+
+    @Test
+    void testBest_ShouldSkipUnavailableLocations() {
+        spilled.add("low", "queue@host-a", List.of(createTask("a", 1)), ORDER);
+        spilled.add("high", "queue@host-b", List.of(createTask("b", 5)), ORDER);
+
+        var best = spilled.best(ORDER, s -> !s.location().equals("queue@host-b"));
+
+        assertEquals("low", best.id());
+        assertEquals("queue@host-a", best.location());
+        assertNull(spilled.best(ORDER, s -> false));
+    }
+
+    @Test
+    void testCountByTenant_ShouldFollowCancelAndRestore() {
+        var a = createTask("a", "t1", 1);
+        var b = createTask("b", "t1", 2);
+        var c = createTask("c", "t2", 3);
+        var segment = spilled.add("s", List.of(a, b, c), ORDER);
+
+        assertEquals(2, spilled.countByTenant("t1"));
+        assertEquals(1, spilled.countByTenant("t2"));
+
+        spilled.cancel("b");
+        assertEquals(1, spilled.countByTenant("t1"));
+
+        spilled.restore(segment, List.of(a));
+        assertEquals(0, spilled.countByTenant("t1"));
+        assertEquals(0, spilled.countByTenant("t2"));
+    }
+
+    @Test
+    void testRestoreSummaries_ShouldApplyCancelsAndUpdatesOnLoad() {
+        var a = createTask("a", "t1", 1);
+        var b = createTask("b", "t1", 2);
+        spilled.add("s", "queue@host-a", List.of(a, b), ORDER);
+        spilled.updateAttributes("b", Map.of("priority", 7));
+
+        // новый запуск знает о сегменте только сводку
+        var next = new SpilledSegments();
+        next.restoreSummaries(spilled.summaries(), spilled.pendingCancels(), spilled.pendingUpdates());
+        assertEquals(2, next.size());
+        assertEquals(2, next.countByTenant("t1"));
+        assertFalse(next.containsId("a"));
+        next.cancel("a");
+
+        var canceled = new ArrayList<Task>();
+        var segment = next.best(ORDER);
+        assertEquals("queue@host-a", segment.location());
+        var restored = next.restore(segment, List.of(createTask("a", "t1", 1), createTask("b", "t1", 2)),
+                canceled::add);
+
+        assertEquals(List.of("b"), restored.stream().map(Task::getWorkflowId).toList());
+        assertEquals(7, restored.get(0).attr("priority", Integer.class));
+        assertEquals(List.of("a"), canceled.stream().map(Task::getWorkflowId).toList());
+        assertEquals(0, next.size());
+        assertEquals(0, next.countByTenant("t1"));
+        assertTrue(next.pendingCancels().isEmpty());
+    }
+
+    private Task createTask(String id, String tenant, int priority) {
+        var task = createTask(id, priority);
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+
+    private Task createTask(String id, int priority) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("priority", priority);
+        return task;
+    }
+}
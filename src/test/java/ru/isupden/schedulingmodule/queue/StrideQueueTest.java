@@ -0,0 +1,73 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrideQueueTest {
+
+    private final StridePasses passes = new StridePasses(k -> Map.of("A", 2.0).getOrDefault(k, 1.0));
+    private final StrideQueue queue = new StrideQueue(passes, Task::tenantId, t -> 1.0);
+
+    @Test
+    void testIteration_ShouldMergeKeysByVirtualPasses() {
+        queue.addAll(List.of(createTask("A1", "A"), createTask("A2", "A"), createTask("A3", "A"),
+                createTask("B1", "B"), createTask("B2", "B")));
+
+        assertTrue(queue.isOrdered());
+        // A с весом 2 получает две задачи на одну задачу B
+        assertEquals(List.of("A1", "B1", "A2", "A3", "B2"), ids());
+    }
+
+    @Test
+    void testCharge_ShouldMoveKeyBack() {
+        queue.addAll(List.of(createTask("A1", "A"), createTask("B1", "B")));
+
+        passes.charge("A", 1);
+
+        assertEquals("B1", queue.peek().getWorkflowId());
+    }
+
+    @Test
+    void testRemove_ShouldDeactivateEmptyKey() {
+        queue.addAll(List.of(createTask("A1", "A"), createTask("B1", "B")));
+
+        queue.removeById("A1");
+
+        assertFalse(passes.isActive("A"));
+        assertEquals(0, queue.keySize("A"));
+        assertEquals("B1", queue.poll().getWorkflowId());
+        assertNull(passes.first());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testRemoveIf_ShouldWorkThroughIterator() {
+        queue.addAll(List.of(createTask("A1", "A"), createTask("A2", "A"), createTask("B1", "B")));
+
+        queue.removeIf(t -> t.getWorkflowId().startsWith("A"));
+
+        assertEquals(List.of("B1"), ids());
+        assertFalse(passes.isActive("A"));
+    }
+
+    private List<String> ids() {
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+        return ids;
+    }
+
+    private Task createTask(String id, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskCompactorTest {
+
+    private final TaskCompactor compactor = new TaskCompactor();
+
+    @Test
+    void testCompact_ShouldInternTypeAndTenant() {
+        var a = compactor.compact(createTask("A", new String("Report"), new String("tenant1")));
+        var b = compactor.compact(createTask("B", new String("Report"), new String("tenant1")));
+
+        assertSame(a.getWorkflowType(), b.getWorkflowType());
+        assertSame(a.tenantId(), b.tenantId());
+        assertEquals(2, compactor.size());
+    }
+
+    @Test
+    void testIntern_WhenPoolIsFull_ShouldKeepStringsAsIs() {
+        var small = new TaskCompactor(1);
+        small.intern("Report");
+        var tenant = new String("tenant1");
+
+        assertSame(tenant, small.intern(tenant));
+        assertSame(tenant, small.compact(createTask("A", new String("Report"), tenant)).tenantId());
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void testCompact_ShouldStoreTimeAttributesAsEpochMillis() {
+        var deadline = Instant.parse("2024-01-01T00:00:00Z");
+        var task = createTask("A", "Report", "tenant1");
+        task.getAttributes().put("deadline", deadline.toString());
+        task.getAttributes().put("notBefore", deadline);
+        task.getAttributes().put("enqueuedAt", "garbage");
+
+        var queued = compactor.compact(task);
+
+        assertEquals(deadline.toEpochMilli(), queued.getAttributes().get("deadline"));
+        assertEquals(deadline.toEpochMilli(), queued.getAttributes().get("notBefore"));
+        assertEquals(deadline, queued.instantAttr("deadline"));
+        assertEquals("garbage", queued.getAttributes().get("enqueuedAt"));
+        assertNull(queued.instantAttr("enqueuedAt"));
+        assertEquals(deadline.toString(), task.getAttributes().get("deadline"));
+    }
+
+    @Test
+    void testCompact_ShouldMakeQueuedTaskImmutable() {
+        var task = createTask("A", "Report", "tenant1");
+        var payload = new HashMap<String, Object>();
+        payload.put("data", null);
+        task.setPayload(payload);
+
+        var queued = compactor.compact(task);
+
+        assertThrows(UnsupportedOperationException.class, () -> queued.getAttributes().put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> queued.getPayload().put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> queued.setWorkflowType("Other"));
+        assertThrows(UnsupportedOperationException.class, () -> queued.mergeAttributes(Map.of("x", 1)));
+        assertTrue(queued.getPayload().containsKey("data"));
+        assertSame(queued, compactor.compact(queued));
+    }
+
+    @Test
+    void testUpdateAttributes_ShouldReplaceCompactedTask() {
+        var queue = new ReadyQueue();
+        var task = compactor.compact(createTask("A", "Report", "tenant1"));
+        queue.add(task);
+
+        assertTrue(queue.updateAttributes("A", Map.of("priority", 7)));
+
+        assertEquals(1, task.attr("priority", Integer.class));
+        assertEquals(7, queue.get("A").attr("priority", Integer.class));
+        assertEquals("tenant1", queue.get("A").tenantId());
+        assertFalse(queue.contains(task));
+    }
+
+    @Test
+    void testUpdateAttributes_ShouldCompactMergedAttributes() {
+        var queue = new ReadyQueue();
+        var task = compactor.compact(createTask("A", "Report", "tenant1"));
+        queue.add(task);
+        var bytes = queue.bytes();
+
+        var deadline = Instant.parse("2025-01-01T00:00:00Z");
+        assertTrue(queue.updateAttributes("A", Map.of("deadline", deadline.toString()), compactor::compact));
+
+        var updated = queue.get("A");
+        assertInstanceOf(QueuedTask.class, updated);
+        assertEquals(deadline.toEpochMilli(), updated.getAttributes().get("deadline"));
+        assertEquals(LoadShedder.estimateBytes(updated), queue.bytes());
+        assertTrue(queue.bytes() > bytes);
+    }
+
+    @Test
+    void testEquality_ShouldBeByValueForTaskAndByIdentityForQueuedTask() {
+        var a = createTask("A", "Report", "tenant1");
+        var b = createTask("A", "Report", "tenant1");
+        var queued = compactor.compact(a);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(queued, compactor.compact(b));
+        assertNotEquals(a, queued);
+        assertNotEquals(queued, a);
+        assertEquals(queued, queued);
+    }
+
+    private Task createTask(String id, String type, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType(type).build();
+        task.getAttributes().put("tenantId", tenant);
+        task.getAttributes().put("priority", 1);
+        return task;
+    }
+}
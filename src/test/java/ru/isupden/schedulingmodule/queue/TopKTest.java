@@ -0,0 +1,70 @@
+package ru.isupden.schedulingmodule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKTest {
+
+    // больший priority — лучше
+    private static final Comparator<Task> BY_PRIORITY =
+            (a, b) -> Integer.compare(b.attr("priority", Integer.class), a.attr("priority", Integer.class));
+
+    @Test
+    void testBest_ShouldReturnKBestInOrder() {
+        var tasks = List.of(createTask("A", 1), createTask("B", 5), createTask("C", 3), createTask("D", 4));
+
+        var best = TopK.best(tasks, t -> true, 3, BY_PRIORITY);
+
+        assertEquals(List.of("B", "D", "C"), ids(best));
+    }
+
+    @Test
+    void testBest_ShouldKeepFifoAmongEquals() {
+        var tasks = List.of(createTask("A", 1), createTask("B", 1), createTask("C", 1));
+
+        assertEquals(List.of("A", "B"), ids(TopK.best(tasks, t -> true, 2, BY_PRIORITY)));
+    }
+
+    @Test
+    void testBest_ShouldSkipFilteredTasks() {
+        var tasks = List.of(createTask("A", 9), createTask("B", 2), createTask("C", 3));
+
+        var best = TopK.best(tasks, t -> !t.getWorkflowId().equals("A"), 5, BY_PRIORITY);
+
+        assertEquals(List.of("C", "B"), ids(best));
+    }
+
+    @Test
+    void testBest_WhenKIsZero_ShouldReturnEmpty() {
+        assertTrue(TopK.best(List.of(createTask("A", 1)), t -> true, 0, BY_PRIORITY).isEmpty());
+    }
+
+    @Test
+    void testBest_ShouldMatchFullSort() {
+        var tasks = new ArrayList<Task>();
+        for (var i = 0; i < 1000; i++) {
+            tasks.add(createTask("T" + i, (i * 7919) % 101));
+        }
+
+        var expected = tasks.stream().sorted(BY_PRIORITY).limit(10).toList();
+
+        assertEquals(ids(expected), ids(TopK.best(tasks, t -> true, 10, BY_PRIORITY)));
+    }
+
+    private List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getWorkflowId).toList();
+    }
+
+    private Task createTask(String id, int priority) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("priority", priority);
+        return task;
+    }
+}
@@ -4,13 +4,17 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.MultiLevelQueue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -145,4 +149,30 @@ class CompositeSchedulingStrategyTest {
 
         verify(usageAwareStrategy).recordUsage(tenant, cost, now);
     }
+
+    @Test
+    void testCreateQueue_ShouldDelegateQueueAndLevelsToMultiLevelPrimary() {
+        var mlfq = new MultiLevelFeedbackStrategy(List.of(0.5, 0.5), Map.of("batch", 1), "class", 0, 60_000);
+        var strategy = new CompositeSchedulingStrategy(List.of(mlfq, new DeadlineSchedulingStrategy()));
+
+        var queue = strategy.createQueue();
+        var batch = Task.builder().workflowId("B").build();
+        batch.getAttributes().put("class", "batch");
+        queue.add(batch);
+
+        assertInstanceOf(MultiLevelQueue.class, queue);
+        assertEquals(1, ((MultiLevelQueue) queue).levelOf("B"));
+        assertTrue(strategy.hasLevels());
+        assertEquals(1, strategy.levelOf(batch, Instant.EPOCH));
+        assertEquals(1, strategy.servedLevel(batch, Instant.EPOCH));
+    }
+
+    @Test
+    void testCreateQueue_WhenPrimaryQueueIsOnlyAnOptimization_ShouldUsePlainQueue() {
+        var strategy = new CompositeSchedulingStrategy(
+                List.of(new PrioritySchedulingStrategy(), new DeadlineSchedulingStrategy()));
+
+        assertFalse(strategy.createQueue().isOrdered());
+        assertFalse(strategy.hasLevels());
+    }
 }
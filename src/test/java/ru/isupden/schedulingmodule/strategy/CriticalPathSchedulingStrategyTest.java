@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import ru.isupden.schedulingmodule.model.Task;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CriticalPathSchedulingStrategyTest {
@@ -100,6 +101,27 @@ class CriticalPathSchedulingStrategyTest {
         assertTrue(result < 0);
     }
 
+    @Test
+    void testIsDispatchOrderSensitive_ShouldPropagateThroughComposite() {
+        assertTrue(strategy.isDispatchOrderSensitive());
+        assertTrue(new CompositeSchedulingStrategy(List.of(new PrioritySchedulingStrategy(), strategy))
+                .isDispatchOrderSensitive());
+        assertFalse(new CompositeSchedulingStrategy(List.of(new PrioritySchedulingStrategy()))
+                .isDispatchOrderSensitive());
+    }
+
+    @Test
+    void testExportImportState_ShouldCarryDispatchedIds() {
+        strategy.onDispatch(createTask("dep1"), Instant.now());
+
+        var restored = new CriticalPathSchedulingStrategy();
+        restored.importState(strategy.exportState());
+
+        var taskA = createTaskWithDependencies("A", List.of("dep1"));
+        var taskB = createTaskWithDependencies("B", List.of("dep2"));
+        assertTrue(restored.compare(taskA, taskB) < 0);
+    }
+
     private Task createTask(String id) {
         return Task.builder().workflowId(id).build();
     }
@@ -143,6 +143,34 @@ class FairnessSchedulingStrategyTest {
         assertEquals(0, result);
     }
 
+    @Test
+    void testExportImportState_ShouldCarryUsageToNewInstance() {
+        var now = Instant.now();
+        strategy.recordUsage("tenant1", 100.0, now);
+
+        var restored = new FairnessSchedulingStrategy(quotas, HALF_LIFE_SEC);
+        restored.importState(strategy.exportState());
+
+        var taskA = createTaskWithTenant("A", "tenant1");
+        var taskB = createTaskWithTenant("B", "tenant2");
+        assertTrue(restored.compare(taskA, taskB) > 0);
+    }
+
+    @Test
+    void testUpdateQuotas_ShouldReorderWithoutLosingUsage() {
+        var now = Instant.now();
+        strategy.recordUsage("tenant1", 5.0, now);
+        strategy.recordUsage("tenant2", 5.0, now);
+        var taskA = createTaskWithTenant("A", "tenant1");
+        var taskB = createTaskWithTenant("B", "tenant2");
+        assertTrue(strategy.compare(taskA, taskB) < 0);
+
+        // tenant2 получает большую квоту: при том же usage его доля меньше
+        strategy.updateQuotas(Map.of("tenant1", 1.0, "tenant2", 10.0), HALF_LIFE_SEC);
+
+        assertTrue(strategy.compare(taskA, taskB) > 0);
+    }
+
     private Task createTaskWithTenant(String id, String tenantId) {
         var task = Task.builder().workflowId(id).build();
         task.getAttributes().put("tenantId", tenantId);
@@ -0,0 +1,128 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalFairShareStrategyTest {
+
+    @Test
+    void testDispatch_ShouldGiveTeamItsShareRegardlessOfTenantCount() {
+        var strategy = strategy();
+        var queue = fill(strategy.createQueue());
+
+        var first = drain(strategy, queue, 12);
+
+        // у org-a вес 2: 8 из 12; внутри org-a команды поровну, хотя в search три тенанта
+        assertEquals(4, first.stream().filter(t -> t.startsWith("t4")).count());
+        assertEquals(4, first.stream().filter(t -> t.matches("t[123].*")).count());
+        assertEquals(4, first.stream().filter(t -> t.startsWith("t5")).count());
+    }
+
+    @Test
+    void testDispatch_ShouldBeDeterministic() {
+        var one = strategy();
+        var two = strategy();
+
+        assertEquals(drain(one, fill(one.createQueue()), 20), drain(two, fill(two.createQueue()), 20));
+    }
+
+    @Test
+    void testRollup_ShouldSumDispatchesAndUsagePerNode() {
+        var strategy = strategy();
+        drain(strategy, fill(strategy.createQueue()), 12);
+        strategy.recordUsage("t1", 5.0, Instant.EPOCH);
+        strategy.recordUsage("t4", 2.0, Instant.EPOCH);
+
+        var rollup = strategy.rollup();
+
+        assertEquals(Map.of("dispatched", 12.0, "usage", 7.0), rollup.get(""));
+        assertEquals(Map.of("dispatched", 8.0, "usage", 7.0), rollup.get("org-a"));
+        assertEquals(Map.of("dispatched", 4.0, "usage", 5.0), rollup.get("org-a/search"));
+        assertEquals(Map.of("dispatched", 4.0, "usage", 2.0), rollup.get("org-a/ads/t4"));
+    }
+
+    @Test
+    void testExportImportState_ShouldCarryPassesAndRollup() {
+        var strategy = strategy();
+        // первой уходит задача org-a: org-b теперь впереди
+        drain(strategy, fill(strategy.createQueue()), 1);
+
+        var restored = strategy();
+        restored.importState(strategy.exportState());
+
+        assertTrue(restored.compare(createTask("x", "t1"), createTask("y", "t5")) > 0);
+        assertEquals(strategy.rollup(), restored.rollup());
+    }
+
+    @Test
+    void testUpdateQuotas_ShouldReweightTenantsOutsideTree() {
+        var strategy = strategy();
+        var queue = strategy.createQueue();
+        for (var i = 0; i < 6; i++) {
+            queue.add(createTask("x" + i, "x"));
+            queue.add(createTask("y" + i, "y"));
+        }
+
+        strategy.updateQuotas(Map.of("x", 2.0), 0);
+
+        var first = drain(strategy, queue, 6);
+        assertEquals(4, first.stream().filter(t -> t.startsWith("x")).count());
+    }
+
+    private HierarchicalFairShareStrategy strategy() {
+        var props = new SchedulingModuleProperties();
+        var search = node(1.0, Map.of("t1", node(1.0, Map.of()), "t2", node(1.0, Map.of()),
+                "t3", node(1.0, Map.of())));
+        var ads = node(1.0, Map.of("t4", node(1.0, Map.of())));
+        props.getQuotaTree().put("org-a", node(2.0, Map.of("search", search, "ads", ads)));
+        props.getQuotaTree().put("org-b", node(1.0, Map.of("t5", node(1.0, Map.of()))));
+        var strategy = SchedulingStrategyFactory.withDefaults(props).create("hierarchical-fairness");
+        return assertInstanceOf(HierarchicalFairShareStrategy.class, strategy);
+    }
+
+    private SchedulingModuleProperties.QuotaNode node(double weight,
+                                                      Map<String, SchedulingModuleProperties.QuotaNode> children) {
+        var node = new SchedulingModuleProperties.QuotaNode();
+        node.setWeight(weight);
+        node.getChildren().putAll(children);
+        return node;
+    }
+
+    private ReadyQueue fill(ReadyQueue queue) {
+        for (var i = 0; i < 8; i++) {
+            for (var tenant : List.of("t1", "t2", "t3", "t4", "t5")) {
+                queue.add(createTask(tenant + "-" + i, tenant));
+            }
+        }
+        return queue;
+    }
+
+    /* как цикл scheduler-а: первая задача очереди уходит, хук стратегии сдвигает проходы по пути */
+    private List<String> drain(HierarchicalFairShareStrategy strategy, ReadyQueue queue, int n) {
+        var ids = new ArrayList<String>();
+        for (var i = 0; i < n; i++) {
+            var next = queue.peek();
+            queue.remove(next);
+            strategy.onDispatch(next, Instant.EPOCH);
+            ids.add(next.getWorkflowId());
+        }
+        return ids;
+    }
+
+    private Task createTask(String id, String tenant) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("tenantId", tenant);
+        return task;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeastLaxityStrategyTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private LeastLaxityStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        strategy = createStrategy(false);
+    }
+
+    @Test
+    void testCompare_WhenDeadlineMissing_ShouldOrderAfterFeasibleAndBeforeHopeless() {
+        var feasible = createTask("A", "Short", NOW.plusSeconds(60));
+        var hopeless = createTask("H", "Long", NOW.plusSeconds(20));
+        var withoutDeadline = Task.builder().workflowId("B").workflowType("Short").build();
+        var otherWithoutDeadline = Task.builder().workflowId("C").workflowType("Long").build();
+
+        assertTrue(strategy.canCompare(feasible, withoutDeadline));
+        assertTrue(strategy.compare(feasible, withoutDeadline) < 0);
+        assertTrue(strategy.compare(withoutDeadline, hopeless) < 0);
+        assertTrue(strategy.compare(feasible, hopeless) < 0);
+        assertEquals(0, strategy.compare(withoutDeadline, otherWithoutDeadline));
+    }
+
+    @Test
+    void testCompare_LongTaskWithLessSlackShouldGoFirst() {
+        // EDF выбрал бы короткую (дедлайн раньше), но у длинной запас 10 с против 29.9 с
+        var longTask = createTask("A", "Long", NOW.plusSeconds(70));
+        var shortTask = createTask("B", "Short", NOW.plusSeconds(30));
+
+        assertTrue(strategy.compare(longTask, shortTask) < 0);
+    }
+
+    @Test
+    void testCompare_HopelessTaskShouldGoLast() {
+        // до дедлайна 20 с при ожидаемых 60 с — не успеет
+        var hopeless = createTask("A", "Long", NOW.plusSeconds(20));
+        var feasible = createTask("B", "Short", NOW.plusSeconds(300));
+
+        assertTrue(strategy.isHopeless(hopeless, NOW));
+        assertFalse(strategy.isHopeless(feasible, NOW));
+        assertTrue(strategy.compare(hopeless, feasible) > 0);
+    }
+
+    @Test
+    void testPreprocess_ShouldRemoveExpiredAndKeepHopeless() {
+        var queue = new LinkedList<>(List.of(
+                createTask("expired", "Short", NOW.minusSeconds(1)),
+                createTask("hopeless", "Long", NOW.plusSeconds(20)),
+                createTask("ok", "Short", NOW.plusSeconds(60))));
+
+        strategy.preprocess(queue, NOW);
+
+        assertEquals(List.of("hopeless", "ok"), queue.stream().map(Task::getWorkflowId).toList());
+    }
+
+    @Test
+    void testPreprocess_WithDropHopeless_ShouldRemoveHopeless() {
+        var dropping = createStrategy(true);
+        var queue = new LinkedList<>(List.of(
+                createTask("hopeless", "Long", NOW.plusSeconds(20)),
+                createTask("ok", "Short", NOW.plusSeconds(60))));
+
+        dropping.preprocess(queue, NOW);
+
+        assertEquals(List.of("ok"), queue.stream().map(Task::getWorkflowId).toList());
+    }
+
+    private LeastLaxityStrategy createStrategy(boolean dropHopeless) {
+        var s = new LeastLaxityStrategy(new RuntimeEstimator(1.0, 1000, false, 1), 0.5, dropHopeless);
+        s.onCompletion(new TaskCompletion("s", "Short", "tenant1", 100), NOW);
+        s.onCompletion(new TaskCompletion("l", "Long", "tenant1", 60_000), NOW);
+        s.preprocess(new LinkedList<>(), NOW);
+        return s;
+    }
+
+    private Task createTask(String id, String type, Instant deadline) {
+        var task = Task.builder().workflowId(id).workflowType(type).build();
+        task.getAttributes().put("deadline", deadline);
+        return task;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.MultiLevelQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiLevelFeedbackStrategyTest {
+
+    private static final long AGING_MS = 60_000;
+
+    private final MultiLevelFeedbackStrategy strategy = new MultiLevelFeedbackStrategy(
+            List.of(0.75, 0.25), Map.of("interactive", 0, "batch", 1), "class", 1, AGING_MS);
+
+    @Test
+    void testLevelOf_ShouldStartAtClassLevelAndAgeUpward() {
+        var batch = createTask("B", "batch", 0);
+
+        assertEquals(1, strategy.levelOf(batch, Instant.ofEpochMilli(AGING_MS - 1)));
+        assertEquals(0, strategy.levelOf(batch, Instant.ofEpochMilli(AGING_MS)));
+        assertEquals(1, strategy.levelOf(createTask("X", null, 0), Instant.EPOCH));
+    }
+
+    @Test
+    void testCompare_ShouldOrderByLevelThenWait() {
+        strategy.preprocess(new java.util.LinkedList<>(), Instant.ofEpochMilli(1000));
+        var interactive = createTask("I", "interactive", 900);
+        var olderBatch = createTask("B1", "batch", 100);
+        var newerBatch = createTask("B2", "batch", 500);
+
+        assertTrue(strategy.compare(interactive, olderBatch) < 0);
+        assertTrue(strategy.compare(olderBatch, newerBatch) < 0);
+    }
+
+    @Test
+    void testQueue_ShouldGiveLevelsTheirShares() {
+        var queue = strategy.createQueue();
+        for (var i = 1; i <= 4; i++) {
+            queue.add(createTask("I" + i, "interactive", 0));
+            queue.add(createTask("B" + i, "batch", 0));
+        }
+
+        assertEquals(List.of("I1", "B1", "I2", "I3", "I4", "B2", "B3", "B4"), ids(queue));
+    }
+
+    @Test
+    void testOnDispatch_ShouldChargeTheDispatchedLevel() {
+        var queue = strategy.createQueue();
+        var interactive = new ArrayList<Task>();
+        for (var i = 1; i <= 3; i++) {
+            interactive.add(createTask("I" + i, "interactive", 0));
+        }
+        queue.addAll(interactive);
+        queue.add(createTask("B1", "batch", 0));
+
+        interactive.forEach(t -> strategy.onDispatch(t, Instant.EPOCH));
+
+        assertEquals("B1", queue.peek().getWorkflowId());
+    }
+
+    @Test
+    void testOnDispatch_ShouldChargeTheLevelTaskWasTakenFrom() {
+        var queue = strategy.createQueue();
+        var batch = createTask("B1", "batch", 0);
+        queue.add(createTask("I1", "interactive", 0));
+        queue.add(batch);
+        queue.add(createTask("B2", "batch", 0));
+
+        queue.remove(batch);
+        // за паузу перед dispatch-ем задача «доросла» бы до верхнего уровня, но взята с нижнего
+        var at = Instant.ofEpochMilli(2 * AGING_MS);
+        assertEquals(0, strategy.levelOf(batch, at));
+        assertEquals(1, strategy.servedLevel(batch, at));
+
+        strategy.onDispatch(batch, at);
+
+        assertEquals("I1", queue.peek().getWorkflowId());
+    }
+
+    @Test
+    void testPreprocess_ShouldPromoteWaitingTasks() {
+        var queue = (MultiLevelQueue) strategy.createQueue();
+        queue.add(createTask("B1", "batch", 0));
+        assertEquals(1, queue.levelOf("B1"));
+
+        strategy.preprocess(queue, Instant.ofEpochMilli(AGING_MS + 1));
+
+        assertEquals(0, queue.levelOf("B1"));
+    }
+
+    @Test
+    void testPreprocess_ShouldPlacePromotedTaskByEnqueueTime() {
+        var queue = strategy.createQueue();
+        queue.add(createTask("B1", "batch", 0));
+        queue.add(createTask("I1", "interactive", AGING_MS / 2));
+
+        strategy.preprocess(queue, Instant.ofEpochMilli(AGING_MS));
+
+        // B1 ждёт дольше I1, хотя попал на верхний уровень позже
+        assertEquals(List.of("B1", "I1"), ids(queue));
+    }
+
+    private List<String> ids(Iterable<Task> queue) {
+        var ids = new ArrayList<String>();
+        queue.forEach(t -> ids.add(t.getWorkflowId()));
+        return ids;
+    }
+
+    private Task createTask(String id, String cls, long enqueuedAt) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        if (cls != null) {
+            task.getAttributes().put("class", cls);
+        }
+        task.getAttributes().put(ShortestExpectedJobStrategy.ENQUEUED_AT, enqueuedAt);
+        return task;
+    }
+}
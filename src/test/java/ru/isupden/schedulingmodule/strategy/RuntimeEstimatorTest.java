@@ -0,0 +1,61 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeEstimatorTest {
+
+    @Test
+    void testEstimate_WhenTypeUnknown_ShouldReturnDefault() {
+        var estimator = new RuntimeEstimator(0.5, 1000, true, 2);
+
+        assertEquals(1000, estimator.estimateMs("Unknown", "tenant1"));
+        assertEquals(1000, estimator.estimateMs(null, null));
+        assertFalse(estimator.isKnown("Unknown"));
+    }
+
+    @Test
+    void testObserve_ShouldApplyEwma() {
+        var estimator = new RuntimeEstimator(0.5, 1000, false, 1);
+
+        estimator.observe("Report", null, 100);
+        estimator.observe("Report", null, 300);
+
+        assertTrue(estimator.isKnown("Report"));
+        assertEquals(200, estimator.estimateMs("Report", null), 1e-9);
+    }
+
+    @Test
+    void testEstimate_ShouldUseTenantOnlyAfterMinSamples() {
+        var estimator = new RuntimeEstimator(1.0, 1000, true, 2);
+        estimator.observe("Report", "fast", 10);
+        estimator.observe("Report", "slow", 500);
+
+        // по паре одно наблюдение — берётся оценка по типу (последнее значение при alpha = 1)
+        assertEquals(500, estimator.estimateMs("Report", "fast"), 1e-9);
+
+        estimator.observe("Report", "fast", 10);
+        assertEquals(10, estimator.estimateMs("Report", "fast"), 1e-9);
+    }
+
+    @Test
+    void testState_ShouldRoundTrip() {
+        var source = new RuntimeEstimator(0.5, 1000, true, 1);
+        source.observe("Report", "tenant1", 40);
+
+        var restored = new RuntimeEstimator(0.5, 1000, true, 1);
+        restored.importState(source.exportState());
+
+        assertEquals(40, restored.estimateMs("Report", "tenant1"), 1e-9);
+        assertEquals(40, restored.estimateMs("Report", "other"), 1e-9);
+    }
+
+    @Test
+    void testConstructor_WhenAlphaOutOfRange_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new RuntimeEstimator(0, 1000, true, 1));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
+import ru.isupden.schedulingmodule.model.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulingStrategyFactoryTest {
+
+    private final SchedulingStrategyFactory factory =
+            SchedulingStrategyFactory.withDefaults(new SchedulingModuleProperties());
+
+    @Test
+    void testCreate_ShouldReturnFreshInstances() {
+        assertNotSame(factory.create("critical"), factory.create("critical"));
+    }
+
+    @Test
+    void testCreate_WhenUnknownName_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> factory.create("unknown"));
+    }
+
+    @Test
+    void testCreateChain_ShouldKeepSpecOrder() {
+        var chain = factory.createChain("fairness+priority");
+
+        assertEquals(List.of("fairness", "priority"), List.copyOf(chain.keySet()));
+        assertInstanceOf(FairnessSchedulingStrategy.class, chain.get("fairness"));
+    }
+
+    @Test
+    void testCreateChain_WhenQueueOwningStrategyIsNotFirst_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> factory.createChain("priority+mlfq"));
+        assertThrows(IllegalArgumentException.class, () -> factory.validate("priority+mlfq"));
+        assertThrows(IllegalArgumentException.class, () -> factory.validate("priority+unknown"));
+        factory.validate("mlfq+priority");
+    }
+
+    @Test
+    void testValidate_WhenLlfDropsHopelessWithoutCompletions_ShouldThrow() {
+        var props = new SchedulingModuleProperties();
+        props.getLlf().setDropHopeless(true);
+        var dropping = SchedulingStrategyFactory.withDefaults(props);
+
+        assertThrows(IllegalArgumentException.class, () -> dropping.validate("deadline+llf", false));
+        dropping.validate("deadline+llf", true);
+        factory.validate("llf", false);
+        factory.validate("sejf", false);
+    }
+
+    @Test
+    void testCreateStrategy_ShouldNotShareStateBetweenWorkflows() {
+        var first = factory.createStrategy("priority+critical");
+        var second = factory.createStrategy("priority+critical");
+        assertInstanceOf(CompositeSchedulingStrategy.class, first);
+
+        first.onDispatch(Task.builder().workflowId("dep").build(), Instant.now());
+
+        var waiting = Task.builder().workflowId("A").build();
+        waiting.getAttributes().put("dependsOn", List.of("dep"));
+        var free = Task.builder().workflowId("B").build();
+        free.getAttributes().put("dependsOn", List.of());
+
+        assertEquals(0, first.compare(waiting, free));
+        assertTrue(second.compare(waiting, free) > 0);
+    }
+
+    @Test
+    void testCompositeState_ShouldRoundTrip() {
+        var source = factory.createStrategy("priority+critical");
+        source.onDispatch(Task.builder().workflowId("dep").build(), Instant.now());
+
+        var restored = factory.createStrategy("priority+critical");
+        restored.importState(source.exportState());
+
+        assertEquals(source.exportState(), restored.exportState());
+    }
+}
@@ -0,0 +1,68 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.LinkedList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortestExpectedJobStrategyTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private ShortestExpectedJobStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        strategy = new ShortestExpectedJobStrategy(new RuntimeEstimator(1.0, 1000, false, 1), 0.1);
+        strategy.onCompletion(new TaskCompletion("s", "Short", "tenant1", 100), NOW);
+        strategy.onCompletion(new TaskCompletion("l", "Long", "tenant1", 60_000), NOW);
+        strategy.preprocess(new LinkedList<>(), NOW);
+    }
+
+    @Test
+    void testCompare_ShouldPreferShorterExpectedRuntime() {
+        var shortTask = createTask("A", "Short", NOW);
+        var longTask = createTask("B", "Long", NOW);
+
+        assertTrue(strategy.compare(shortTask, longTask) < 0);
+        assertTrue(strategy.compare(longTask, shortTask) > 0);
+    }
+
+    @Test
+    void testCompare_UnknownTypeShouldUseDefaultEstimate() {
+        var unknown = createTask("A", "Unknown", NOW);
+
+        assertTrue(strategy.compare(createTask("B", "Short", NOW), unknown) < 0);
+        assertTrue(strategy.compare(unknown, createTask("C", "Long", NOW)) < 0);
+    }
+
+    @Test
+    void testCompare_AgingShouldEventuallyPromoteLongTask() {
+        // 60 с оценки минус 0.1 × 10 минут ожидания = 0 < 100 мс
+        var oldLong = createTask("A", "Long", NOW.minusSeconds(600));
+        var freshShort = createTask("B", "Short", NOW);
+
+        assertTrue(strategy.compare(oldLong, freshShort) < 0);
+    }
+
+    @Test
+    void testState_ShouldRoundTrip() {
+        var restored = new ShortestExpectedJobStrategy(new RuntimeEstimator(1.0, 1000, false, 1), 0.1);
+        restored.importState(strategy.exportState());
+        restored.preprocess(new LinkedList<>(), NOW);
+
+        assertEquals(60_000, restored.score(createTask("A", "Long", NOW)), 1e-9);
+    }
+
+    private Task createTask(String id, String type, Instant enqueuedAt) {
+        var task = Task.builder().workflowId(id).workflowType(type).build();
+        task.getAttributes().put(ShortestExpectedJobStrategy.ENQUEUED_AT, enqueuedAt.toEpochMilli());
+        return task;
+    }
+}
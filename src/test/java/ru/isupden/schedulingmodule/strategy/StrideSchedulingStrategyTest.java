@@ -0,0 +1,109 @@
+package ru.isupden.schedulingmodule.strategy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.queue.ReadyQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrideSchedulingStrategyTest {
+
+    @Test
+    void testDispatch_ShouldFollowQuotasExactly() {
+        var strategy = new StrideSchedulingStrategy(Map.of("A", 3.0, "B", 1.0));
+        var queue = fill(strategy.createQueue(), 1.0);
+
+        var first = drain(strategy, queue, 8);
+
+        assertEquals(6, first.stream().filter(t -> t.startsWith("A")).count());
+        assertEquals(2, first.stream().filter(t -> t.startsWith("B")).count());
+    }
+
+    @Test
+    void testDispatch_ShouldChargeDeclaredCost() {
+        var strategy = new StrideSchedulingStrategy(Map.of());
+        var queue = strategy.createQueue();
+        for (var i = 0; i < 8; i++) {
+            queue.add(createTask("A" + i, "A", 2.0));
+            queue.add(createTask("B" + i, "B", 1.0));
+        }
+
+        var first = drain(strategy, queue, 6);
+
+        // равные квоты, но задачи A вдвое дороже
+        assertEquals(2, first.stream().filter(t -> t.startsWith("A")).count());
+        assertEquals(4, first.stream().filter(t -> t.startsWith("B")).count());
+    }
+
+    @Test
+    void testDispatch_ShouldBeDeterministic() {
+        var one = new StrideSchedulingStrategy(Map.of("A", 2.0, "B", 1.0));
+        var two = new StrideSchedulingStrategy(Map.of("A", 2.0, "B", 1.0));
+
+        assertEquals(drain(one, fill(one.createQueue(), 1.0), 16), drain(two, fill(two.createQueue(), 1.0), 16));
+    }
+
+    @Test
+    void testIdleTenant_ShouldNotBankCredit() {
+        var strategy = new StrideSchedulingStrategy(Map.of());
+        var queue = strategy.createQueue();
+        for (var i = 0; i < 10; i++) {
+            queue.add(createTask("A" + i, "A", 1.0));
+        }
+        drain(strategy, queue, 10);
+
+        for (var i = 0; i < 4; i++) {
+            queue.add(createTask("A1" + i, "A", 1.0));
+            queue.add(createTask("B" + i, "B", 1.0));
+        }
+
+        // B пришёл после простоя и чередуется с A, а не забирает всё
+        var next = drain(strategy, queue, 4);
+        assertEquals(2, next.stream().filter(t -> t.startsWith("B")).count());
+    }
+
+    @Test
+    void testExportImportState_ShouldCarryPasses() {
+        var strategy = new StrideSchedulingStrategy(Map.of());
+        // A, B, A: проход A впереди
+        drain(strategy, fill(strategy.createQueue(), 1.0), 3);
+
+        var restored = new StrideSchedulingStrategy(Map.of());
+        restored.importState(strategy.exportState());
+
+        assertTrue(restored.compare(createTask("x", "A", 1.0), createTask("y", "B", 1.0)) > 0);
+    }
+
+    private ReadyQueue fill(ReadyQueue queue, double cost) {
+        for (var i = 0; i < 8; i++) {
+            queue.add(createTask("A" + i, "A", cost));
+            queue.add(createTask("B" + i, "B", cost));
+        }
+        return queue;
+    }
+
+    /* как цикл scheduler-а: первая задача очереди уходит, хук стратегии сдвигает проход */
+    private List<String> drain(StrideSchedulingStrategy strategy, ReadyQueue queue, int n) {
+        var ids = new ArrayList<String>();
+        for (var i = 0; i < n; i++) {
+            var next = queue.peek();
+            queue.remove(next);
+            strategy.onDispatch(next, Instant.EPOCH);
+            ids.add(next.getWorkflowId());
+        }
+        return ids;
+    }
+
+    private Task createTask(String id, String tenant, double cost) {
+        var task = Task.builder().workflowId(id).workflowType("TestWorkflow").build();
+        task.getAttributes().put("tenantId", tenant);
+        task.getAttributes().put(StrideSchedulingStrategy.COST, cost);
+        return task;
+    }
+}
@@ -1,31 +1,58 @@
 package ru.isupden.schedulingmodule.workflow;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.ParentClosePolicy;
+import io.temporal.api.history.v1.History;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
+import io.temporal.client.WorkflowUpdateException;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.failure.ApplicationFailure;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.testing.TestWorkflowExtension;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import ru.isupden.schedulingmodule.activity.BacklogActivity;
 import ru.isupden.schedulingmodule.activity.DispatchActivity;
+import ru.isupden.schedulingmodule.activity.OverflowActivityImpl;
+import ru.isupden.schedulingmodule.activity.PayloadActivity;
 import ru.isupden.schedulingmodule.config.SchedulingModuleProperties;
 import ru.isupden.schedulingmodule.metrics.SchedulingMetricsService;
+import ru.isupden.schedulingmodule.model.BacklogSample;
+import ru.isupden.schedulingmodule.model.ConfigUpdate;
 import ru.isupden.schedulingmodule.model.Task;
+import ru.isupden.schedulingmodule.model.TaskCompletion;
+import ru.isupden.schedulingmodule.payload.MappedSegmentStore;
+import ru.isupden.schedulingmodule.queue.FairShareTree;
+import ru.isupden.schedulingmodule.strategy.HierarchicalFairShareStrategy;
 import ru.isupden.schedulingmodule.strategy.PrioritySchedulingStrategy;
 import ru.isupden.schedulingmodule.strategy.SchedulingStrategy;
+import ru.isupden.schedulingmodule.strategy.SchedulingStrategyFactory;
+import ru.isupden.schedulingmodule.strategy.StrideSchedulingStrategy;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SchedulerWorkflowImplTest {
 
@@ -36,6 +63,10 @@ class SchedulerWorkflowImplTest {
             .build();
     private static final String CLIENT_NAME = "test-client";
     private static final String TASK_QUEUE = "test-task-queue";
+    private static final String SPILL_HOST = "host-a";
+
+    @TempDir
+    Path spillDirectory;
 
     @Mock
     private SchedulingStrategy mockStrategy;
@@ -43,7 +74,7 @@ class SchedulerWorkflowImplTest {
     private SchedulingMetricsService mockMetricsService;
 
     private SchedulingModuleProperties properties;
-    private Map<String, SchedulingStrategy> strategies;
+    private SchedulingStrategyFactory strategies;
     private SchedulerWorkflow workflowStub;
     private WorkflowStub untypedWorkflowStub;
     private TestWorkflowEnvironment testEnv;
@@ -70,9 +101,11 @@ class SchedulerWorkflowImplTest {
         properties.setBackpressure(backpressure);
 
         // Setup strategies
-        strategies = new HashMap<>();
-        strategies.put("priority", new PrioritySchedulingStrategy());
-        strategies.put("mock", mockStrategy);
+        strategies = new SchedulingStrategyFactory()
+                .register("priority", PrioritySchedulingStrategy::new)
+                .register("stride", () -> new StrideSchedulingStrategy(Map.of()))
+                .register("hierarchical-fairness", () -> new HierarchicalFairShareStrategy(new FairShareTree(t -> 1.0)))
+                .register("mock", () -> mockStrategy);
 
         // Инициализация тестового активити
         var testDispatchActivity = new TestDispatchActivityImpl();
@@ -80,8 +113,14 @@ class SchedulerWorkflowImplTest {
         // Register workflow and activities
         var worker = testEnv.newWorker(CLIENT_NAME);
 
-        // Регистрируем активити
-        worker.registerActivitiesImplementations(testDispatchActivity);
+        // Активити слушает отдельную dispatch-очередь клиента
+        var overflowActivity = new OverflowActivityImpl(new MappedSegmentStore(spillDirectory), SPILL_HOST);
+        testEnv.newWorker("dispatch-" + CLIENT_NAME)
+                .registerActivitiesImplementations(testDispatchActivity, new TestBacklogActivityImpl(),
+                        overflowActivity, new TestPayloadActivityImpl());
+        // сегменты загружаются только с очереди записавшего их хоста
+        testEnv.newWorker("dispatch-" + CLIENT_NAME + "@" + SPILL_HOST)
+                .registerActivitiesImplementations(overflowActivity);
 
         // Используем фабрику для регистрации workflow с зависимостями
         worker.registerWorkflowImplementationFactory(
@@ -110,7 +149,7 @@ class SchedulerWorkflowImplTest {
     @Test
     void testSubmitAndProcessTasks() throws InterruptedException {
         // Start workflow (non-blocking)
-        WorkflowClient.start(workflowStub::run, CLIENT_NAME);
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
 
         // Create tasks with different priorities
         var task1 = Task.builder()
@@ -176,16 +215,688 @@ class SchedulerWorkflowImplTest {
         assertEquals(0, workflowStub.getQueueLength());
     }
 
+    @Test
+    void testDuplicateWorkflowIdIsDispatchedOnce() throws InterruptedException {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var original = Task.builder()
+                .workflowId("dup")
+                .workflowType("TestWorkflow")
+                .build();
+        var duplicate = Task.builder()
+                .workflowId("dup")
+                .workflowType("TestWorkflow")
+                .build();
+
+        workflowStub.submitTasks(Arrays.asList(original, duplicate), CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        var execution = untypedWorkflowStub.getExecution();
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(execution)
+                                .build())
+                .getHistory();
+
+        var scheduled = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .count();
+
+        assertEquals(1, scheduled, "Дубликат по workflowId не должен запускаться повторно");
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testSubmitTasksWithAckAppliesTenantCap() {
+        properties.getClients().get(CLIENT_NAME).getAdmission().setMaxQueuedPerTenant(1);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var result = workflowStub.submitTasksWithAck(Arrays.asList(
+                createTenantTask("a1", "tenantA"),
+                createTenantTask("a2", "tenantA"),
+                createTenantTask("b1", "tenantB")), CLIENT_NAME);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("a2"), result.getRejectedIds());
+        assertTrue(result.getRetryAfterMs() >= 1000);
+    }
+
+    @Test
+    void testSubmitTasksWithAckCountsDelayedTasksInTenantCap() {
+        properties.getClients().get(CLIENT_NAME).getAdmission().setMaxQueuedPerTenant(1);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var notBefore = Instant.ofEpochMilli(testEnv.currentTimeMillis()).plus(Duration.ofHours(1));
+        var delayedTask = createTenantTask("a1", "tenantA");
+        delayedTask.getAttributes().put("notBefore", notBefore.toString());
+
+        var result = workflowStub.submitTasksWithAck(Arrays.asList(
+                delayedTask,
+                createTenantTask("a2", "tenantA")), CLIENT_NAME);
+
+        // отложенная задача тоже занимает место тенанта
+        assertEquals(1, result.getAccepted());
+        assertEquals(List.of("a2"), result.getRejectedIds());
+    }
+
+    @Test
+    void testPayloadsOfDiscardedTasksAreDeleted() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).getAdmission().setMaxQueued(1);
+        TestPayloadActivityImpl.deleted.clear();
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var notBefore = Instant.ofEpochMilli(testEnv.currentTimeMillis()).plus(Duration.ofHours(1));
+        var kept = claimCheckTask("kept", "ref-kept");
+        kept.getAttributes().put("notBefore", notBefore.toString());
+
+        var result = workflowStub.submitTasksWithAck(List.of(kept, claimCheckTask("rejected", "ref-rejected")),
+                CLIENT_NAME);
+        assertEquals(List.of("rejected"), result.getRejectedIds());
+
+        // повтор той же отправки не трогает payload задачи в очереди, новый payload дубликата удаляется
+        workflowStub.submitTasks(List.of(kept, claimCheckTask("kept", "ref-dup")), CLIENT_NAME);
+        workflowStub.cancelTasks(List.of("kept"));
+
+        Thread.sleep(500);
+        assertEquals(List.of("ref-dup", "ref-kept", "ref-rejected"),
+                TestPayloadActivityImpl.deleted.stream().sorted().toList());
+    }
+
+    @Test
+    void testSubmitTasksWithAckRejectsTasksOverBudget() {
+        properties.getClients().get(CLIENT_NAME).getBudget().setMaxTasks(2);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var result = workflowStub.submitTasksWithAck(Arrays.asList(
+                createTenantTask("t1", "tenantA"),
+                createTenantTask("t2", "tenantA"),
+                createTenantTask("t3", "tenantB")), CLIENT_NAME);
+
+        // третья задача не принята, а не принята и сброшена
+        assertEquals(2, result.getAccepted());
+        assertEquals(List.of("t3"), result.getRejectedIds());
+        assertTrue(result.getRetryAfterMs() >= 1000);
+    }
+
+    @Test
+    void testSubmitTasksWithAckRejectsInvalidTasks() {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var invalid = Task.builder().workflowType("TestWorkflow").build();
+
+        assertThrows(WorkflowUpdateException.class,
+                () -> workflowStub.submitTasksWithAck(List.of(invalid), CLIENT_NAME));
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testBudgetShedsLowestPriorityTasks() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).getBudget().setMaxTasks(2);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var tasks = new ArrayList<Task>();
+        for (var p = 1; p <= 4; p++) {
+            var task = Task.builder()
+                    .workflowId("task" + p)
+                    .workflowType("TestWorkflow")
+                    .build();
+            task.getAttributes().put("priority", p);
+            tasks.add(task);
+        }
+        workflowStub.submitTasks(tasks, CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        var execution = untypedWorkflowStub.getExecution();
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(execution)
+                                .build())
+                .getHistory();
+
+        var dispatched = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(e -> e.getActivityTaskScheduledEventAttributes()
+                        .getInput().getPayloads(1).getData().toStringUtf8().replaceAll("\"", ""))
+                .toList();
+
+        assertEquals(List.of("task4", "task3"), dispatched);
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testUpdateConfigChangesRateAndStrategyOfRunningScheduler() throws InterruptedException {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var applied = workflowStub.updateConfig(ConfigUpdate.builder()
+                .throughputFactor(5.0)
+                .quotas(Map.of("tenant1", 2.0))
+                .strategy("mock")
+                .build());
+
+        assertEquals(5.0, applied.getThroughputFactor());
+        assertEquals(60, applied.getWindowSeconds());
+        assertEquals(Map.of("tenant1", 2.0), applied.getQuotas());
+        assertEquals("mock", applied.getStrategy());
+        assertEquals(5.0, workflowStub.getDispatchRate());
+
+        // после замены стратегии (и очереди) задачи по-прежнему запускаются
+        workflowStub.submitTasks(List.of(createTenantTask("c1", "tenant1")), CLIENT_NAME);
+        Thread.sleep(500);
+        assertEquals(1, countScheduledActivities());
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testUpdateConfigRejectsUnknownStrategy() {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        assertThrows(WorkflowUpdateException.class,
+                () -> workflowStub.updateConfig(ConfigUpdate.builder().strategy("priority+nope").build()));
+        assertThrows(WorkflowUpdateException.class,
+                () -> workflowStub.updateConfig(ConfigUpdate.builder().throughputFactor(0.0).build()));
+        assertEquals(1000.0, workflowStub.getDispatchRate());
+    }
+
+    @Test
+    void testChildWorkflowDispatchMode() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME)
+                .setDispatchMode(SchedulingModuleProperties.DispatchMode.CHILD_WORKFLOW);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var task = Task.builder()
+                .workflowId("child1")
+                .workflowType("TestWorkflow")
+                .payload(Map.of("tenantId", "tenant1"))
+                .build();
+        task.getAttributes().put("priority", 1);
+
+        workflowStub.submitTasks(List.of(task), CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        var execution = untypedWorkflowStub.getExecution();
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(execution)
+                                .build())
+                .getHistory();
+
+        var activities = 0;
+        var children = new ArrayList<String>();
+        for (var event : history.getEventsList()) {
+            if (event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED) {
+                activities++;
+            }
+            if (event.getEventType() == EventType.EVENT_TYPE_START_CHILD_WORKFLOW_EXECUTION_INITIATED) {
+                var attrs = event.getStartChildWorkflowExecutionInitiatedEventAttributes();
+                assertEquals(ParentClosePolicy.PARENT_CLOSE_POLICY_ABANDON, attrs.getParentClosePolicy());
+                assertEquals(TASK_QUEUE, attrs.getTaskQueue().getName());
+                assertTrue(attrs.getMemo().containsFields("tenantId"));
+                assertTrue(attrs.getMemo().containsFields("clientName"));
+                children.add(attrs.getWorkflowId());
+            }
+        }
+
+        assertEquals(0, activities, "В режиме child-воркфлоу DispatchActivity не вызывается");
+        assertEquals(List.of("child1"), children);
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testRateLimitedTypeIsSkippedWithoutBlockingOthers() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).getRateLimits().getWorkflowTypes().put("Heavy", 0.1);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var tasks = new ArrayList<Task>();
+        for (var i = 1; i <= 3; i++) {
+            var heavy = Task.builder()
+                    .workflowId("heavy" + i)
+                    .workflowType("Heavy")
+                    .build();
+            heavy.getAttributes().put("priority", 10);
+            tasks.add(heavy);
+        }
+        var light = Task.builder()
+                .workflowId("light")
+                .workflowType("Light")
+                .build();
+        light.getAttributes().put("priority", 1);
+        tasks.add(light);
+
+        workflowStub.submitTasks(tasks, CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        var execution = untypedWorkflowStub.getExecution();
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(execution)
+                                .build())
+                .getHistory();
+
+        var dispatched = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(e -> e.getActivityTaskScheduledEventAttributes()
+                        .getInput().getPayloads(1).getData().toStringUtf8().replaceAll("\"", ""))
+                .toList();
+
+        assertEquals(List.of("heavy1", "light"), dispatched);
+        assertEquals(2, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testAutoTuneLowersRateWhenDownstreamBacklogGrows() throws InterruptedException {
+        var autoTune = properties.getClients().get(CLIENT_NAME).getAutoTune();
+        autoTune.setEnabled(true);
+        autoTune.setTargetBacklog(100);
+        autoTune.setKp(1);
+        autoTune.setMaxRate(1000);
+        TestBacklogActivityImpl.backlog = 10_000;
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+        workflowStub.submitTasks(List.of(createTenantTask("tuned", "tenant1")), CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        assertEquals(autoTune.getMinRate(), workflowStub.getDispatchRate());
+    }
+
+    @Test
+    void testMaxRunningPerTypeWaitsForCompletions() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).getConcurrency().getWorkflowTypes().put("TestWorkflow", 1);
+        properties.getCompletions().setEnabled(true);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        workflowStub.submitTasks(List.of(
+                createTenantTask("run1", "tenant1"),
+                createTenantTask("run2", "tenant1")), CLIENT_NAME);
+
+        Thread.sleep(500);
+        assertEquals(1, countScheduledActivities());
+        assertEquals(1, workflowStub.getQueueLength());
+
+        workflowStub.reportCompletions(List.of(new TaskCompletion("run1", "TestWorkflow", "tenant1", 10)));
+
+        Thread.sleep(500);
+        assertEquals(2, countScheduledActivities());
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testStrideInChainKeepsSharesWithinBatch() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).setStrategy("stride+priority");
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+        workflowStub.submitTasks(prioritizedTenantTasks(), CLIENT_NAME);
+
+        Thread.sleep(1000);
+
+        // у A выше приоритет, но stride чередует тенантов и внутри одной пачки
+        var first = scheduledWorkflowIds().subList(0, 4);
+        assertEquals(2, first.stream().filter(id -> id.startsWith("B")).count());
+    }
+
+    @Test
+    void testHierarchicalFairShareInChainKeepsSharesWithinBatch() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).setStrategy("hierarchical-fairness+priority");
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+        workflowStub.submitTasks(prioritizedTenantTasks(), CLIENT_NAME);
+
+        Thread.sleep(1000);
+
+        var first = scheduledWorkflowIds().subList(0, 4);
+        assertEquals(2, first.stream().filter(id -> id.startsWith("B")).count());
+    }
+
+    @Test
+    void testClientNameKeyIsSentOnlyWithCompletions() throws InterruptedException {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        workflowStub.submitTasks(List.of(createTenantTask("plain", "tenant1")), CLIENT_NAME);
+        Thread.sleep(500);
+
+        // собственная DispatchActivity без отчётов о завершении не увидит служебный ключ
+        assertFalse(TestDispatchActivityImpl.payloads.get("plain").containsKey(DispatchActivity.CLIENT_NAME_KEY));
+    }
+
+    @Test
+    void testFailedDispatchReleasesRunningSlot() throws InterruptedException {
+        properties.getClients().get(CLIENT_NAME).getConcurrency().getWorkflowTypes().put("TestWorkflow", 1);
+        properties.getCompletions().setEnabled(true);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        workflowStub.submitTasks(List.of(createTenantTask("fail-1", "tenant1")), CLIENT_NAME);
+        Thread.sleep(500);
+        workflowStub.submitTasks(List.of(createTenantTask("run2", "tenant1")), CLIENT_NAME);
+        Thread.sleep(500);
+
+        // отчёта о завершении fail-1 не будет, но слот освободился по падению dispatch-а
+        assertEquals(2, countScheduledActivities());
+        assertEquals(0, workflowStub.getQueueLength());
+    }
+
+    @Test
+    void testActivityIsScheduledOnDispatchQueue() throws InterruptedException {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        workflowStub.submitTasks(List.of(createTenantTask("q1", "tenant1")), CLIENT_NAME);
+
+        Thread.sleep(500);
+
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(untypedWorkflowStub.getExecution())
+                                .build())
+                .getHistory();
+
+        var queues = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(e -> e.getActivityTaskScheduledEventAttributes().getTaskQueue().getName())
+                .toList();
+
+        assertEquals(List.of("dispatch-" + CLIENT_NAME), queues);
+    }
+
+    @Test
+    void testNotBeforeDelaysDispatchUntilTimer() throws InterruptedException {
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var notBefore = Instant.ofEpochMilli(testEnv.currentTimeMillis()).plus(Duration.ofHours(1));
+        var task = Task.builder()
+                .workflowId("later")
+                .workflowType("TestWorkflow")
+                .build();
+        task.getAttributes().put("notBefore", notBefore.toString());
+
+        workflowStub.submitTasks(List.of(task), CLIENT_NAME);
+
+        Thread.sleep(500);
+        assertEquals(0, countScheduledActivities(), "До notBefore задача не должна запускаться");
+        assertEquals(1, workflowStub.getDelayedLength());
+
+        testEnv.sleep(Duration.ofHours(2));
+        Thread.sleep(500);
+
+        assertEquals(1, countScheduledActivities());
+        assertEquals(0, workflowStub.getDelayedLength());
+    }
+
+    @Test
+    void testSpilledTasksArePagedBackInPriorityOrder() throws Exception {
+        var spill = properties.getClients().get(CLIENT_NAME).getSpill();
+        spill.setEnabled(true);
+        spill.setHighWaterMark(4);
+        spill.setLowWaterMark(2);
+        spill.setBatchSize(2);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var tasks = new ArrayList<Task>();
+        for (var p = 1; p <= 10; p++) {
+            var task = Task.builder()
+                    .workflowId("task" + p)
+                    .workflowType("TestWorkflow")
+                    .build();
+            task.getAttributes().put("priority", p);
+            tasks.add(task);
+        }
+        workflowStub.submitTasks(tasks, CLIENT_NAME);
+
+        Thread.sleep(1500);
+
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(untypedWorkflowStub.getExecution())
+                                .build())
+                .getHistory();
+        var scheduled = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(e -> e.getActivityTaskScheduledEventAttributes())
+                .toList();
+
+        var dispatched = scheduled.stream()
+                .filter(a -> a.getActivityType().getName().equals("DispatchTask"))
+                .map(a -> a.getInput().getPayloads(1).getData().toStringUtf8().replaceAll("\"", ""))
+                .toList();
+        var spills = scheduled.stream()
+                .filter(a -> a.getActivityType().getName().equals("SpillTasks"))
+                .count();
+        var loads = scheduled.stream()
+                .filter(a -> a.getActivityType().getName().equals("LoadTasks"))
+                .filter(a -> a.getTaskQueue().getName().equals("dispatch-" + CLIENT_NAME + "@" + SPILL_HOST))
+                .count();
+
+        // худшие шесть задач ушли тремя сегментами и вернулись лучшими вперёд
+        assertEquals(List.of("task10", "task9", "task8", "task7", "task6",
+                "task5", "task4", "task3", "task2", "task1"), dispatched);
+        assertEquals(3, spills);
+        assertEquals(3, loads);
+        assertEquals(0, workflowStub.getOverflowLength());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count(), "Загруженные сегменты удаляются");
+        }
+    }
+
+    @Test
+    void testSpillSegmentsStayUnderByteCap() throws Exception {
+        var spill = properties.getClients().get(CLIENT_NAME).getSpill();
+        spill.setEnabled(true);
+        spill.setHighWaterMark(4);
+        spill.setLowWaterMark(2);
+        spill.setBatchSize(2);
+        spill.setMaxSegmentBytes(1);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var tasks = new ArrayList<Task>();
+        for (var p = 1; p <= 10; p++) {
+            var task = Task.builder()
+                    .workflowId("task" + p)
+                    .workflowType("TestWorkflow")
+                    .payload(Map.of("data", "x".repeat(100)))
+                    .build();
+            task.getAttributes().put("priority", p);
+            tasks.add(task);
+        }
+        workflowStub.submitTasks(tasks, CLIENT_NAME);
+
+        Thread.sleep(1500);
+
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(untypedWorkflowStub.getExecution())
+                                .build())
+                .getHistory();
+        var spills = history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .filter(e -> e.getActivityTaskScheduledEventAttributes().getActivityType().getName()
+                        .equals("SpillTasks"))
+                .count();
+
+        // сегмент по байтам вмещает одну задачу: шесть сегментов вместо трёх по batchSize
+        assertEquals(6, spills);
+        assertEquals(10, scheduledWorkflowIds().size());
+        assertEquals(0, workflowStub.getOverflowLength());
+    }
+
+    @Test
+    void testContinueAsNewCarriesSpilledSegments() throws Exception {
+        var clientProps = properties.getClients().get(CLIENT_NAME);
+        clientProps.getSpill().setEnabled(true);
+        clientProps.getSpill().setHighWaterMark(100);
+        clientProps.getSpill().setLowWaterMark(50);
+        clientProps.getSpill().setBatchSize(4);
+        clientProps.getContinueAsNew().setMaxHistoryLength(30);
+        clientProps.getContinueAsNew().setMaxCarriedBytes(1);
+
+        WorkflowClient.start(workflowStub::run, CLIENT_NAME, null);
+
+        var notBefore = Instant.ofEpochMilli(testEnv.currentTimeMillis()).plus(Duration.ofHours(1));
+        var tasks = new ArrayList<Task>();
+        for (var p = 1; p <= 10; p++) {
+            var task = Task.builder()
+                    .workflowId("carried" + p)
+                    .workflowType("TestWorkflow")
+                    .build();
+            task.getAttributes().put("priority", p);
+            task.getAttributes().put("notBefore", notBefore.toString());
+            tasks.add(task);
+        }
+        workflowStub.submitTasks(tasks, CLIENT_NAME);
+        // каждый сигнал будит цикл и удлиняет историю
+        for (var i = 0; i < 10; i++) {
+            workflowStub.updateTaskAttributes("carried1", Map.of("priority", 1));
+        }
+        Thread.sleep(1000);
+
+        var firstRun = history(untypedWorkflowStub.getExecution());
+        assertEquals(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_CONTINUED_AS_NEW,
+                firstRun.getEvents(firstRun.getEventsCount() - 1).getEventType());
+        // через вход нового запуска — сводки сегментов, а не задачи
+        var spills = firstRun.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .filter(e -> e.getActivityTaskScheduledEventAttributes().getActivityType().getName()
+                        .equals("SpillTasks"))
+                .count();
+        assertEquals(3, spills);
+
+        var latest = testEnv.getWorkflowClient().newWorkflowStub(SchedulerWorkflow.class, "test-scheduler-workflow");
+        assertEquals(10, latest.getDelayedLength() + latest.getOverflowLength());
+
+        testEnv.sleep(Duration.ofHours(2));
+        Thread.sleep(1000);
+
+        // задачи могли уйти из разных запусков: проверяем по самим стартам
+        for (var p = 1; p <= 10; p++) {
+            assertTrue(TestDispatchActivityImpl.payloads.containsKey("carried" + p), "carried" + p);
+        }
+        assertEquals(0, latest.getDelayedLength() + latest.getOverflowLength() + latest.getQueueLength());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count(), "Загруженные сегменты удаляются");
+        }
+    }
+
+    private long countScheduledActivities() {
+        var history = testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(untypedWorkflowStub.getExecution())
+                                .build())
+                .getHistory();
+        return history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .count();
+    }
+
+    /* по 8 задач тенантов A и B; у A приоритет выше */
+    private List<Task> prioritizedTenantTasks() {
+        var tasks = new ArrayList<Task>();
+        for (var i = 0; i < 8; i++) {
+            for (var tenant : List.of("A", "B")) {
+                var task = createTenantTask(tenant + i, tenant);
+                task.getAttributes().put("priority", tenant.equals("A") ? 10 : 1);
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /* workflowId задач в порядке, в котором scheduler поставил их DispatchTask */
+    private List<String> scheduledWorkflowIds() {
+        var history = history(untypedWorkflowStub.getExecution());
+        var converter = DefaultDataConverter.newDefaultInstance();
+        return history.getEventsList().stream()
+                .filter(e -> e.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(e -> e.getActivityTaskScheduledEventAttributes())
+                .filter(a -> a.getActivityType().getName().equals("DispatchTask"))
+                .map(a -> a.getInput().getPayloads(1))
+                .map(p -> converter.fromPayload(p, String.class, String.class))
+                .toList();
+    }
+
+    private History history(WorkflowExecution execution) {
+        return testEnv.getWorkflowServiceStubs().blockingStub().getWorkflowExecutionHistory(
+                        GetWorkflowExecutionHistoryRequest.newBuilder()
+                                .setNamespace("UnitTest")
+                                .setExecution(execution)
+                                .build())
+                .getHistory();
+    }
+
+    private Task claimCheckTask(String id, String ref) {
+        return Task.builder()
+                .workflowId(id)
+                .workflowType("TestWorkflow")
+                .payloadRef(ref)
+                .build();
+    }
+
+    private Task createTenantTask(String id, String tenant) {
+        return Task.builder()
+                .workflowId(id)
+                .workflowType("TestWorkflow")
+                .payload(Map.of("tenantId", tenant))
+                .build();
+    }
+
+    // Backlog целевой очереди, который видит автоподстройка
+    public static class TestBacklogActivityImpl implements BacklogActivity {
+
+        static volatile long backlog;
+
+        @Override
+        public BacklogSample sampleBacklog(String taskQueue) {
+            return new BacklogSample(taskQueue, backlog, 1, true);
+        }
+    }
+
+    public static class TestPayloadActivityImpl implements PayloadActivity {
+
+        static final List<String> deleted = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void deletePayloads(List<String> refs) {
+            deleted.addAll(refs);
+        }
+    }
+
     // Тестовая реализация DispatchActivity
     // Сделана максимально простой, чтобы избежать проблем с инициализацией
     public static class TestDispatchActivityImpl implements DispatchActivity {
 
+        static final Map<String, Map<String, Object>> payloads = new ConcurrentHashMap<>();
+
         @Override
         public void dispatchTask(String workflowType,
                                  String workflowId,
                                  Map<String, Object> payload,
                                  String taskQueue) {
+            // "fail-" — старт не удался (например, workflow уже существует)
+            if (workflowId.startsWith("fail-")) {
+                throw ApplicationFailure.newNonRetryableFailure("Start failed: " + workflowId, "StartFailed");
+            }
             // Просто успешно завершаем активити
+            payloads.put(workflowId, payload);
             System.out.println("Dispatching task: " + workflowId);
         }
     }